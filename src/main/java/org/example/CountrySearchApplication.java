@@ -10,7 +10,8 @@ import org.springframework.context.annotation.EnableAspectJAutoProxy;
 public class CountrySearchApplication {
 
     public static void main(final String[] args) {
-        Dotenv dotenv = Dotenv.load();
+        // The embedded profile needs no database credentials, so .env is optional
+        Dotenv dotenv = Dotenv.configure().ignoreIfMissing().load();
         dotenv.entries().forEach(entry ->
                 System.setProperty(entry.getKey(), entry.getValue())
         );
@@ -0,0 +1,400 @@
+package org.example.cache;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import org.example.dto.AggregateTotalsDto;
+import org.example.dto.CountryAggregateDto;
+import org.example.dto.NationAggregateDto;
+import org.example.event.FiguresChangedEvent;
+import org.example.event.NameChangedEvent;
+import org.example.event.NameChangedEvent.Kind;
+import org.example.event.NamesReloadEvent;
+import org.example.event.NationLinkChangedEvent;
+import org.example.repository.CityRepository;
+import org.example.repository.CountryRepository;
+import org.example.repository.NationRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Population, area and GDP roll-ups per country, per nation and in total for
+ * {@code /api/aggregates}. Every write event moves the counters by the difference to the
+ * last known value of the entity, so an update costs O(1) (plus one step per nation linked
+ * to a changed country) and reads never touch the database. Built in the background at
+ * startup and rebuilt after bulk reloads or on request to repair floating point drift;
+ * changes that arrive during a rebuild are replayed on the new counters before they are
+ * swapped in. Only cities that belong to a country are counted.
+ */
+@Component
+public class AggregateCounters {
+    private static final Logger logger = LoggerFactory.getLogger(AggregateCounters.class);
+
+    private final CountryRepository countryRepository;
+    private final CityRepository cityRepository;
+    private final NationRepository nationRepository;
+    private final TransactionTemplate readOnly;
+    private final ExecutorService builder = LiveIndex.builderThread("aggregate-builder");
+    private final LiveIndex<Counters> live = new LiveIndex<>(new Counters());
+
+    public AggregateCounters(CountryRepository countryRepository, CityRepository cityRepository,
+                             NationRepository nationRepository,
+                             PlatformTransactionManager transactionManager) {
+        this.countryRepository = countryRepository;
+        this.cityRepository = cityRepository;
+        this.nationRepository = nationRepository;
+        this.readOnly = new TransactionTemplate(transactionManager);
+        this.readOnly.setReadOnly(true);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void build() {
+        long buildGeneration = live.startBuild();
+        builder.execute(() -> rebuild(buildGeneration));
+    }
+
+    /**
+     * Rebuilds the counters from the database in the calling thread; {@code false} when the
+     * database could not be read.
+     */
+    public boolean rebuildNow() {
+        return rebuild(live.startBuild());
+    }
+
+    /** Totals over all countries; empty until the first build has finished. */
+    public Optional<AggregateTotalsDto> totals() {
+        return live.read(Counters::totals);
+    }
+
+    /**
+     * Figures of the given countries, or of all countries when {@code ids} is {@code null};
+     * unknown ids are skipped. Empty until the first build has finished.
+     */
+    public Optional<List<CountryAggregateDto>> countries(Collection<Long> ids) {
+        return live.read(counters -> {
+            Collection<CountryCounter> selected = ids == null ? counters.countries.values()
+                    : ids.stream().map(counters.countries::get).filter(Objects::nonNull).toList();
+            return selected.stream().map(CountryCounter::toDto).toList();
+        });
+    }
+
+    /** Figures of every nation; empty until the first build has finished. */
+    public Optional<List<NationAggregateDto>> nations() {
+        return live.read(counters -> counters.nations.values().stream()
+                .map(NationCounter::toDto).toList());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onNameChanged(NameChangedEvent event) {
+        Long id = event.getId();
+        String name = event.getName();
+        switch (event.getKind()) {
+            case COUNTRY -> live.change(counters -> counters.nameCountry(id, name));
+            case NATION -> live.change(counters -> counters.nameNation(id, name));
+            case CITY -> live.change(counters -> counters.placeCity(id,
+                    name == null ? null : event.getCountryId()));
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onFiguresChanged(FiguresChangedEvent event) {
+        if (event.getKind() == Kind.COUNTRY) {
+            live.change(counters -> counters.countryFigures(event.getId(),
+                    event.getPopulation(), event.getAreaSquareKm(), event.getGdp()));
+        } else if (event.getKind() == Kind.CITY) {
+            live.change(counters -> counters.cityPopulation(event.getId(),
+                    event.getPopulation()));
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onNationLinkChanged(NationLinkChangedEvent event) {
+        live.change(counters -> counters.link(event.getCountryId(), event.getNationId(),
+                event.isLinked()));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onReload(NamesReloadEvent event) {
+        if (event.getKind() != Kind.CITY || event.getCountryId() == null) {
+            build();
+            return;
+        }
+        Long countryId = event.getCountryId();
+        List<Consumer<Counters>> missed = live.watch();
+        List<Object[]> rows;
+        try {
+            rows = cityRepository.findFigureRowsByCountryId(countryId);
+        } catch (RuntimeException e) {
+            live.unwatch(missed);
+            throw e;
+        }
+        live.change(missed, counters -> counters.replaceCities(countryId, rows));
+        logger.debug("♻️ Aggregates reloaded for cities of country {}", countryId);
+    }
+
+    private boolean rebuild(long buildGeneration) {
+        long started = System.currentTimeMillis();
+        try {
+            live.rebuild(buildGeneration, this::load).ifPresent(fresh ->
+                    logger.info("📊 Aggregates built: {} countries, {} cities, {} nations in {} ms",
+                            fresh.countries.size(), fresh.cities.size(), fresh.nations.size(),
+                            System.currentTimeMillis() - started));
+            return true;
+        } catch (RuntimeException e) {
+            logger.error("🚫 Aggregate build failed", e);
+            return false;
+        }
+    }
+
+    private Counters load() {
+        Counters fresh = new Counters();
+        readOnly.executeWithoutResult(status -> {
+            countryRepository.findAllFigureRows().forEach(row -> {
+                Long id = (Long) row[0];
+                fresh.nameCountry(id, (String) row[1]);
+                fresh.countryFigures(id, (Double) row[2], (Double) row[3], (Double) row[4]);
+            });
+            nationRepository.findAllIdsAndNames().forEach(row ->
+                    fresh.nameNation((Long) row[0], (String) row[1]));
+            countryRepository.findAllNationLinks().forEach(row ->
+                    fresh.link(((Number) row[0]).longValue(), ((Number) row[1]).longValue(),
+                            true));
+            try (Stream<Object[]> rows = cityRepository.streamFigureRows()) {
+                rows.forEach(row -> {
+                    Long id = (Long) row[0];
+                    fresh.placeCity(id, (Long) row[1]);
+                    fresh.cityPopulation(id, (Double) row[2]);
+                });
+            }
+        });
+        return fresh;
+    }
+
+    private static Double ratio(double dividend, double divisor) {
+        return divisor > 0 ? dividend / divisor : null;
+    }
+
+    private static final class Counters {
+        final Map<Long, CountryCounter> countries = new HashMap<>();
+        final Map<Long, NationCounter> nations = new HashMap<>();
+        final Map<Long, CityFigures> cities = new HashMap<>();
+        double population;
+        double areaSquareKm;
+        double gdp;
+        double urbanPopulation;
+
+        void nameCountry(Long id, String name) {
+            if (name != null) {
+                countries.computeIfAbsent(id, CountryCounter::new).name = name;
+                return;
+            }
+            CountryCounter country = countries.remove(id);
+            if (country != null) {
+                new ArrayList<>(country.nationIds).forEach(nationId ->
+                        link(id, nationId, false, country));
+                population -= country.population;
+                areaSquareKm -= country.areaSquareKm;
+                gdp -= country.gdp;
+            }
+        }
+
+        void countryFigures(Long id, Double newPopulation, Double newArea, Double newGdp) {
+            CountryCounter country = countries.get(id);
+            if (country == null) {
+                return;
+            }
+            double populationDelta = newPopulation == null ? 0
+                    : newPopulation - country.population;
+            double areaDelta = newArea == null ? 0 : newArea - country.areaSquareKm;
+            double gdpDelta = newGdp == null ? 0 : newGdp - country.gdp;
+            country.population += populationDelta;
+            country.areaSquareKm += areaDelta;
+            country.gdp += gdpDelta;
+            population += populationDelta;
+            areaSquareKm += areaDelta;
+            gdp += gdpDelta;
+            for (Long nationId : country.nationIds) {
+                NationCounter nation = nations.get(nationId);
+                nation.population += populationDelta;
+                nation.gdp += gdpDelta;
+            }
+        }
+
+        void nameNation(Long id, String name) {
+            if (name == null) {
+                NationCounter nation = nations.get(id);
+                if (nation != null) {
+                    new ArrayList<>(nation.countryIds).forEach(countryId ->
+                            link(countryId, id, false));
+                    nations.remove(id);
+                }
+                return;
+            }
+            nations.computeIfAbsent(id, NationCounter::new).name = name;
+        }
+
+        void link(Long countryId, Long nationId, boolean linked) {
+            CountryCounter country = countries.get(countryId);
+            if (country != null) {
+                link(countryId, nationId, linked, country);
+            }
+        }
+
+        /** Moves a city to {@code countryId}; {@code null} drops it. */
+        void placeCity(Long id, Long countryId) {
+            CityFigures city = cities.get(id);
+            if (city != null && Objects.equals(city.countryId, countryId)) {
+                return;
+            }
+            if (city != null) {
+                moveUrban(city.countryId, -city.population, -1);
+                cities.remove(id);
+            }
+            if (countryId != null) {
+                double cityPopulation = city == null ? 0 : city.population;
+                cities.put(id, new CityFigures(countryId, cityPopulation));
+                moveUrban(countryId, cityPopulation, 1);
+            }
+        }
+
+        void cityPopulation(Long id, Double newPopulation) {
+            CityFigures city = cities.get(id);
+            if (city == null || newPopulation == null) {
+                return;
+            }
+            moveUrban(city.countryId, newPopulation - city.population, 0);
+            city.population = newPopulation;
+        }
+
+        void replaceCities(Long countryId, List<Object[]> rows) {
+            cities.entrySet().stream()
+                    .filter(entry -> countryId.equals(entry.getValue().countryId))
+                    .map(Map.Entry::getKey)
+                    .toList()
+                    .forEach(id -> placeCity(id, null));
+            rows.forEach(row -> {
+                Long id = (Long) row[0];
+                placeCity(id, countryId);
+                cityPopulation(id, (Double) row[1]);
+            });
+        }
+
+        AggregateTotalsDto totals() {
+            AggregateTotalsDto dto = new AggregateTotalsDto();
+            dto.setCountryCount(countries.size());
+            dto.setCityCount(cities.size());
+            dto.setNationCount(nations.size());
+            dto.setPopulation(population);
+            dto.setUrbanPopulation(urbanPopulation);
+            dto.setAreaSquareKm(areaSquareKm);
+            dto.setGdp(gdp);
+            dto.setDensity(ratio(population, areaSquareKm));
+            dto.setGdpPerCapita(ratio(gdp, population));
+            return dto;
+        }
+
+        private void link(Long countryId, Long nationId, boolean linked,
+                          CountryCounter country) {
+            NationCounter nation = nations.get(nationId);
+            if (nation == null) {
+                return;
+            }
+            double sign;
+            if (linked) {
+                sign = country.nationIds.add(nationId) ? 1 : 0;
+                nation.countryIds.add(countryId);
+            } else {
+                sign = country.nationIds.remove(nationId) ? -1 : 0;
+                nation.countryIds.remove(countryId);
+            }
+            nation.population += sign * country.population;
+            nation.gdp += sign * country.gdp;
+        }
+
+        private void moveUrban(Long countryId, double populationDelta, int cityDelta) {
+            urbanPopulation += populationDelta;
+            CountryCounter country = countries.get(countryId);
+            if (country != null) {
+                country.urbanPopulation += populationDelta;
+                country.cityCount += cityDelta;
+            }
+        }
+    }
+
+    private static final class CountryCounter {
+        final Long id;
+        final Set<Long> nationIds = new HashSet<>();
+        String name;
+        double population;
+        double areaSquareKm;
+        double gdp;
+        double urbanPopulation;
+        long cityCount;
+
+        CountryCounter(Long id) {
+            this.id = id;
+        }
+
+        CountryAggregateDto toDto() {
+            CountryAggregateDto dto = new CountryAggregateDto();
+            dto.setId(id);
+            dto.setName(name);
+            dto.setPopulation(population);
+            dto.setAreaSquareKm(areaSquareKm);
+            dto.setGdp(gdp);
+            dto.setCityCount(cityCount);
+            dto.setUrbanPopulation(urbanPopulation);
+            dto.setDensity(ratio(population, areaSquareKm));
+            dto.setGdpPerCapita(ratio(gdp, population));
+            return dto;
+        }
+    }
+
+    private static final class NationCounter {
+        final Long id;
+        final Set<Long> countryIds = new HashSet<>();
+        String name;
+        double population;
+        double gdp;
+
+        NationCounter(Long id) {
+            this.id = id;
+        }
+
+        NationAggregateDto toDto() {
+            NationAggregateDto dto = new NationAggregateDto();
+            dto.setId(id);
+            dto.setName(name);
+            dto.setCountryCount(countryIds.size());
+            dto.setPopulation(population);
+            dto.setGdp(gdp);
+            dto.setGdpPerCapita(ratio(gdp, population));
+            return dto;
+        }
+    }
+
+    private static final class CityFigures {
+        final Long countryId;
+        double population;
+
+        CityFigures(Long countryId, double population) {
+            this.countryId = countryId;
+            this.population = population;
+        }
+    }
+}
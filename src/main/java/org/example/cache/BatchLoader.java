@@ -0,0 +1,178 @@
+package org.example.cache;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Collects by-id loads from concurrent callers for a short window (or until
+ * {@code maxBatchSize} keys are waiting) and resolves them with one call of the batch
+ * function. Keys missing from the returned map complete with {@code null}. A window of
+ * {@code 0} disables batching and calls the function per key on the caller's thread.
+ * The scheduler thread only closes windows; batches it closes run on a small pool of
+ * {@code dispatchThreads}, so one slow query does not hold back the next window. A batch
+ * filled up to {@code maxBatchSize} runs on the caller that filled it.
+ *
+ * <p>Publishes {@code batch.loader.size} (keys per batch) and {@code batch.loader.wait}
+ * (time a key waited for its batch to start) tagged with the loader name.
+ */
+public class BatchLoader<K, V> implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(BatchLoader.class);
+
+    private final String name;
+    private final Function<Collection<K>, Map<K, V>> batchFunction;
+    private final long windowMicros;
+    private final int maxBatchSize;
+    private final ScheduledExecutorService scheduler;
+    private final ExecutorService dispatcher;
+    private final DistributionSummary batchSizes;
+    private final Timer waitTimer;
+
+    private Map<K, Pending<V>> pending = new LinkedHashMap<>();
+    private ScheduledFuture<?> scheduledFlush;
+
+    public BatchLoader(String name, Function<Collection<K>, Map<K, V>> batchFunction,
+                       long windowMicros, int maxBatchSize, int dispatchThreads,
+                       MeterRegistry meterRegistry) {
+        this.name = name;
+        this.batchFunction = batchFunction;
+        this.windowMicros = windowMicros;
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "batch-loader-" + name);
+            thread.setDaemon(true);
+            return thread;
+        });
+        AtomicInteger dispatcherCount = new AtomicInteger();
+        this.dispatcher = Executors.newFixedThreadPool(Math.max(1, dispatchThreads),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "batch-loader-" + name + "-dispatch-"
+                            + dispatcherCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.batchSizes = DistributionSummary.builder("batch.loader.size")
+                .description("Keys resolved per batch")
+                .tag("loader", name)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.waitTimer = Timer.builder("batch.loader.wait")
+                .description("Latency added by waiting for the batch window")
+                .tag("loader", name)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    public V load(K key) {
+        try {
+            return loadAsync(key).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    public CompletableFuture<V> loadAsync(K key) {
+        if (windowMicros <= 0) {
+            CompletableFuture<V> future = new CompletableFuture<>();
+            Map<K, Pending<V>> single = new LinkedHashMap<>();
+            single.put(key, new Pending<>(future, System.nanoTime()));
+            dispatch(single);
+            return future;
+        }
+
+        Map<K, Pending<V>> full = null;
+        CompletableFuture<V> future;
+        synchronized (this) {
+            Pending<V> waiting = pending.get(key);
+            if (waiting == null) {
+                waiting = new Pending<>(new CompletableFuture<>(), System.nanoTime());
+                pending.put(key, waiting);
+            }
+            future = waiting.future;
+            if (pending.size() >= maxBatchSize) {
+                full = takePending();
+            } else if (scheduledFlush == null) {
+                scheduledFlush = scheduler.schedule(this::flush, windowMicros,
+                        TimeUnit.MICROSECONDS);
+            }
+        }
+        if (full != null) {
+            dispatch(full);
+        }
+        return future;
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+        dispatcher.shutdownNow();
+        Map<K, Pending<V>> remaining;
+        synchronized (this) {
+            remaining = takePending();
+        }
+        remaining.values().forEach(waiting -> waiting.future.completeExceptionally(
+                new IllegalStateException("Batch loader " + name + " is closed")));
+    }
+
+    private void flush() {
+        Map<K, Pending<V>> batch;
+        synchronized (this) {
+            scheduledFlush = null;
+            batch = takePending();
+        }
+        if (!batch.isEmpty()) {
+            dispatcher.execute(() -> dispatch(batch));
+        }
+    }
+
+    private Map<K, Pending<V>> takePending() {
+        Map<K, Pending<V>> batch = pending;
+        pending = new LinkedHashMap<>();
+        if (scheduledFlush != null) {
+            scheduledFlush.cancel(false);
+            scheduledFlush = null;
+        }
+        return batch;
+    }
+
+    private void dispatch(Map<K, Pending<V>> batch) {
+        long started = System.nanoTime();
+        batchSizes.record(batch.size());
+        batch.values().forEach(waiting ->
+                waitTimer.record(started - waiting.enqueuedAt, TimeUnit.NANOSECONDS));
+        try {
+            Map<K, V> values = batchFunction.apply(batch.keySet());
+            batch.forEach((key, waiting) -> waiting.future.complete(values.get(key)));
+        } catch (RuntimeException e) {
+            logger.error("🚫 Batch loader {} failed for {} keys", name, batch.size(), e);
+            batch.values().forEach(waiting -> waiting.future.completeExceptionally(e));
+        }
+    }
+
+    private static final class Pending<V> {
+        final CompletableFuture<V> future;
+        final long enqueuedAt;
+
+        Pending(CompletableFuture<V> future, long enqueuedAt) {
+            this.future = future;
+            this.enqueuedAt = enqueuedAt;
+        }
+    }
+}
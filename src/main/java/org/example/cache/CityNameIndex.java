@@ -0,0 +1,245 @@
+package org.example.cache;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import org.example.event.NameChangedEvent;
+import org.example.event.NameChangedEvent.Kind;
+import org.example.event.NamesReloadEvent;
+import org.example.repository.CityRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Trigram index from lower-cased city names to city and country ids for
+ * {@code GET /search?cityName=}. Built in the background at startup and after bulk
+ * reloads; until a build has finished {@link #findCountries} answers empty and the caller
+ * falls back to the database. City creates, renames and deletes are applied after commit
+ * from {@link NameChangedEvent}s, {@link NamesReloadEvent}s rebuild one country or all.
+ * Changes that arrive during a full rebuild are replayed on the new index before it is
+ * swapped in; the same goes for changes that arrive while a country's rows are being loaded,
+ * which happens outside the lock.
+ */
+@Component
+public class CityNameIndex {
+    private static final Logger logger = LoggerFactory.getLogger(CityNameIndex.class);
+
+    private static final int RANK_EXACT = 0;
+    private static final int RANK_PREFIX = 1;
+    private static final int RANK_INFIX = 2;
+
+    private final CityRepository cityRepository;
+    private final TransactionTemplate readOnly;
+    private final ExecutorService builder = LiveIndex.builderThread("city-index-builder");
+    private final LiveIndex<Index> live = new LiveIndex<>(new Index());
+
+    public CityNameIndex(CityRepository cityRepository,
+                         PlatformTransactionManager transactionManager) {
+        this.cityRepository = cityRepository;
+        this.readOnly = new TransactionTemplate(transactionManager);
+        this.readOnly.setReadOnly(true);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void build() {
+        long buildGeneration = live.startBuild();
+        builder.execute(() -> rebuild(buildGeneration));
+    }
+
+    /**
+     * Countries with a city whose name contains {@code query}, best match first: a country
+     * ranks by its best city (exact name, then prefix, then infix match), ties by city name.
+     * Each entry maps a country id to the ids of all its indexed cities. Empty while the
+     * index is being built.
+     */
+    public Optional<Map<Long, Set<Long>>> findCountries(String query, int limit) {
+        String needle = query.toLowerCase(Locale.ROOT);
+        return live.read(index -> {
+            Map<Long, Match> best = new HashMap<>();
+            for (Long cityId : index.candidates(needle)) {
+                IndexedCity city = index.cities.get(cityId);
+                int position = city.name.indexOf(needle);
+                if (position < 0) {
+                    continue;
+                }
+                int rank = city.name.length() == needle.length() ? RANK_EXACT
+                        : position == 0 ? RANK_PREFIX : RANK_INFIX;
+                Match match = new Match(city.countryId, rank, city.name);
+                best.merge(city.countryId, match,
+                        (current, candidate) -> Match.ORDER.compare(candidate, current) < 0
+                                ? candidate : current);
+            }
+            Map<Long, Set<Long>> countries = new LinkedHashMap<>();
+            best.values().stream().sorted(Match.ORDER).limit(limit).forEach(match ->
+                    countries.put(match.countryId,
+                            Set.copyOf(index.citiesByCountry.get(match.countryId))));
+            return countries;
+        });
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onNameChanged(NameChangedEvent event) {
+        if (event.getKind() == Kind.CITY) {
+            live.change(index -> index.apply(event.getId(), event.getCountryId(),
+                    event.getName()));
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onReload(NamesReloadEvent event) {
+        if (event.getKind() != Kind.CITY) {
+            return;
+        }
+        if (event.getCountryId() == null) {
+            build();
+            return;
+        }
+        Long countryId = event.getCountryId();
+        List<Consumer<Index>> missed = live.watch();
+        List<Object[]> rows;
+        try {
+            rows = cityRepository.findIdsAndNamesByCountryId(countryId);
+        } catch (RuntimeException e) {
+            live.unwatch(missed);
+            throw e;
+        }
+        live.change(missed, index -> index.replaceCountry(countryId, rows));
+        logger.debug("♻️ City name index reloaded for country {}", countryId);
+    }
+
+    private void rebuild(long buildGeneration) {
+        long started = System.currentTimeMillis();
+        try {
+            live.rebuild(buildGeneration, this::load).ifPresent(fresh ->
+                    logger.info("🔎 City name index built: {} cities in {} ms",
+                            fresh.cities.size(), System.currentTimeMillis() - started));
+        } catch (RuntimeException e) {
+            logger.error("🚫 City name index build failed, searches use the database", e);
+        }
+    }
+
+    private Index load() {
+        Index fresh = new Index();
+        readOnly.executeWithoutResult(status -> {
+            try (Stream<Object[]> rows = cityRepository.streamIdsCountryIdsAndNames()) {
+                rows.forEach(row -> fresh.apply((Long) row[0], (Long) row[1], (String) row[2]));
+            }
+        });
+        return fresh;
+    }
+
+    private static final class Index {
+        final Map<Long, IndexedCity> cities = new HashMap<>();
+        final Map<Long, Set<Long>> citiesByCountry = new HashMap<>();
+        final Map<Long, Set<Long>> postings = new HashMap<>();
+
+        void apply(Long cityId, Long countryId, String name) {
+            remove(cityId);
+            if (countryId == null || name == null) {
+                return;
+            }
+            String key = name.toLowerCase(Locale.ROOT);
+            cities.put(cityId, new IndexedCity(key, countryId));
+            citiesByCountry.computeIfAbsent(countryId, id -> new HashSet<>()).add(cityId);
+            for (long trigram : trigrams(key)) {
+                postings.computeIfAbsent(trigram, t -> new HashSet<>()).add(cityId);
+            }
+        }
+
+        void replaceCountry(Long countryId, List<Object[]> rows) {
+            Set<Long> current = citiesByCountry.get(countryId);
+            if (current != null) {
+                new ArrayList<>(current).forEach(this::remove);
+            }
+            rows.forEach(row -> apply((Long) row[0], countryId, (String) row[1]));
+        }
+
+        /** Ids that may contain {@code needle}; callers still check the name. */
+        Iterable<Long> candidates(String needle) {
+            if (needle.length() < 3) {
+                return cities.keySet();
+            }
+            Set<Long> smallest = null;
+            for (long trigram : trigrams(needle)) {
+                Set<Long> posting = postings.get(trigram);
+                if (posting == null) {
+                    return Set.of();
+                }
+                if (smallest == null || posting.size() < smallest.size()) {
+                    smallest = posting;
+                }
+            }
+            return smallest;
+        }
+
+        private void remove(Long cityId) {
+            IndexedCity city = cities.remove(cityId);
+            if (city == null) {
+                return;
+            }
+            Set<Long> countryCities = citiesByCountry.get(city.countryId);
+            countryCities.remove(cityId);
+            if (countryCities.isEmpty()) {
+                citiesByCountry.remove(city.countryId);
+            }
+            for (long trigram : trigrams(city.name)) {
+                Set<Long> posting = postings.get(trigram);
+                posting.remove(cityId);
+                if (posting.isEmpty()) {
+                    postings.remove(trigram);
+                }
+            }
+        }
+
+        private static Set<Long> trigrams(String name) {
+            Set<Long> trigrams = new HashSet<>();
+            for (int i = 0; i + 3 <= name.length(); i++) {
+                trigrams.add(((long) name.charAt(i) << 32) | ((long) name.charAt(i + 1) << 16)
+                        | name.charAt(i + 2));
+            }
+            return trigrams;
+        }
+    }
+
+    private static final class IndexedCity {
+        final String name;
+        final Long countryId;
+
+        IndexedCity(String name, Long countryId) {
+            this.name = name;
+            this.countryId = countryId;
+        }
+    }
+
+    private static final class Match {
+        static final Comparator<Match> ORDER = Comparator.<Match>comparingInt(match -> match.rank)
+                .thenComparing(match -> match.name)
+                .thenComparing(match -> match.countryId);
+
+        final Long countryId;
+        final int rank;
+        final String name;
+
+        Match(Long countryId, int rank, String name) {
+            this.countryId = countryId;
+            this.rank = rank;
+            this.name = name;
+        }
+    }
+}
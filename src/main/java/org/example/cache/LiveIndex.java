@@ -0,0 +1,165 @@
+package org.example.cache;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * The live copy of an in-memory index, shared by the indexes of this package. Reads run
+ * under a read lock; changes are applied in place under the write lock. A rebuild loads a
+ * fresh copy without the lock, replays the changes applied since it started and swaps the
+ * copy in; a rebuild started later supersedes it. Until the first rebuild has finished,
+ * reads answer empty and callers fall back to the database.
+ *
+ * <p>A caller that reads rows outside the lock, such as a per-country reload, watches the
+ * changes applied meanwhile with {@link #watch} and replays them after its own change.
+ */
+final class LiveIndex<T> {
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private T index;
+    private boolean ready;
+    private long generation;
+    private List<Consumer<T>> pendingChanges;
+    private final Set<List<Consumer<T>>> watchers =
+            Collections.newSetFromMap(new IdentityHashMap<>());
+
+    LiveIndex(T empty) {
+        this.index = empty;
+    }
+
+    /** A single daemon thread for background rebuilds. */
+    static ExecutorService builderThread(String name) {
+        return Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /** Result of {@code query} on the live index; empty until the first rebuild. */
+    <R> Optional<R> read(Function<T, R> query) {
+        lock.readLock().lock();
+        try {
+            return ready ? Optional.of(query.apply(index)) : Optional.empty();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Starts recording changes for a rebuild; pass the result to {@link #rebuild}. */
+    long startBuild() {
+        lock.writeLock().lock();
+        try {
+            pendingChanges = new ArrayList<>();
+            return ++generation;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Loads a fresh index with {@code loader}, outside the lock, and swaps it in after
+     * replaying the changes recorded since {@link #startBuild}. Returns the new index, or
+     * empty when a later rebuild superseded this one. A failing loader leaves the live index
+     * as it was and its exception propagates.
+     */
+    Optional<T> rebuild(long buildGeneration, Supplier<T> loader) {
+        T fresh;
+        try {
+            fresh = loader.get();
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                if (buildGeneration == generation) {
+                    pendingChanges = null;
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+            throw e;
+        }
+        lock.writeLock().lock();
+        try {
+            if (buildGeneration != generation) {
+                return Optional.empty();
+            }
+            pendingChanges.forEach(change -> change.accept(fresh));
+            pendingChanges = null;
+            index = fresh;
+            ready = true;
+            return Optional.of(fresh);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Applies {@code change} to the live index and records it for a running rebuild. */
+    void change(Consumer<T> change) {
+        lock.writeLock().lock();
+        try {
+            apply(change);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Starts collecting the changes applied from now on. End with {@link #change(List,
+     * Consumer)}, or with {@link #unwatch} when the caller gives up.
+     */
+    List<Consumer<T>> watch() {
+        List<Consumer<T>> missed = new ArrayList<>();
+        lock.writeLock().lock();
+        try {
+            watchers.add(missed);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        return missed;
+    }
+
+    void unwatch(List<Consumer<T>> missed) {
+        lock.writeLock().lock();
+        try {
+            watchers.remove(missed);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Applies {@code change} followed by the changes {@code missed} collected since
+     * {@link #watch}, and stops collecting. The replay is recorded with the change, so a
+     * running rebuild repeats it after {@code change} as well.
+     */
+    void change(List<Consumer<T>> missed, Consumer<T> change) {
+        lock.writeLock().lock();
+        try {
+            watchers.remove(missed);
+            apply(index -> {
+                change.accept(index);
+                missed.forEach(missedChange -> missedChange.accept(index));
+            });
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void apply(Consumer<T> change) {
+        change.accept(index);
+        if (pendingChanges != null) {
+            pendingChanges.add(change);
+        }
+        watchers.forEach(missed -> missed.add(change));
+    }
+}
@@ -0,0 +1,235 @@
+package org.example.cache;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.example.event.NameChangedEvent;
+import org.example.event.NamesReloadEvent;
+import org.example.repository.CityRepository;
+import org.example.repository.CountryRepository;
+import org.example.repository.NationRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Lower-cased name-to-id dictionaries for countries and nations plus a bounded
+ * per-country index of city names. Services use it to skip the existence query on the usual
+ * path: a miss is trusted (the unique indexes reject a real duplicate), a hit is confirmed
+ * against the database. Changes are applied after commit from {@link NameChangedEvent}s;
+ * {@link NamesReloadEvent}s drop the affected part, which is reloaded on the next lookup.
+ * A reload builds new maps and swaps them in, so lookups never see a half-filled dictionary.
+ * Only stored keys are interned; lookup keys from requests are not.
+ */
+@Component
+public class NameDictionary {
+    private static final Logger logger = LoggerFactory.getLogger(NameDictionary.class);
+
+    private static final int MAX_INDEXED_COUNTRIES = 1000;
+    private static final int MAX_CITIES_PER_COUNTRY = 10_000;
+    private static final Map<String, Long> NOT_INDEXED = Collections.emptyMap();
+
+    private final CountryRepository countryRepository;
+    private final NationRepository nationRepository;
+    private final CityRepository cityRepository;
+
+    private volatile Names countries = new Names();
+    private volatile Names nations = new Names();
+    private final Map<Long, Map<String, Long>> citiesByCountry =
+            new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Long, Map<String, Long>> eldest) {
+                    return size() > MAX_INDEXED_COUNTRIES;
+                }
+            };
+
+    private volatile boolean countriesLoaded;
+    private volatile boolean nationsLoaded;
+
+    public NameDictionary(CountryRepository countryRepository,
+                          NationRepository nationRepository,
+                          CityRepository cityRepository) {
+        this.countryRepository = countryRepository;
+        this.nationRepository = nationRepository;
+        this.cityRepository = cityRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        loadCountries();
+        loadNations();
+        logger.info("📚 Name dictionary loaded: {} countries, {} nations",
+                countries.ids.size(), nations.ids.size());
+    }
+
+    public static String normalize(String name) {
+        return name.toLowerCase(Locale.ROOT);
+    }
+
+    private static String storedKey(String name) {
+        return normalize(name).intern();
+    }
+
+    public boolean mayContainCountry(String name) {
+        if (!countriesLoaded) {
+            loadCountries();
+        }
+        return countries.ids.containsKey(normalize(name));
+    }
+
+    public Long findNationId(String name) {
+        if (!nationsLoaded) {
+            loadNations();
+        }
+        return nations.ids.get(normalize(name));
+    }
+
+    /**
+     * Returns {@code false} only when the indexed names of the country do not contain the
+     * name. Countries with more than {@value #MAX_CITIES_PER_COUNTRY} cities are not indexed
+     * and always answer {@code true}.
+     */
+    public boolean mayContainCity(Long countryId, String name) {
+        Map<String, Long> cities;
+        synchronized (citiesByCountry) {
+            cities = citiesByCountry.get(countryId);
+        }
+        if (cities == null) {
+            cities = loadCities(countryId);
+        }
+        if (cities == NOT_INDEXED) {
+            return true;
+        }
+        synchronized (cities) {
+            return cities.containsKey(normalize(name));
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onNameChanged(NameChangedEvent event) {
+        switch (event.getKind()) {
+            case COUNTRY -> applyCountry(event.getId(), event.getName());
+            case NATION -> applyNation(event.getId(), event.getName());
+            case CITY -> applyCity(event.getCountryId(), event.getId(), event.getName());
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onReload(NamesReloadEvent event) {
+        switch (event.getKind()) {
+            case COUNTRY -> countriesLoaded = false;
+            case NATION -> nationsLoaded = false;
+            case CITY -> {
+                synchronized (citiesByCountry) {
+                    if (event.getCountryId() == null) {
+                        citiesByCountry.clear();
+                    } else {
+                        citiesByCountry.remove(event.getCountryId());
+                    }
+                }
+            }
+        }
+        logger.debug("♻️ Name dictionary invalidated: {} {}", event.getKind(),
+                event.getCountryId() == null ? "" : event.getCountryId());
+    }
+
+    private synchronized void loadCountries() {
+        if (countriesLoaded) {
+            return;
+        }
+        countries = Names.of(countryRepository.findAllIdsAndNames());
+        countriesLoaded = true;
+    }
+
+    private synchronized void loadNations() {
+        if (nationsLoaded) {
+            return;
+        }
+        nations = Names.of(nationRepository.findAllIdsAndNames());
+        nationsLoaded = true;
+    }
+
+    private Map<String, Long> loadCities(Long countryId) {
+        List<Object[]> rows = cityRepository.findIdsAndNamesByCountryId(countryId);
+        Map<String, Long> cities = NOT_INDEXED;
+        if (rows.size() <= MAX_CITIES_PER_COUNTRY) {
+            cities = new HashMap<>(rows.size() * 2);
+            for (Object[] row : rows) {
+                if (row[1] != null) {
+                    cities.put(storedKey((String) row[1]), (Long) row[0]);
+                }
+            }
+        }
+        synchronized (citiesByCountry) {
+            citiesByCountry.putIfAbsent(countryId, cities);
+            return citiesByCountry.get(countryId);
+        }
+    }
+
+    // Synchronized with the loaders, so a change is never applied to a map being replaced.
+    private synchronized void applyCountry(Long id, String name) {
+        countries.apply(id, name);
+    }
+
+    private synchronized void applyNation(Long id, String name) {
+        nations.apply(id, name);
+    }
+
+    private void applyCity(Long countryId, Long cityId, String name) {
+        if (countryId == null) {
+            return;
+        }
+        Map<String, Long> cities;
+        synchronized (citiesByCountry) {
+            cities = citiesByCountry.get(countryId);
+            if (cities == null || cities == NOT_INDEXED) {
+                return;
+            }
+            if (name != null && cities.size() >= MAX_CITIES_PER_COUNTRY) {
+                citiesByCountry.put(countryId, NOT_INDEXED);
+                return;
+            }
+        }
+        synchronized (cities) {
+            cities.values().remove(cityId);
+            if (name != null) {
+                cities.put(storedKey(name), cityId);
+            }
+        }
+    }
+
+    private static final class Names {
+        final Map<String, Long> ids = new ConcurrentHashMap<>();
+        final Map<Long, String> names = new ConcurrentHashMap<>();
+
+        static Names of(List<Object[]> rows) {
+            Names loaded = new Names();
+            for (Object[] row : rows) {
+                if (row[1] != null) {
+                    String key = storedKey((String) row[1]);
+                    loaded.ids.put(key, (Long) row[0]);
+                    loaded.names.put((Long) row[0], key);
+                }
+            }
+            return loaded;
+        }
+
+        void apply(Long id, String name) {
+            String key = name == null ? null : storedKey(name);
+            String previous = key == null ? names.remove(id) : names.put(id, key);
+            if (previous != null) {
+                ids.remove(previous, id);
+            }
+            if (key != null) {
+                ids.put(key, id);
+            }
+        }
+    }
+}
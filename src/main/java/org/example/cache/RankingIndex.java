@@ -0,0 +1,450 @@
+package org.example.cache;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import org.example.event.FiguresChangedEvent;
+import org.example.event.NameChangedEvent;
+import org.example.event.NameChangedEvent.Kind;
+import org.example.event.NamesReloadEvent;
+import org.example.event.NationLanguageChangedEvent;
+import org.example.event.NationLinkChangedEvent;
+import org.example.repository.CityRepository;
+import org.example.repository.CountryRepository;
+import org.example.repository.NationRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Sorted orderings for the top-N queries of {@code /api/rankings}: the cities of every
+ * country by population and all countries by population, area, GDP and density. An entity
+ * whose figures change is taken out of its orderings and put back, O(log n) per write, and
+ * a top-N read walks the first N entries. Every spoken language has its own country
+ * orderings, maintained as nation languages and country-nation links change, so a filtered
+ * top-N read walks only the countries that speak it. Built in the background at startup and
+ * after bulk reloads; changes that arrive during a rebuild are replayed on the new orderings
+ * before they are swapped in. Only cities that belong to a country are ranked.
+ */
+@Component
+public class RankingIndex {
+    private static final Logger logger = LoggerFactory.getLogger(RankingIndex.class);
+
+    /** Country orderings; density is population per square kilometre. */
+    public enum Metric { POPULATION, AREA, GDP, DENSITY }
+
+    private final CountryRepository countryRepository;
+    private final CityRepository cityRepository;
+    private final NationRepository nationRepository;
+    private final TransactionTemplate readOnly;
+    private final ExecutorService builder = LiveIndex.builderThread("ranking-builder");
+    private final LiveIndex<Rankings> live = new LiveIndex<>(new Rankings());
+
+    public RankingIndex(CountryRepository countryRepository, CityRepository cityRepository,
+                        NationRepository nationRepository,
+                        PlatformTransactionManager transactionManager) {
+        this.countryRepository = countryRepository;
+        this.cityRepository = cityRepository;
+        this.nationRepository = nationRepository;
+        this.readOnly = new TransactionTemplate(transactionManager);
+        this.readOnly.setReadOnly(true);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void build() {
+        long buildGeneration = live.startBuild();
+        builder.execute(() -> rebuild(buildGeneration));
+    }
+
+    /**
+     * Ids of the {@code limit} most populous cities of a country, ties by id; an unknown
+     * country has none. Empty while the index is being built.
+     */
+    public Optional<List<Long>> largestCities(Long countryId, int limit) {
+        return live.read(rankings -> {
+            NavigableSet<CityRank> cities = rankings.citiesByCountry.get(countryId);
+            return cities == null ? List.<Long>of()
+                    : cities.stream().limit(limit).map(city -> city.id).toList();
+        });
+    }
+
+    /**
+     * Ids of the {@code limit} countries with the highest {@code metric}, ties by id. With a
+     * {@code language} only countries linked to a nation speaking it (ignoring case) count,
+     * read from that language's own orderings. Countries without an area have no density.
+     * Empty while the index is being built.
+     */
+    public Optional<List<Long>> topCountries(Metric metric, String language, int limit) {
+        String key = language == null ? null : language.toLowerCase(Locale.ROOT);
+        return live.read(rankings -> {
+            Map<Metric, NavigableSet<CountryRank>> orderings = key == null
+                    ? rankings.countriesBy : rankings.countriesByLanguage.get(key);
+            if (orderings == null) {
+                return List.<Long>of();
+            }
+            return orderings.get(metric).stream()
+                    .limit(limit)
+                    .map(country -> country.id)
+                    .toList();
+        });
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onNameChanged(NameChangedEvent event) {
+        Long id = event.getId();
+        String name = event.getName();
+        switch (event.getKind()) {
+            case COUNTRY -> live.change(rankings -> rankings.nameCountry(id, name));
+            case NATION -> {
+                if (name == null) {
+                    live.change(rankings -> rankings.dropNation(id));
+                }
+            }
+            case CITY -> live.change(rankings -> rankings.placeCity(id,
+                    name == null ? null : event.getCountryId()));
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onFiguresChanged(FiguresChangedEvent event) {
+        if (event.getKind() == Kind.COUNTRY) {
+            live.change(rankings -> rankings.countryFigures(event.getId(),
+                    event.getPopulation(), event.getAreaSquareKm(), event.getGdp()));
+        } else if (event.getKind() == Kind.CITY) {
+            live.change(rankings -> rankings.cityPopulation(event.getId(),
+                    event.getPopulation()));
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onNationLinkChanged(NationLinkChangedEvent event) {
+        live.change(rankings -> rankings.link(event.getCountryId(), event.getNationId(),
+                event.isLinked()));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onNationLanguageChanged(NationLanguageChangedEvent event) {
+        live.change(rankings -> rankings.language(event.getNationId(), event.getLanguage()));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onReload(NamesReloadEvent event) {
+        if (event.getKind() != Kind.CITY || event.getCountryId() == null) {
+            build();
+            return;
+        }
+        Long countryId = event.getCountryId();
+        List<Consumer<Rankings>> missed = live.watch();
+        List<Object[]> rows;
+        try {
+            rows = cityRepository.findFigureRowsByCountryId(countryId);
+        } catch (RuntimeException e) {
+            live.unwatch(missed);
+            throw e;
+        }
+        live.change(missed, rankings -> rankings.replaceCities(countryId, rows));
+        logger.debug("♻️ Rankings reloaded for cities of country {}", countryId);
+    }
+
+    private void rebuild(long buildGeneration) {
+        long started = System.currentTimeMillis();
+        try {
+            live.rebuild(buildGeneration, this::load).ifPresent(fresh ->
+                    logger.info("🏆 Ranking index built: {} countries, {} cities in {} ms",
+                            fresh.countries.size(), fresh.cities.size(),
+                            System.currentTimeMillis() - started));
+        } catch (RuntimeException e) {
+            logger.error("🚫 Ranking index build failed", e);
+        }
+    }
+
+    private Rankings load() {
+        Rankings fresh = new Rankings();
+        readOnly.executeWithoutResult(status -> {
+            countryRepository.findAllFigureRows().forEach(row -> {
+                Long id = (Long) row[0];
+                fresh.nameCountry(id, (String) row[1]);
+                fresh.countryFigures(id, (Double) row[2], (Double) row[3], (Double) row[4]);
+            });
+            nationRepository.findAllIdsAndLanguages().forEach(row ->
+                    fresh.language((Long) row[0], (String) row[1]));
+            countryRepository.findAllNationLinks().forEach(row ->
+                    fresh.link(((Number) row[0]).longValue(), ((Number) row[1]).longValue(),
+                            true));
+            try (Stream<Object[]> rows = cityRepository.streamFigureRows()) {
+                rows.forEach(row -> {
+                    Long id = (Long) row[0];
+                    fresh.placeCity(id, (Long) row[1]);
+                    fresh.cityPopulation(id, (Double) row[2]);
+                });
+            }
+        });
+        return fresh;
+    }
+
+    private static final class Rankings {
+        final Map<Long, CityRank> cities = new HashMap<>();
+        final Map<Long, NavigableSet<CityRank>> citiesByCountry = new HashMap<>();
+        final Map<Long, CountryRank> countries = new HashMap<>();
+        final Map<Metric, NavigableSet<CountryRank>> countriesBy = new EnumMap<>(Metric.class);
+        final Map<String, Map<Metric, NavigableSet<CountryRank>>> countriesByLanguage =
+                new HashMap<>();
+        final Map<Long, String> languages = new HashMap<>();
+        final Map<Long, Set<Long>> countriesByNation = new HashMap<>();
+
+        Rankings() {
+            countriesBy.putAll(orderings());
+        }
+
+        void nameCountry(Long id, String name) {
+            if (name != null) {
+                if (!countries.containsKey(id)) {
+                    CountryRank country = new CountryRank(id);
+                    countries.put(id, country);
+                    rank(country);
+                }
+                return;
+            }
+            CountryRank country = countries.remove(id);
+            if (country != null) {
+                unrank(country);
+                country.nationIds.forEach(nationId -> unlinkNation(nationId, id));
+            }
+            NavigableSet<CityRank> countryCities = citiesByCountry.remove(id);
+            if (countryCities != null) {
+                countryCities.forEach(city -> cities.remove(city.id));
+            }
+        }
+
+        void countryFigures(Long id, Double population, Double area, Double gdp) {
+            CountryRank country = countries.get(id);
+            if (country == null) {
+                return;
+            }
+            unrank(country);
+            if (population != null) {
+                country.population = population;
+            }
+            if (area != null) {
+                country.areaSquareKm = area;
+            }
+            if (gdp != null) {
+                country.gdp = gdp;
+            }
+            rank(country);
+        }
+
+        void language(Long nationId, String language) {
+            String key = language == null || language.isEmpty() ? null
+                    : language.toLowerCase(Locale.ROOT);
+            String previous = key == null ? languages.remove(nationId)
+                    : languages.put(nationId, key);
+            if (Objects.equals(previous, key)) {
+                return;
+            }
+            for (Long countryId : countriesByNation.getOrDefault(nationId, Set.of())) {
+                CountryRank country = countries.get(countryId);
+                unspeak(country, previous);
+                speak(country, key);
+            }
+        }
+
+        void dropNation(Long nationId) {
+            language(nationId, null);
+            Set<Long> linked = countriesByNation.remove(nationId);
+            if (linked != null) {
+                linked.forEach(countryId -> countries.get(countryId).nationIds.remove(nationId));
+            }
+        }
+
+        void link(Long countryId, Long nationId, boolean linked) {
+            CountryRank country = countries.get(countryId);
+            if (country == null) {
+                return;
+            }
+            if (linked) {
+                if (country.nationIds.add(nationId)) {
+                    countriesByNation.computeIfAbsent(nationId, id -> new HashSet<>())
+                            .add(countryId);
+                    speak(country, languages.get(nationId));
+                }
+            } else if (country.nationIds.remove(nationId)) {
+                unlinkNation(nationId, countryId);
+                unspeak(country, languages.get(nationId));
+            }
+        }
+
+        private void unlinkNation(Long nationId, Long countryId) {
+            Set<Long> linked = countriesByNation.get(nationId);
+            if (linked != null && linked.remove(countryId) && linked.isEmpty()) {
+                countriesByNation.remove(nationId);
+            }
+        }
+
+        /** Counts one more linked nation speaking {@code language}; the first one ranks. */
+        private void speak(CountryRank country, String language) {
+            if (language != null && country.languages.merge(language, 1, Integer::sum) == 1) {
+                rank(country, countriesByLanguage.computeIfAbsent(language,
+                        key -> orderings()));
+            }
+        }
+
+        private void unspeak(CountryRank country, String language) {
+            if (language == null || !country.languages.containsKey(language)) {
+                return;
+            }
+            if (country.languages.merge(language, -1, Integer::sum) == 0) {
+                country.languages.remove(language);
+                Map<Metric, NavigableSet<CountryRank>> orderings =
+                        countriesByLanguage.get(language);
+                orderings.values().forEach(ordering -> ordering.remove(country));
+                if (orderings.get(Metric.POPULATION).isEmpty()) {
+                    countriesByLanguage.remove(language);
+                }
+            }
+        }
+
+        /** Moves a city to {@code countryId}; {@code null} drops it. */
+        void placeCity(Long id, Long countryId) {
+            CityRank city = cities.get(id);
+            if (city != null && city.countryId.equals(countryId)) {
+                return;
+            }
+            double population = 0;
+            if (city != null) {
+                population = city.population;
+                removeCity(city);
+            }
+            if (countryId != null) {
+                CityRank placed = new CityRank(id, countryId, population);
+                cities.put(id, placed);
+                citiesByCountry.computeIfAbsent(countryId,
+                        key -> new TreeSet<>(CityRank.ORDER)).add(placed);
+            }
+        }
+
+        void cityPopulation(Long id, Double population) {
+            CityRank city = cities.get(id);
+            if (city == null || population == null) {
+                return;
+            }
+            NavigableSet<CityRank> countryCities = citiesByCountry.get(city.countryId);
+            countryCities.remove(city);
+            city.population = population;
+            countryCities.add(city);
+        }
+
+        void replaceCities(Long countryId, List<Object[]> rows) {
+            NavigableSet<CityRank> current = citiesByCountry.get(countryId);
+            if (current != null) {
+                new ArrayList<>(current).forEach(this::removeCity);
+            }
+            rows.forEach(row -> {
+                Long id = (Long) row[0];
+                placeCity(id, countryId);
+                cityPopulation(id, (Double) row[1]);
+            });
+        }
+
+        private void removeCity(CityRank city) {
+            cities.remove(city.id);
+            NavigableSet<CityRank> countryCities = citiesByCountry.get(city.countryId);
+            countryCities.remove(city);
+            if (countryCities.isEmpty()) {
+                citiesByCountry.remove(city.countryId);
+            }
+        }
+
+        private void rank(CountryRank country) {
+            rank(country, countriesBy);
+            country.languages.keySet().forEach(language ->
+                    rank(country, countriesByLanguage.get(language)));
+        }
+
+        private void unrank(CountryRank country) {
+            countriesBy.values().forEach(ordering -> ordering.remove(country));
+            country.languages.keySet().forEach(language -> countriesByLanguage.get(language)
+                    .values().forEach(ordering -> ordering.remove(country)));
+        }
+
+        private static void rank(CountryRank country,
+                                 Map<Metric, NavigableSet<CountryRank>> orderings) {
+            orderings.forEach((metric, ordering) -> {
+                if (metric != Metric.DENSITY || country.areaSquareKm > 0) {
+                    ordering.add(country);
+                }
+            });
+        }
+
+        private static Map<Metric, NavigableSet<CountryRank>> orderings() {
+            Map<Metric, NavigableSet<CountryRank>> orderings = new EnumMap<>(Metric.class);
+            for (Metric metric : Metric.values()) {
+                orderings.put(metric, new TreeSet<>(CountryRank.order(metric)));
+            }
+            return orderings;
+        }
+    }
+
+    private static final class CountryRank {
+        final Long id;
+        final Set<Long> nationIds = new HashSet<>();
+        /** Spoken languages, each with the number of linked nations speaking it. */
+        final Map<String, Integer> languages = new HashMap<>();
+        double population;
+        double areaSquareKm;
+        double gdp;
+
+        CountryRank(Long id) {
+            this.id = id;
+        }
+
+        double value(Metric metric) {
+            return switch (metric) {
+                case POPULATION -> population;
+                case AREA -> areaSquareKm;
+                case GDP -> gdp;
+                case DENSITY -> population / areaSquareKm;
+            };
+        }
+
+        /** Highest value first, ties by id. */
+        static Comparator<CountryRank> order(Metric metric) {
+            return Comparator.<CountryRank>comparingDouble(country -> -country.value(metric))
+                    .thenComparing(country -> country.id);
+        }
+    }
+
+    private static final class CityRank {
+        static final Comparator<CityRank> ORDER = Comparator
+                .<CityRank>comparingDouble(city -> -city.population)
+                .thenComparing(city -> city.id);
+
+        final Long id;
+        final Long countryId;
+        double population;
+
+        CityRank(Long id, Long countryId, double population) {
+            this.id = id;
+            this.countryId = countryId;
+            this.population = population;
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package org.example.cache;
 
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.concurrent.Executors;
@@ -32,6 +34,21 @@ public class SearchCache {
         return entry == null ? null : entry.value;
     }
 
+    public synchronized Map<String, Object> getAll(Collection<String> keys) {
+        Map<String, Object> found = new HashMap<>();
+        for (String key : keys) {
+            CacheEntry entry = (CacheEntry) cache.get(key);
+            if (entry != null) {
+                found.put(key, entry.value);
+            }
+        }
+        return found;
+    }
+
+    public synchronized void putAll(Map<String, ?> values) {
+        values.forEach((key, value) -> cache.put(key, new CacheEntry(value)));
+    }
+
     public synchronized boolean containsKey(String key) {
         return cache.containsKey(key);
     }
@@ -46,6 +63,18 @@ public class SearchCache {
         cache.remove(key);
     }
 
+    public synchronized void removeByPrefix(String prefix) {
+        cache.keySet().removeIf(key -> key.startsWith(prefix));
+    }
+
+    /** Removes the keys and every key starting with one of the prefixes in one pass. */
+    public synchronized void removeAll(Collection<String> keys, Collection<String> prefixes) {
+        keys.forEach(cache::remove);
+        if (!prefixes.isEmpty()) {
+            cache.keySet().removeIf(key -> prefixes.stream().anyMatch(key::startsWith));
+        }
+    }
+
     public synchronized void clear() {
         cache.clear();
     }
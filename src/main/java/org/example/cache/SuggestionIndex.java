@@ -0,0 +1,536 @@
+package org.example.cache;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import org.example.dto.SuggestionDto;
+import org.example.event.FiguresChangedEvent;
+import org.example.event.NameChangedEvent;
+import org.example.event.NameChangedEvent.Kind;
+import org.example.event.NamesReloadEvent;
+import org.example.repository.CityRepository;
+import org.example.repository.CountryRepository;
+import org.example.repository.NationRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Prefix autocomplete for {@code GET /suggest}: one radix trie of lower-cased names per
+ * entity type, where every node keeps the {@value #MAX_SUGGESTIONS} heaviest names of its
+ * subtree, heaviest population first. A lookup walks the prefix and returns that list, so
+ * its cost depends on the prefix length only. Tries are built in the background at startup
+ * and after bulk reloads; until a type has been built {@link #suggest} answers empty and the
+ * caller falls back to the database. Creates, renames and deletes are applied after commit
+ * from {@link NameChangedEvent}s and population changes from {@link FiguresChangedEvent}s;
+ * changes that arrive during a rebuild are replayed on the new trie before it is swapped in.
+ */
+@Component
+public class SuggestionIndex {
+    private static final Logger logger = LoggerFactory.getLogger(SuggestionIndex.class);
+
+    public static final int MAX_SUGGESTIONS = 10;
+
+    private final CountryRepository countryRepository;
+    private final CityRepository cityRepository;
+    private final NationRepository nationRepository;
+    private final TransactionTemplate readOnly;
+    private final ExecutorService builder = LiveIndex.builderThread("suggestion-index-builder");
+    private final Map<Kind, Slot> slots = new EnumMap<>(Kind.class);
+
+    public SuggestionIndex(CountryRepository countryRepository, CityRepository cityRepository,
+                           NationRepository nationRepository,
+                           PlatformTransactionManager transactionManager,
+                           MeterRegistry meterRegistry) {
+        this.countryRepository = countryRepository;
+        this.cityRepository = cityRepository;
+        this.nationRepository = nationRepository;
+        this.readOnly = new TransactionTemplate(transactionManager);
+        this.readOnly.setReadOnly(true);
+        for (Kind kind : Kind.values()) {
+            Slot slot = new Slot();
+            slots.put(kind, slot);
+            String type = kind.name().toLowerCase(Locale.ROOT);
+            Gauge.builder("suggestion.index.names", slot, s -> s.names)
+                    .description("Names in the autocomplete trie at its last build")
+                    .tag("type", type)
+                    .register(meterRegistry);
+            Gauge.builder("suggestion.index.memory", slot, s -> s.estimatedBytes)
+                    .description("Estimated heap held by the autocomplete trie at its last build")
+                    .baseUnit("bytes")
+                    .tag("type", type)
+                    .register(meterRegistry);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void build() {
+        for (Kind kind : Kind.values()) {
+            build(kind);
+        }
+    }
+
+    /**
+     * Up to {@code limit} names of {@code kind} starting with {@code prefix} (ignoring case),
+     * highest population first, ties by name. Empty while the trie is being built.
+     */
+    public Optional<List<SuggestionDto>> suggest(Kind kind, String prefix, int limit) {
+        String key = prefix.toLowerCase(Locale.ROOT);
+        return slots.get(kind).live.read(trie -> {
+            Suggestion[] top = trie.top(key);
+            List<SuggestionDto> suggestions = new ArrayList<>(Math.min(limit, top.length));
+            for (int i = 0; i < top.length && i < limit; i++) {
+                suggestions.add(top[i].toDto(kind));
+            }
+            return suggestions;
+        });
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onNameChanged(NameChangedEvent event) {
+        boolean detached = event.getKind() == Kind.CITY && event.getCountryId() == null;
+        String name = detached ? null : event.getName();
+        slots.get(event.getKind()).live.change(trie -> trie.apply(event.getId(), name, null,
+                event.getCountryId()));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onFiguresChanged(FiguresChangedEvent event) {
+        if (event.getPopulation() != null) {
+            slots.get(event.getKind()).live.change(trie -> trie.reweight(event.getId(),
+                    event.getPopulation()));
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onReload(NamesReloadEvent event) {
+        if (event.getKind() != Kind.CITY || event.getCountryId() == null) {
+            build(event.getKind());
+            return;
+        }
+        Long countryId = event.getCountryId();
+        LiveIndex<Trie> live = slots.get(Kind.CITY).live;
+        List<Consumer<Trie>> missed = live.watch();
+        List<Object[]> rows;
+        try {
+            rows = cityRepository.findSuggestionRowsByCountryId(countryId);
+        } catch (RuntimeException e) {
+            live.unwatch(missed);
+            throw e;
+        }
+        live.change(missed, trie -> trie.replaceCountry(countryId, rows));
+        logger.debug("♻️ City suggestions reloaded for country {}", countryId);
+    }
+
+    private void build(Kind kind) {
+        long buildGeneration = slots.get(kind).live.startBuild();
+        builder.execute(() -> rebuild(kind, buildGeneration));
+    }
+
+    private void rebuild(Kind kind, long buildGeneration) {
+        long started = System.currentTimeMillis();
+        Slot slot = slots.get(kind);
+        try {
+            slot.live.rebuild(buildGeneration, () -> load(kind)).ifPresent(fresh -> {
+                slot.names = fresh.builtNames;
+                slot.estimatedBytes = fresh.builtBytes;
+                logger.info("🔤 Suggestion index for {} built: {} names, ~{} bytes per name"
+                        + " in {} ms", kind, fresh.builtNames,
+                        fresh.builtNames == 0 ? 0 : fresh.builtBytes / fresh.builtNames,
+                        System.currentTimeMillis() - started);
+            });
+        } catch (RuntimeException e) {
+            logger.error("🚫 Suggestion index build for {} failed, suggestions use the database",
+                    kind, e);
+        }
+    }
+
+    private Trie load(Kind kind) {
+        Trie fresh = new Trie();
+        readOnly.executeWithoutResult(status -> {
+            switch (kind) {
+                case COUNTRY -> countryRepository.findAllSuggestionRows().forEach(row ->
+                        fresh.add((Long) row[0], (String) row[1], (Double) row[2], null));
+                case NATION -> nationRepository.findAllIdsAndNames().forEach(row ->
+                        fresh.add((Long) row[0], (String) row[1], null, null));
+                case CITY -> {
+                    try (Stream<Object[]> rows = cityRepository.streamSuggestionRows()) {
+                        rows.forEach(row -> fresh.add((Long) row[0], (String) row[1],
+                                (Double) row[2], (Long) row[3]));
+                    }
+                }
+            }
+        });
+        fresh.finishBuild();
+        return fresh;
+    }
+
+    private static final class Slot {
+        final LiveIndex<Trie> live = new LiveIndex<>(new Trie());
+        volatile int names;
+        volatile long estimatedBytes;
+    }
+
+    /**
+     * Radix trie keyed by lower-cased name. Arrays held by nodes are never modified once
+     * published except {@code children}, so a leaf shares its {@code terminals} as its
+     * {@code top}.
+     */
+    private static final class Trie {
+        final Node root = new Node(new char[0]);
+        final Map<Long, Suggestion> entries = new HashMap<>();
+        // Size when the bulk build finished, for the gauges
+        int builtNames;
+        long builtBytes;
+
+        /** Puts or replaces an entry; {@code null} name removes it, {@code null} population
+         *  keeps the current weight. */
+        void apply(Long id, String name, Double population, Long countryId) {
+            Suggestion current = entries.get(id);
+            if (current != null) {
+                remove(current);
+            }
+            if (name == null) {
+                return;
+            }
+            double weight = population != null ? population
+                    : current != null ? current.weight : 0;
+            insert(new Suggestion(id, name, weight, countryId), true);
+        }
+
+        void reweight(Long id, double population) {
+            Suggestion current = entries.get(id);
+            if (current != null && current.weight != population) {
+                remove(current);
+                insert(new Suggestion(current.id, current.name, population, current.countryId),
+                        true);
+            }
+        }
+
+        /** Bulk insert during a build, {@link #finishBuild} must follow. */
+        void add(Long id, String name, Double population, Long countryId) {
+            if (name != null) {
+                insert(new Suggestion(id, name, population != null ? population : 0,
+                        countryId), false);
+            }
+        }
+
+        void replaceCountry(Long countryId, List<Object[]> rows) {
+            entries.values().stream()
+                    .filter(suggestion -> countryId.equals(suggestion.countryId))
+                    .toList()
+                    .forEach(this::remove);
+            rows.forEach(row -> apply((Long) row[0], (String) row[1], (Double) row[2],
+                    countryId));
+        }
+
+        Suggestion[] top(String key) {
+            Node node = root;
+            int depth = 0;
+            while (depth < key.length()) {
+                int slot = node.find(key.charAt(depth));
+                if (slot < 0) {
+                    return Node.NONE;
+                }
+                Node child = node.children[slot];
+                int common = child.commonPrefix(key, depth);
+                if (depth + common == key.length()) {
+                    return child.top;
+                }
+                if (common < child.label.length) {
+                    return Node.NONE;
+                }
+                node = child;
+                depth += common;
+            }
+            return node.top;
+        }
+
+        void finishBuild() {
+            computeTops(root);
+            builtNames = entries.size();
+            builtBytes = estimateBytes();
+        }
+
+        long estimateBytes() {
+            long bytes = 0;
+            List<Node> stack = new ArrayList<>();
+            stack.add(root);
+            while (!stack.isEmpty()) {
+                Node node = stack.remove(stack.size() - 1);
+                bytes += 32 + align(16 + 2L * node.label.length)
+                        + arrayBytes(node.children.length) + arrayBytes(node.terminals.length);
+                if (node.top != node.terminals) {
+                    bytes += arrayBytes(node.top.length);
+                }
+                stack.addAll(Arrays.asList(node.children));
+            }
+            for (Suggestion suggestion : entries.values()) {
+                // entry object, its name, the boxed country id and the id map entry
+                bytes += 40 + 24 + align(16 + suggestion.name.length())
+                        + (suggestion.countryId != null ? 16 : 0) + 56;
+            }
+            return bytes;
+        }
+
+        private void insert(Suggestion suggestion, boolean maintainTops) {
+            entries.put(suggestion.id, suggestion);
+            String key = suggestion.key();
+            Node node = root;
+            int depth = 0;
+            if (maintainTops) {
+                node.offer(suggestion);
+            }
+            while (depth < key.length()) {
+                int slot = node.find(key.charAt(depth));
+                Node child;
+                if (slot < 0) {
+                    child = new Node(key.substring(depth).toCharArray());
+                    node.insertChild(-slot - 1, child);
+                } else {
+                    child = node.children[slot];
+                    int common = child.commonPrefix(key, depth);
+                    if (common < child.label.length) {
+                        child = node.split(slot, common);
+                    }
+                }
+                node = child;
+                depth += child.label.length;
+                if (maintainTops) {
+                    node.offer(suggestion);
+                }
+            }
+            node.terminals = maintainTops ? Node.insertSorted(node.terminals, suggestion,
+                    Integer.MAX_VALUE) : Node.append(node.terminals, suggestion);
+            if (maintainTops && node.children.length == 0
+                    && node.terminals.length <= MAX_SUGGESTIONS) {
+                node.top = node.terminals;
+            }
+        }
+
+        private void remove(Suggestion suggestion) {
+            entries.remove(suggestion.id);
+            String key = suggestion.key();
+            List<Node> path = new ArrayList<>();
+            Node node = root;
+            path.add(node);
+            int depth = 0;
+            while (depth < key.length()) {
+                node = node.children[node.find(key.charAt(depth))];
+                depth += node.label.length;
+                path.add(node);
+            }
+            node.terminals = Node.without(node.terminals, suggestion.id);
+            for (int i = path.size() - 1; i >= 0; i--) {
+                Node current = path.get(i);
+                if (i > 0 && current.terminals.length == 0 && current.children.length == 0) {
+                    path.get(i - 1).removeChild(current);
+                } else if (i > 0 && current.terminals.length == 0
+                        && current.children.length == 1) {
+                    current.absorbOnlyChild();
+                } else if (current.holds(suggestion.id)) {
+                    current.top = current.merge();
+                }
+            }
+        }
+
+        private static void computeTops(Node node) {
+            Arrays.sort(node.terminals, Suggestion.ORDER);
+            for (Node child : node.children) {
+                computeTops(child);
+            }
+            node.top = node.merge();
+        }
+
+        private static long arrayBytes(int length) {
+            return length == 0 ? 0 : align(16 + 4L * length);
+        }
+
+        private static long align(long bytes) {
+            return (bytes + 7) & ~7L;
+        }
+    }
+
+    private static final class Node {
+        static final Node[] NO_CHILDREN = new Node[0];
+        static final Suggestion[] NONE = new Suggestion[0];
+
+        char[] label;
+        Node[] children = NO_CHILDREN;
+        Suggestion[] terminals = NONE;
+        Suggestion[] top = NONE;
+
+        Node(char[] label) {
+            this.label = label;
+        }
+
+        /** Index of the child whose label starts with {@code c}, or
+         *  {@code -(insertion point) - 1}. */
+        int find(char c) {
+            int low = 0;
+            int high = children.length - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                char first = children[mid].label[0];
+                if (first < c) {
+                    low = mid + 1;
+                } else if (first > c) {
+                    high = mid - 1;
+                } else {
+                    return mid;
+                }
+            }
+            return -low - 1;
+        }
+
+        int commonPrefix(String key, int from) {
+            int length = Math.min(label.length, key.length() - from);
+            int i = 0;
+            while (i < length && label[i] == key.charAt(from + i)) {
+                i++;
+            }
+            return i;
+        }
+
+        void insertChild(int position, Node child) {
+            Node[] grown = new Node[children.length + 1];
+            System.arraycopy(children, 0, grown, 0, position);
+            grown[position] = child;
+            System.arraycopy(children, position, grown, position + 1,
+                    children.length - position);
+            children = grown;
+        }
+
+        void removeChild(Node child) {
+            int position = find(child.label[0]);
+            Node[] shrunk = new Node[children.length - 1];
+            System.arraycopy(children, 0, shrunk, 0, position);
+            System.arraycopy(children, position + 1, shrunk, position,
+                    children.length - position - 1);
+            children = shrunk.length == 0 ? NO_CHILDREN : shrunk;
+        }
+
+        /** Splits the edge to {@code children[slot]} after {@code length} chars. */
+        Node split(int slot, int length) {
+            Node child = children[slot];
+            Node middle = new Node(Arrays.copyOf(child.label, length));
+            child.label = Arrays.copyOfRange(child.label, length, child.label.length);
+            middle.children = new Node[] {child};
+            middle.top = child.top;
+            children[slot] = middle;
+            return middle;
+        }
+
+        /** Merges a node without own entries into its single child. */
+        void absorbOnlyChild() {
+            Node child = children[0];
+            char[] merged = Arrays.copyOf(label, label.length + child.label.length);
+            System.arraycopy(child.label, 0, merged, label.length, child.label.length);
+            label = merged;
+            children = child.children;
+            terminals = child.terminals;
+            top = child.top;
+        }
+
+        void offer(Suggestion suggestion) {
+            if (top.length < MAX_SUGGESTIONS
+                    || Suggestion.ORDER.compare(suggestion, top[top.length - 1]) < 0) {
+                top = insertSorted(top, suggestion, MAX_SUGGESTIONS);
+            }
+        }
+
+        boolean holds(long id) {
+            for (Suggestion suggestion : top) {
+                if (suggestion.id == id) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /** Best entries of the subtree from the node's own entries and its children's tops. */
+        Suggestion[] merge() {
+            if (children.length == 0 && terminals.length <= MAX_SUGGESTIONS) {
+                return terminals;
+            }
+            List<Suggestion> candidates = new ArrayList<>(Arrays.asList(terminals));
+            for (Node child : children) {
+                candidates.addAll(Arrays.asList(child.top));
+            }
+            return candidates.stream()
+                    .sorted(Suggestion.ORDER)
+                    .limit(MAX_SUGGESTIONS)
+                    .toArray(Suggestion[]::new);
+        }
+
+        static Suggestion[] insertSorted(Suggestion[] sorted, Suggestion suggestion, int cap) {
+            int position = Arrays.binarySearch(sorted, suggestion, Suggestion.ORDER);
+            position = position < 0 ? -position - 1 : position;
+            Suggestion[] result = new Suggestion[Math.min(sorted.length + 1, cap)];
+            System.arraycopy(sorted, 0, result, 0, Math.min(position, result.length));
+            if (position < result.length) {
+                result[position] = suggestion;
+                System.arraycopy(sorted, position, result, position + 1,
+                        result.length - position - 1);
+            }
+            return result;
+        }
+
+        static Suggestion[] append(Suggestion[] array, Suggestion suggestion) {
+            Suggestion[] result = Arrays.copyOf(array, array.length + 1);
+            result[array.length] = suggestion;
+            return result;
+        }
+
+        static Suggestion[] without(Suggestion[] array, long id) {
+            Suggestion[] result = Arrays.stream(array)
+                    .filter(suggestion -> suggestion.id != id)
+                    .toArray(Suggestion[]::new);
+            return result.length == 0 ? NONE : result;
+        }
+    }
+
+    private static final class Suggestion {
+        static final Comparator<Suggestion> ORDER = Comparator
+                .<Suggestion>comparingDouble(suggestion -> -suggestion.weight)
+                .thenComparing(suggestion -> suggestion.name, String.CASE_INSENSITIVE_ORDER)
+                .thenComparingLong(suggestion -> suggestion.id);
+
+        final long id;
+        final String name;
+        final double weight;
+        final Long countryId;
+
+        Suggestion(long id, String name, double weight, Long countryId) {
+            this.id = id;
+            this.name = name;
+            this.weight = weight;
+            this.countryId = countryId;
+        }
+
+        String key() {
+            return name.toLowerCase(Locale.ROOT);
+        }
+
+        SuggestionDto toDto(Kind kind) {
+            return SuggestionDto.of(kind, id, name, countryId,
+                    kind == Kind.NATION ? null : weight);
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package org.example.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.example.cache.BatchLoader;
+import org.example.dto.CityDto;
+import org.example.dto.CountryDto;
+import org.example.model.Country;
+import org.example.repository.CityRepository;
+import org.example.repository.CountryRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * By-id loaders shared by all requests. Each batch runs in its own read-only transaction,
+ * so callers do not hold a connection while they wait for the window to close.
+ */
+@Configuration
+public class BatchLoaderConfig {
+
+    @Value("${app.batch-loader.window-micros:1000}")
+    private long windowMicros;
+
+    @Value("${app.batch-loader.max-batch-size:100}")
+    private int maxBatchSize;
+
+    @Value("${app.batch-loader.dispatch-threads:2}")
+    private int dispatchThreads;
+
+    @Bean
+    public BatchLoader<Long, CountryDto> countryByIdLoader(
+            CountryRepository countryRepository, PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry) {
+        TransactionTemplate readOnly = readOnlyTemplate(transactionManager);
+        return new BatchLoader<>("countryById", ids -> readOnly.execute(status ->
+                countryRepository.findAllById(ids).stream()
+                        .collect(Collectors.toMap(Country::getId, CountryDto::fromEntity))),
+                windowMicros, maxBatchSize, dispatchThreads, meterRegistry);
+    }
+
+    @Bean
+    public BatchLoader<Long, Set<CityDto>> citiesByCountryIdLoader(
+            CountryRepository countryRepository, CityRepository cityRepository,
+            PlatformTransactionManager transactionManager, MeterRegistry meterRegistry) {
+        TransactionTemplate readOnly = readOnlyTemplate(transactionManager);
+        // One query on city.country_id instead of fetching every Country.cities collection.
+        return new BatchLoader<>("citiesByCountryId", ids -> readOnly.execute(status -> {
+            Map<Long, Set<CityDto>> cities = new HashMap<>();
+            countryRepository.findAllById(ids)
+                    .forEach(country -> cities.put(country.getId(), new HashSet<>()));
+            cityRepository.findAllByCountryIdIn(ids).forEach(city ->
+                    cities.get(city.getCountry().getId()).add(CityDto.fromEntity(city)));
+            return cities;
+        }), windowMicros, maxBatchSize, dispatchThreads, meterRegistry);
+    }
+
+    private static TransactionTemplate readOnlyTemplate(
+            PlatformTransactionManager transactionManager) {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setReadOnly(true);
+        template.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        return template;
+    }
+}
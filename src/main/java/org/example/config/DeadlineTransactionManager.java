@@ -0,0 +1,31 @@
+package org.example.config;
+
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionTimedOutException;
+
+/**
+ * Caps every transaction started while serving a request by the time left in its
+ * {@link RequestDeadline}. Spring passes the transaction timeout on as the JPA query timeout
+ * and as the JDBC statement timeout of {@code JdbcTemplate} calls, so the driver cancels a
+ * statement that outlives the request budget and its connection goes back to the pool.
+ */
+public class DeadlineTransactionManager extends JpaTransactionManager {
+
+    @Override
+    protected int determineTimeout(TransactionDefinition definition) {
+        int timeout = super.determineTimeout(definition);
+        RequestDeadline deadline = RequestDeadline.current();
+        if (deadline == null) {
+            return timeout;
+        }
+        long remaining = deadline.remainingMillis();
+        if (remaining <= 0) {
+            throw new TransactionTimedOutException("Request deadline exceeded before the"
+                    + " transaction started");
+        }
+        int remainingSeconds = (int) Math.max(1, (remaining + 999) / 1000);
+        return timeout == TransactionDefinition.TIMEOUT_DEFAULT
+                ? remainingSeconds : Math.min(timeout, remainingSeconds);
+    }
+}
@@ -0,0 +1,51 @@
+package org.example.config;
+
+import java.nio.file.Path;
+import org.example.dto.ImportReportDto;
+import org.example.service.GazetteerLoadService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.stereotype.Component;
+
+/**
+ * Loader command: started with {@code --app.gazetteer.file=<path>} (usually together with
+ * {@code --spring.main.web-application-type=none}), the application loads the file and
+ * exits instead of serving requests. Exits with 1 when the load fails.
+ */
+@Component
+@ConditionalOnProperty(name = "app.gazetteer.file")
+public class GazetteerLoaderRunner implements ApplicationRunner {
+    private static final Logger logger = LoggerFactory.getLogger(GazetteerLoaderRunner.class);
+
+    private final GazetteerLoadService loadService;
+    private final GazetteerProperties properties;
+    private final ConfigurableApplicationContext context;
+
+    public GazetteerLoaderRunner(GazetteerLoadService loadService,
+                                 GazetteerProperties properties,
+                                 ConfigurableApplicationContext context) {
+        this.loadService = loadService;
+        this.properties = properties;
+        this.context = context;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        int exitCode = 0;
+        try {
+            ImportReportDto report = loadService.load(Path.of(properties.getFile()));
+            report.getErrors().forEach(error ->
+                    logger.warn("⚠️ Line {}: {}", error.getLine(), error.getMessage()));
+        } catch (Exception e) {
+            logger.error("🚫 Gazetteer load of {} failed", properties.getFile(), e);
+            exitCode = 1;
+        }
+        int code = exitCode;
+        System.exit(SpringApplication.exit(context, () -> code));
+    }
+}
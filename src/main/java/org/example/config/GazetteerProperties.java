@@ -0,0 +1,32 @@
+package org.example.config;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Settings of the offline gazetteer loader ({@link GazetteerLoaderRunner}). Columns are
+ * zero-based indexes into the tab-separated line; the defaults match the GeoNames
+ * {@code cities*.txt} dumps, whose country column holds ISO 3166-1 alpha-2 codes. The
+ * country column matches a stored country name or an ISO code whose English name is stored
+ * (FR for France), so {@code countryAliases} is optional: it maps further values of the
+ * column to stored country names and overrides the ISO codes. A negative column index means
+ * the column is absent.
+ */
+@Data
+@Component
+@ConfigurationProperties("app.gazetteer")
+public class GazetteerProperties {
+    private String file;
+    private String checkpoint;
+    private int nameColumn = 1;
+    private int countryColumn = 8;
+    private int populationColumn = 14;
+    private int areaColumn = -1;
+    private int chunkMegabytes = 32;
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private int batchSize = 5000;
+    private Map<String, String> countryAliases = new LinkedHashMap<>();
+}
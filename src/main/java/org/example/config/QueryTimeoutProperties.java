@@ -0,0 +1,20 @@
+package org.example.config;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Query time budgets per request. {@code endpoints} maps Ant-style path patterns to a budget
+ * in milliseconds; the first matching pattern wins, otherwise {@code defaultMillis} applies.
+ * A client may lower the budget with the {@code X-Request-Timeout} header (milliseconds).
+ */
+@Data
+@Component
+@ConfigurationProperties("app.query-timeout")
+public class QueryTimeoutProperties {
+    private long defaultMillis = 30_000;
+    private Map<String, Long> endpoints = new LinkedHashMap<>();
+}
@@ -0,0 +1,65 @@
+package org.example.config;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Map;
+import javax.sql.DataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Sends connections of read-only transactions to the replica pool and everything else to
+ * the primary. If the replica cannot hand out a connection, read-only work falls back to
+ * the primary and the replica is skipped for {@link #REPLICA_RETRY_MILLIS}.
+ *
+ * <p>Must be wrapped in a {@code LazyConnectionDataSourceProxy}: the read-only flag of a
+ * transaction is only visible once the transaction has started, after the JPA transaction
+ * manager has already asked for a connection.
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+    private static final Logger logger = LoggerFactory.getLogger(ReadWriteRoutingDataSource.class);
+    private static final long REPLICA_RETRY_MILLIS = 30_000;
+
+    enum Route { PRIMARY, REPLICA }
+
+    private final DataSource primary;
+    private final DataSource replica;
+    private volatile long replicaDownUntil;
+
+    public ReadWriteRoutingDataSource(DataSource primary, DataSource replica) {
+        this.primary = primary;
+        this.replica = replica;
+        setTargetDataSources(Map.of(Route.PRIMARY, primary, Route.REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        boolean readOnly = TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+        return readOnly && System.currentTimeMillis() >= replicaDownUntil
+                ? Route.REPLICA : Route.PRIMARY;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (determineTargetDataSource() != replica) {
+            return primary.getConnection();
+        }
+        try {
+            return replica.getConnection();
+        } catch (SQLException e) {
+            replicaDownUntil = System.currentTimeMillis() + REPLICA_RETRY_MILLIS;
+            logger.warn("Replica unavailable, routing reads to primary for {} ms: {}",
+                    REPLICA_RETRY_MILLIS, e.getMessage());
+            return primary.getConnection();
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return getConnection();
+    }
+}
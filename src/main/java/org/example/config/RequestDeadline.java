@@ -0,0 +1,45 @@
+package org.example.config;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time budget of the request being served on the current thread, set by
+ * {@link RequestDeadlineFilter}. Threads that do not serve a request (batch loaders, the city
+ * ingest writer, streaming exports) have no deadline.
+ */
+public final class RequestDeadline {
+    public static final String SOURCE_HEADER = "header";
+    public static final String SOURCE_ENDPOINT = "endpoint";
+    public static final String SOURCE_DEFAULT = "default";
+
+    private static final ThreadLocal<RequestDeadline> CURRENT = new ThreadLocal<>();
+
+    private final long deadlineNanos;
+    private final String source;
+
+    private RequestDeadline(long deadlineNanos, String source) {
+        this.deadlineNanos = deadlineNanos;
+        this.source = source;
+    }
+
+    static void start(long budgetMillis, String source) {
+        CURRENT.set(new RequestDeadline(System.nanoTime()
+                + TimeUnit.MILLISECONDS.toNanos(budgetMillis), source));
+    }
+
+    static void clear() {
+        CURRENT.remove();
+    }
+
+    public static RequestDeadline current() {
+        return CURRENT.get();
+    }
+
+    public long remainingMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(deadlineNanos - System.nanoTime());
+    }
+
+    public String getSource() {
+        return source;
+    }
+}
@@ -0,0 +1,69 @@
+package org.example.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Map;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * Starts the {@link RequestDeadline} of each request from the endpoint budget in
+ * {@link QueryTimeoutProperties}, lowered by the client's {@code X-Request-Timeout} header
+ * when it asks for less. {@link DeadlineTransactionManager} turns the remaining time into
+ * transaction and statement timeouts.
+ */
+@Component
+public class RequestDeadlineFilter extends OncePerRequestFilter {
+    public static final String TIMEOUT_HEADER = "X-Request-Timeout";
+
+    private final QueryTimeoutProperties properties;
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+
+    public RequestDeadlineFilter(QueryTimeoutProperties properties) {
+        this.properties = properties;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        long budget = properties.getDefaultMillis();
+        String source = RequestDeadline.SOURCE_DEFAULT;
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        for (Map.Entry<String, Long> endpoint : properties.getEndpoints().entrySet()) {
+            if (pathMatcher.match(endpoint.getKey(), path)) {
+                budget = endpoint.getValue();
+                source = RequestDeadline.SOURCE_ENDPOINT;
+                break;
+            }
+        }
+        Long requested = parseTimeout(request.getHeader(TIMEOUT_HEADER));
+        if (requested != null && requested < budget) {
+            budget = requested;
+            source = RequestDeadline.SOURCE_HEADER;
+        }
+
+        RequestDeadline.start(budget, source);
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            RequestDeadline.clear();
+        }
+    }
+
+    private static Long parseTimeout(String header) {
+        if (header == null || header.isBlank()) {
+            return null;
+        }
+        try {
+            long millis = Long.parseLong(header.trim());
+            return millis > 0 ? millis : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package org.example.config;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.transaction.TransactionManagerCustomizers;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionManager;
+
+/**
+ * Replaces Spring Boot's {@code JpaTransactionManager} with {@link DeadlineTransactionManager};
+ * everything else (entity manager factory lookup, customizers) is configured the same way. The
+ * cast picks the {@link TransactionManager} overload of {@code customize}; the
+ * {@link PlatformTransactionManager} one is deprecated.
+ */
+@Configuration
+public class TransactionConfig {
+
+    @Bean
+    public PlatformTransactionManager transactionManager(
+            ObjectProvider<TransactionManagerCustomizers> transactionManagerCustomizers) {
+        DeadlineTransactionManager transactionManager = new DeadlineTransactionManager();
+        transactionManagerCustomizers.ifAvailable(customizers ->
+                customizers.customize((TransactionManager) transactionManager));
+        return transactionManager;
+    }
+}
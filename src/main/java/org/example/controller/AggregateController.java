@@ -0,0 +1,95 @@
+package org.example.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import java.util.List;
+import lombok.AllArgsConstructor;
+import org.example.dto.AggregateTotalsDto;
+import org.example.dto.CountryAggregateDto;
+import org.example.dto.NationAggregateDto;
+import org.example.service.AggregateService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@AllArgsConstructor
+@RequestMapping("/api/aggregates")
+@Tag(name = "Aggregates", description = "Population, area and GDP roll-ups")
+public class AggregateController {
+    private final AggregateService aggregateService;
+
+    @GetMapping
+    @Operation(summary = "Get totals",
+            description = "Totals over all countries and their cities, kept up to date on writes")
+    @ApiResponses({@ApiResponse(responseCode = "200", description = "Totals retrieved",
+                    content = @Content(schema = @Schema(
+                            implementation = AggregateTotalsDto.class))),
+                   @ApiResponse(responseCode = "503", description = "Aggregates are being built")
+    })
+    public ResponseEntity<AggregateTotalsDto> getTotals() {
+        return ResponseEntity.ok(aggregateService.getTotals());
+    }
+
+    @GetMapping("/countries")
+    @Operation(summary = "Get country figures",
+            description = "Population, urban population, density and GDP per capita per country")
+    @ApiResponses({@ApiResponse(responseCode = "200", description = "Figures retrieved",
+                    content = @Content(schema = @Schema(
+                            implementation = CountryAggregateDto.class))),
+                   @ApiResponse(responseCode = "503", description = "Aggregates are being built")
+    })
+    public ResponseEntity<List<CountryAggregateDto>> getCountryAggregates(
+            @RequestParam(required = false) @Parameter(description = "Comma-separated country"
+                    + " IDs, all countries when omitted", example = "1,2,3") List<Long> ids) {
+        return ResponseEntity.ok(aggregateService.getCountryAggregates(ids));
+    }
+
+    @GetMapping("/countries/{countryId}")
+    @Operation(summary = "Get figures of a country")
+    @ApiResponses({@ApiResponse(responseCode = "200", description = "Figures retrieved",
+                    content = @Content(schema = @Schema(
+                            implementation = CountryAggregateDto.class))),
+                   @ApiResponse(responseCode = "404", description = "Country not found"),
+                   @ApiResponse(responseCode = "503", description = "Aggregates are being built")
+    })
+    public ResponseEntity<CountryAggregateDto> getCountryAggregate(
+            @PathVariable @Parameter(description = "ID of the country",
+                    example = "1") Long countryId) {
+        return ResponseEntity.ok(aggregateService.getCountryAggregate(countryId));
+    }
+
+    @GetMapping("/nations")
+    @Operation(summary = "Get nation group figures",
+            description = "Summed population and GDP and GDP per capita of the countries"
+                    + " each nation is linked to")
+    @ApiResponses({@ApiResponse(responseCode = "200", description = "Figures retrieved",
+                    content = @Content(schema = @Schema(
+                            implementation = NationAggregateDto.class))),
+                   @ApiResponse(responseCode = "503", description = "Aggregates are being built")
+    })
+    public ResponseEntity<List<NationAggregateDto>> getNationAggregates() {
+        return ResponseEntity.ok(aggregateService.getNationAggregates());
+    }
+
+    @PostMapping("/rebuild")
+    @Operation(summary = "Rebuild aggregates",
+            description = "Recomputes all counters from the database to repair drift")
+    @ApiResponses({@ApiResponse(responseCode = "200", description = "Counters rebuilt",
+                    content = @Content(schema = @Schema(
+                            implementation = AggregateTotalsDto.class))),
+                   @ApiResponse(responseCode = "503", description = "Rebuild failed")
+    })
+    public ResponseEntity<AggregateTotalsDto> rebuild() {
+        return ResponseEntity.ok(aggregateService.rebuild());
+    }
+}
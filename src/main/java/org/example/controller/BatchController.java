@@ -0,0 +1,55 @@
+package org.example.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import java.util.List;
+import lombok.AllArgsConstructor;
+import org.example.dto.BatchOperationDto;
+import org.example.dto.BatchReportDto;
+import org.example.service.BatchService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@AllArgsConstructor
+@RestController
+@RequestMapping("/api")
+@Tag(name = "Batch", description = "API for applying many country, city and nation"
+        + " changes in one transaction")
+@CrossOrigin
+public class BatchController {
+
+    private final BatchService batchService;
+
+    @PostMapping("/batch")
+    @Operation(summary = "Apply a batch of operations",
+            description = "Apply an ordered list of create, update and delete operations on"
+                    + " countries, cities and nations in one transaction and return a result"
+                    + " per operation")
+    @ApiResponses({@ApiResponse(responseCode = "200",
+            description = "Batch committed, failed operations are reported per entry",
+                    content = @Content(schema = @Schema(implementation = BatchReportDto.class))),
+                   @ApiResponse(responseCode = "400", description = "Empty or oversized batch"),
+                   @ApiResponse(responseCode = "409",
+                           description = "Atomic batch rolled back because an operation failed",
+                    content = @Content(schema = @Schema(implementation = BatchReportDto.class)))
+    })
+    public ResponseEntity<BatchReportDto> applyBatch(
+            @RequestParam(defaultValue = "false") @Parameter(description = "Roll the whole"
+                    + " batch back when any operation fails", example = "true") boolean atomic,
+            @RequestBody List<BatchOperationDto> operations) {
+        BatchReportDto report = batchService.execute(operations, atomic);
+        return ResponseEntity.status(report.isCommitted() ? HttpStatus.OK : HttpStatus.CONFLICT)
+                .body(report);
+    }
+}
@@ -7,18 +7,27 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import java.io.InputStream;
 import java.util.List;
 import java.util.Set;
 import lombok.AllArgsConstructor;
 import org.example.dto.CityDto;
+import org.example.dto.DeleteResultDto;
+import org.example.dto.ImportReportDto;
 import org.example.exception.ObjectNotFoundException;
 import org.example.model.City;
+import org.example.service.CityIngestService;
 import org.example.service.CityService;
+import org.example.service.ExportService;
+import org.example.service.ImportService;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
@@ -26,6 +35,7 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @AllArgsConstructor
 @RestController
@@ -36,6 +46,12 @@ import org.springframework.web.bind.annotation.RestController;
 public class CityController {
 
     private final CityService cityService;
+    private final ImportService importService;
+    private final CityIngestService cityIngestService;
+    private final ExportService exportService;
+
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+    private static final MediaType CSV = MediaType.parseMediaType("text/csv");
 
     @GetMapping("/cities")
     @Operation(summary = "Get all cities", description = "Retrieve a list of all cities")
@@ -45,10 +61,41 @@ public class CityController {
                    @ApiResponse(responseCode = "204", description = "No cities found")
     })
     public ResponseEntity<List<CityDto>> getCities() {
-        List<City> cities = cityService.getCities();
-        List<CityDto> cityDtos = cities.stream().map(CityDto::fromEntity).toList();
-        return cityDtos.isEmpty() ? ResponseEntity.noContent().build()
-                : ResponseEntity.ok(cityDtos);
+        List<CityDto> cities = cityService.getCities();
+        return cities.isEmpty() ? ResponseEntity.noContent().build()
+                : ResponseEntity.ok(cities);
+    }
+
+    @GetMapping(value = "/cities", params = "ids")
+    @Operation(summary = "Get cities by IDs",
+            description = "Retrieve several cities in one request, in the order of the ids")
+    @ApiResponses({@ApiResponse(responseCode = "200",
+            description = "Cities retrieved successfully",
+                    content = @Content(schema = @Schema(implementation = CityDto.class))),
+                   @ApiResponse(responseCode = "400", description = "Too many ids")
+    })
+    public ResponseEntity<List<CityDto>> getCitiesByIds(
+            @RequestParam @Parameter(description = "Comma-separated city IDs",
+                    example = "1,2,3") List<Long> ids) {
+        return ResponseEntity.ok(cityService.getCitiesByIds(ids));
+    }
+
+    @GetMapping("/cities/export")
+    @Operation(summary = "Export cities",
+            description = "Stream all cities as NDJSON or CSV without loading them into memory")
+    @ApiResponses({@ApiResponse(responseCode = "200", description = "Export stream"),
+                   @ApiResponse(responseCode = "400", description = "Unsupported format")
+    })
+    public ResponseEntity<StreamingResponseBody> exportCities(
+            @RequestParam(defaultValue = ExportService.FORMAT_NDJSON) @Parameter(
+                    description = "Output format: ndjson or csv", example = "csv") String format) {
+        ExportService.checkFormat(format);
+        boolean csv = ExportService.FORMAT_CSV.equalsIgnoreCase(format);
+        return ResponseEntity.ok()
+                .contentType(csv ? CSV : NDJSON)
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=cities." + (csv ? "csv" : "ndjson"))
+                .body(out -> exportService.exportCities(format, out));
     }
 
     @GetMapping("/countries/{countryId}/cities")
@@ -72,30 +119,93 @@ public class CityController {
     @Operation(summary = "Add cities to a country",
             description = "Add one or more cities to a specific country")
     @ApiResponses({@ApiResponse(responseCode = "201", description = "Cities created successfully",
-                    content = @Content(schema = @Schema(implementation = City.class))),
+                    content = @Content(schema = @Schema(implementation = CityDto.class))),
                    @ApiResponse(responseCode = "400", description = "Invalid city data"),
                    @ApiResponse(responseCode = "404", description = "Country not found")
     })
-    public ResponseEntity<List<City>> addCitiesByCountryId(
+    public ResponseEntity<List<CityDto>> addCitiesByCountryId(
             @PathVariable @Parameter(description = "ID of the country to add the cities to",
                     example = "1") Long countryId,
             @RequestBody @Parameter(
                     description = "Single city object or list of city objects to add",
                     required = true) List<City> cities) {
-        List<City> addedCities = cityService.addNewCitiesByCountryId(countryId, cities);
+        List<CityDto> addedCities = cityService.addNewCitiesByCountryId(countryId, cities);
         return ResponseEntity.status(HttpStatus.CREATED).body(addedCities);
     }
 
+    @PostMapping(value = "/countries/{countryId}/cities", params = "async=true")
+    @Operation(summary = "Queue cities for a country",
+            description = "Validate the cities, reserve their ids and queue them; they are"
+                    + " committed in groups shortly after the response")
+    @ApiResponses({@ApiResponse(responseCode = "202", description = "Cities accepted",
+                    content = @Content(schema = @Schema(implementation = CityDto.class))),
+                   @ApiResponse(responseCode = "400", description = "Invalid city data"),
+                   @ApiResponse(responseCode = "404", description = "Country not found"),
+                   @ApiResponse(responseCode = "409", description = "City already exists"),
+                   @ApiResponse(responseCode = "429", description = "Ingest queue is full")
+    })
+    public ResponseEntity<List<CityDto>> queueCitiesByCountryId(
+            @PathVariable @Parameter(description = "ID of the country to add the cities to",
+                    example = "1") Long countryId,
+            @RequestBody @Parameter(
+                    description = "Single city object or list of city objects to add",
+                    required = true) List<City> cities) {
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .body(cityIngestService.enqueue(countryId, cities));
+    }
+
+    @PostMapping("/cities/import")
+    @Operation(summary = "Stream-import cities",
+            description = "Import cities from an NDJSON or CSV body (columns name, population,"
+                    + " areaSquareKm, countryId). Rows are written in chunks with COPY")
+    @ApiResponses({@ApiResponse(responseCode = "200", description = "Import finished",
+                    content = @Content(schema = @Schema(implementation = ImportReportDto.class))),
+                   @ApiResponse(responseCode = "400", description = "Unsupported format")
+    })
+    public ResponseEntity<ImportReportDto> importCities(
+            @RequestParam(defaultValue = ImportService.FORMAT_NDJSON) @Parameter(
+                    description = "Body format: ndjson or csv", example = "ndjson") String format,
+            InputStream body) {
+        return ResponseEntity.ok(importService.importCities(body, format));
+    }
+
     @PutMapping("/cities/{id}")
     @Operation(summary = "Update a city", description = "Update details of a city by its ID")
     @ApiResponses({@ApiResponse(responseCode = "200", description = "City updated successfully",
-                    content = @Content(schema = @Schema(implementation = City.class))),
+                    content = @Content(schema = @Schema(implementation = CityDto.class))),
                    @ApiResponse(responseCode = "400", description = "Invalid update parameters"),
                    @ApiResponse(responseCode = "404", description = "City or country not found")
     })
-    public ResponseEntity<City> updateCity(
+    public ResponseEntity<CityDto> updateCity(
+            @PathVariable("id") @Parameter(description = "ID of the city to update",
+                    example = "1") Long cityId,
+            @RequestParam(required = false) @Parameter(
+                    description = "Name of the city", example = "Minsk") String name,
+            @RequestParam(required = false) @Parameter(
+                    description = "Population of the city", example = "2000000") Double population,
+            @RequestParam(required = false) @Parameter(
+                    description = "Area in square kilometers",
+                    example = "409.5") Double areaSquareKm) {
+        validateCityUpdate(name, population, areaSquareKm);
+        return ResponseEntity.ok(cityService.updateCity(cityId, name, population, areaSquareKm));
+    }
+
+    @PatchMapping("/cities/{id}")
+    @Operation(summary = "Partially update a city",
+            description = "Update the given fields in one conditional statement if the version"
+                    + " still matches")
+    @ApiResponses({@ApiResponse(responseCode = "200", description = "City updated successfully",
+                    content = @Content(schema = @Schema(implementation = CityDto.class))),
+                   @ApiResponse(responseCode = "400", description = "Invalid update parameters"),
+                   @ApiResponse(responseCode = "404", description = "City not found"),
+                   @ApiResponse(responseCode = "409",
+                           description = "Stale version or city name already exists")
+    })
+    public ResponseEntity<CityDto> patchCity(
             @PathVariable("id") @Parameter(description = "ID of the city to update",
                     example = "1") Long cityId,
+            @RequestParam @Parameter(description = "Version the client last read; a newer"
+                    + " stored version fails with 409", example = "0") Long version,
             @RequestParam(required = false) @Parameter(
                     description = "Name of the city", example = "Minsk") String name,
             @RequestParam(required = false) @Parameter(
@@ -103,6 +213,12 @@ public class CityController {
             @RequestParam(required = false) @Parameter(
                     description = "Area in square kilometers",
                     example = "409.5") Double areaSquareKm) {
+        validateCityUpdate(name, population, areaSquareKm);
+        return ResponseEntity.ok(cityService.patchCity(cityId, version, name, population,
+                areaSquareKm));
+    }
+
+    private void validateCityUpdate(String name, Double population, Double areaSquareKm) {
         if (name != null && !isValidName(name)) {
             throw new IllegalArgumentException("Invalid city name");
         }
@@ -114,7 +230,6 @@ public class CityController {
                 || Double.isInfinite(areaSquareKm))) {
             throw new IllegalArgumentException("Invalid area value");
         }
-        return ResponseEntity.ok(cityService.updateCity(cityId, name, population, areaSquareKm));
     }
 
     private boolean isValidName(String name) {
@@ -124,14 +239,14 @@ public class CityController {
     @DeleteMapping("/countries/{countryId}/cities")
     @Operation(summary = "Delete all cities in a country",
             description = "Delete all cities associated with a specific country")
-    @ApiResponses({@ApiResponse(responseCode = "204", description = "Cities deleted successfully"),
+    @ApiResponses({@ApiResponse(responseCode = "200", description = "Cities deleted successfully",
+                    content = @Content(schema = @Schema(implementation = DeleteResultDto.class))),
                    @ApiResponse(responseCode = "404", description = "Country not found")
     })
-    public ResponseEntity<Void> deleteCitiesByCountryId(
+    public ResponseEntity<DeleteResultDto> deleteCitiesByCountryId(
             @PathVariable @Parameter(description = "ID of the country to delete cities from",
                     example = "1") Long countryId) {
-        cityService.deleteCitiesByCountryId(countryId);
-        return ResponseEntity.noContent().build();
+        return ResponseEntity.ok(cityService.deleteCitiesByCountryId(countryId));
     }
 
     @DeleteMapping("/cities/{cityId}")
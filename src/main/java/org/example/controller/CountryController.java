@@ -7,15 +7,25 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import java.io.InputStream;
 import java.util.List;
 import lombok.AllArgsConstructor;
+import org.example.dto.CountryDto;
+import org.example.dto.DeleteResultDto;
+import org.example.dto.ImportReportDto;
 import org.example.model.Country;
 import org.example.service.CountryService;
+import org.example.service.ExpansionService;
+import org.example.service.ExportService;
+import org.example.service.ImportService;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
@@ -23,6 +33,7 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @AllArgsConstructor
 @RestController
@@ -33,42 +44,89 @@ import org.springframework.web.bind.annotation.RestController;
 public class CountryController {
 
     private final CountryService countryService;
+    private final ImportService importService;
+    private final ExportService exportService;
+    private final ExpansionService expansionService;
+
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+    private static final MediaType CSV = MediaType.parseMediaType("text/csv");
 
     @GetMapping
     @Operation(summary = "Get all countries", description = "Retrieve a list of all countries")
     @ApiResponses({@ApiResponse(responseCode = "200",
             description = "List of countries retrieved successfully",
-                    content = @Content(schema = @Schema(implementation = Country.class))),
+                    content = @Content(schema = @Schema(implementation = CountryDto.class))),
                    @ApiResponse(responseCode = "204", description = "No countries found")
     })
-    public ResponseEntity<List<Country>> getCountries() {
-        List<Country> countries = countryService.getCountries();
+    public ResponseEntity<List<CountryDto>> getCountries(
+            @RequestParam(required = false) @Parameter(description = "Relations to embed:"
+                    + " cities, nations", example = "cities,nations") String include) {
+        List<CountryDto> countries = expansionService.expandCountries(
+                countryService.getCountries(), include);
         return countries.isEmpty()
                 ? ResponseEntity.noContent().build()
                 : ResponseEntity.ok(countries);
     }
 
+    @GetMapping(params = "ids")
+    @Operation(summary = "Get countries by IDs",
+            description = "Retrieve several countries in one request, in the order of the ids")
+    @ApiResponses({@ApiResponse(responseCode = "200",
+            description = "Countries retrieved successfully",
+                    content = @Content(schema = @Schema(implementation = CountryDto.class))),
+                   @ApiResponse(responseCode = "400", description = "Too many ids")
+    })
+    public ResponseEntity<List<CountryDto>> getCountriesByIds(
+            @RequestParam @Parameter(description = "Comma-separated country IDs",
+                    example = "1,2,3") List<Long> ids,
+            @RequestParam(required = false) @Parameter(description = "Relations to embed:"
+                    + " cities, nations", example = "cities,nations") String include) {
+        return ResponseEntity.ok(expansionService.expandCountries(
+                countryService.getCountriesByIds(ids), include));
+    }
+
+    @GetMapping("/export")
+    @Operation(summary = "Export countries",
+            description = "Stream all countries as NDJSON or CSV without loading them into memory")
+    @ApiResponses({@ApiResponse(responseCode = "200", description = "Export stream"),
+                   @ApiResponse(responseCode = "400", description = "Unsupported format")
+    })
+    public ResponseEntity<StreamingResponseBody> exportCountries(
+            @RequestParam(defaultValue = ExportService.FORMAT_NDJSON) @Parameter(
+                    description = "Output format: ndjson or csv", example = "csv") String format) {
+        ExportService.checkFormat(format);
+        boolean csv = ExportService.FORMAT_CSV.equalsIgnoreCase(format);
+        return ResponseEntity.ok()
+                .contentType(csv ? CSV : NDJSON)
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=countries." + (csv ? "csv" : "ndjson"))
+                .body(out -> exportService.exportCountries(format, out));
+    }
+
     @GetMapping("/{id}")
     @Operation(summary = "Get country by ID", description = "Retrieve a country by its unique ID")
     @ApiResponses({@ApiResponse(responseCode = "200",
             description = "Country retrieved successfully",
-                    content = @Content(schema = @Schema(implementation = Country.class))),
+                    content = @Content(schema = @Schema(implementation = CountryDto.class))),
                    @ApiResponse(responseCode = "404", description = "Country not found")
     })
-    public ResponseEntity<Country> getCountryById(
+    public ResponseEntity<CountryDto> getCountryById(
             @PathVariable("id") @Parameter(
-                    description = "ID of the country to retrieve", example = "1") Long countryId) {
-        return ResponseEntity.ok(countryService.getCountryById(countryId));
+                    description = "ID of the country to retrieve", example = "1") Long countryId,
+            @RequestParam(required = false) @Parameter(description = "Relations to embed:"
+                    + " cities, nations", example = "cities,nations") String include) {
+        return ResponseEntity.ok(expansionService.expandCountries(
+                List.of(countryService.getCountryById(countryId)), include).get(0));
     }
 
     @PostMapping
     @Operation(summary = "Add a new country",
             description = "Create a new country with the provided details")
     @ApiResponses({@ApiResponse(responseCode = "201", description = "Country created successfully",
-                    content = @Content(schema = @Schema(implementation = Country.class))),
+                    content = @Content(schema = @Schema(implementation = CountryDto.class))),
                    @ApiResponse(responseCode = "400", description = "Invalid country data")
     })
-    public ResponseEntity<Country> addNewCountry(
+    public ResponseEntity<CountryDto> addNewCountry(
             @RequestBody @Parameter(description = "Country object to add",
                     required = true) Country country) {
         return ResponseEntity.status(HttpStatus.CREATED)
@@ -79,24 +137,39 @@ public class CountryController {
     @Operation(summary = "Add multiple countries", description = "Create a list of new countries")
     @ApiResponses({@ApiResponse(responseCode = "201",
             description = "Countries created successfully",
-                    content = @Content(schema = @Schema(implementation = Country.class))),
+                    content = @Content(schema = @Schema(implementation = CountryDto.class))),
                    @ApiResponse(responseCode = "400", description = "Invalid countries data")
     })
-    public ResponseEntity<List<Country>> addNewCountries(
+    public ResponseEntity<List<CountryDto>> addNewCountries(
             @RequestBody @Parameter(description = "List of country objects to add",
                     required = true) List<Country> countries) {
         return ResponseEntity.status(HttpStatus.CREATED)
                 .body(countryService.addNewCountries(countries));
     }
 
+    @PostMapping("/import")
+    @Operation(summary = "Stream-import countries",
+            description = "Import countries from an NDJSON or CSV body (columns name, capital,"
+                    + " population, areaSquareKm, gdp). Rows are written in chunks with COPY")
+    @ApiResponses({@ApiResponse(responseCode = "200", description = "Import finished",
+                    content = @Content(schema = @Schema(implementation = ImportReportDto.class))),
+                   @ApiResponse(responseCode = "400", description = "Unsupported format")
+    })
+    public ResponseEntity<ImportReportDto> importCountries(
+            @RequestParam(defaultValue = ImportService.FORMAT_NDJSON) @Parameter(
+                    description = "Body format: ndjson or csv", example = "ndjson") String format,
+            InputStream body) {
+        return ResponseEntity.ok(importService.importCountries(body, format));
+    }
+
     @PutMapping("/{id}")
     @Operation(summary = "Update a country", description = "Update details of a country by its ID")
     @ApiResponses({@ApiResponse(responseCode = "200", description = "Country updated successfully",
-                    content = @Content(schema = @Schema(implementation = Country.class))),
+                    content = @Content(schema = @Schema(implementation = CountryDto.class))),
                    @ApiResponse(responseCode = "404", description = "Country not found"),
                    @ApiResponse(responseCode = "400", description = "Invalid update parameters")
     })
-    public ResponseEntity<Country> updateCountry(
+    public ResponseEntity<CountryDto> updateCountry(
             @PathVariable("id") @Parameter(description = "ID of the country to update",
                     example = "1") Long countryId,
             @RequestParam(required = false) @Parameter(description = "Name of the country",
@@ -113,26 +186,55 @@ public class CountryController {
                 areaSquareKm, gdp));
     }
 
+    @PatchMapping("/{id}")
+    @Operation(summary = "Partially update a country",
+            description = "Update the given fields in one conditional statement if the version"
+                    + " still matches")
+    @ApiResponses({@ApiResponse(responseCode = "200", description = "Country updated successfully",
+                    content = @Content(schema = @Schema(implementation = CountryDto.class))),
+                   @ApiResponse(responseCode = "404", description = "Country not found"),
+                   @ApiResponse(responseCode = "409",
+                           description = "Stale version or country name already exists")
+    })
+    public ResponseEntity<CountryDto> patchCountry(
+            @PathVariable("id") @Parameter(description = "ID of the country to update",
+                    example = "1") Long countryId,
+            @RequestParam @Parameter(description = "Version the client last read; a newer"
+                    + " stored version fails with 409", example = "0") Long version,
+            @RequestParam(required = false) @Parameter(description = "Name of the country",
+                    example = "Germany") String name,
+            @RequestParam(required = false) @Parameter(description = "Capital of the country",
+                    example = "Berlin") String capital,
+            @RequestParam(required = false) @Parameter(description = "Population of the country",
+                    example = "83240525") Double population,
+            @RequestParam(required = false) @Parameter(description = "Area in square kilometers",
+                    example = "357582") Double areaSquareKm,
+            @RequestParam(required = false) @Parameter(description = "GDP in billions USD",
+                    example = "4456.0") Double gdp) {
+        return ResponseEntity.ok(countryService.patchCountry(countryId, version, name, capital,
+                population, areaSquareKm, gdp));
+    }
+
     @DeleteMapping("/{id}")
     @Operation(summary = "Delete a country", description = "Delete a country by its ID")
-    @ApiResponses({@ApiResponse(responseCode = "204", description = "Country deleted successfully"),
+    @ApiResponses({@ApiResponse(responseCode = "200", description = "Country deleted successfully",
+                    content = @Content(schema = @Schema(implementation = DeleteResultDto.class))),
                    @ApiResponse(responseCode = "404", description = "Country not found")
     })
-    public ResponseEntity<Void> deleteCountry(
+    public ResponseEntity<DeleteResultDto> deleteCountry(
             @PathVariable("id") @Parameter(
                     description = "ID of the country to delete", example = "1") Long countryId) {
-        countryService.deleteCountry(countryId);
-        return ResponseEntity.noContent().build();
+        return ResponseEntity.ok(countryService.deleteCountry(countryId));
     }
 
     @DeleteMapping
     @Operation(summary = "Delete all countries",
             description = "Delete all countries and their associated data")
-    @ApiResponses({@ApiResponse(responseCode = "204",
-            description = "All countries deleted successfully")
+    @ApiResponses({@ApiResponse(responseCode = "200",
+            description = "All countries deleted successfully",
+                    content = @Content(schema = @Schema(implementation = DeleteResultDto.class)))
     })
-    public ResponseEntity<Void> deleteCountries() {
-        countryService.deleteCountries();
-        return ResponseEntity.noContent().build();
+    public ResponseEntity<DeleteResultDto> deleteCountries() {
+        return ResponseEntity.ok(countryService.deleteCountries());
     }
 }
@@ -7,17 +7,25 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
 import lombok.AllArgsConstructor;
-import org.example.model.Country;
+import org.example.dto.CountryDto;
+import org.example.dto.DeleteResultDto;
+import org.example.dto.NationDto;
 import org.example.model.Nation;
+import org.example.service.ExpansionService;
+import org.example.service.ExportService;
 import org.example.service.NationService;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
@@ -25,6 +33,7 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @AllArgsConstructor
 @RestController
@@ -35,21 +44,29 @@ import org.springframework.web.bind.annotation.RestController;
 public class NationController {
 
     private final NationService nationService;
+    private final ExportService exportService;
+    private final ExpansionService expansionService;
+
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+    private static final MediaType CSV = MediaType.parseMediaType("text/csv");
 
     @GetMapping("/countries/{countryId}/nations")
     @Operation(summary = "Get nations by country ID",
             description = "Retrieve a list of nations for a specific country")
     @ApiResponses({@ApiResponse(responseCode = "200",
             description = "List of nations retrieved successfully",
-                    content = @Content(schema = @Schema(implementation = Nation.class))),
+                    content = @Content(schema = @Schema(implementation = NationDto.class))),
                    @ApiResponse(responseCode = "204",
                            description = "No nations found for the country"),
                    @ApiResponse(responseCode = "404", description = "Country not found")
     })
-    public ResponseEntity<Set<Nation>> getNationsByCountryId(
+    public ResponseEntity<Set<NationDto>> getNationsByCountryId(
             @PathVariable @Parameter(description = "ID of the country to retrieve nations for",
-                    example = "1") Long countryId) {
-        Set<Nation> nations = nationService.getNationsByCountryId(countryId);
+                    example = "1") Long countryId,
+            @RequestParam(required = false) @Parameter(description = "Relations to embed:"
+                    + " countries", example = "countries") String include) {
+        Set<NationDto> nations = new LinkedHashSet<>(expansionService.expandNations(
+                nationService.getNationsByCountryId(countryId), include));
         return nations.isEmpty() ? ResponseEntity.noContent().build() : ResponseEntity.ok(nations);
     }
 
@@ -57,28 +74,52 @@ public class NationController {
     @Operation(summary = "Get all nations", description = "Retrieve a list of all nations")
     @ApiResponses({@ApiResponse(responseCode = "200",
             description = "List of nations retrieved successfully",
-                    content = @Content(schema = @Schema(implementation = Nation.class))),
+                    content = @Content(schema = @Schema(implementation = NationDto.class))),
                    @ApiResponse(responseCode = "204", description = "No nations found")
     })
-    public ResponseEntity<List<Nation>> getNations() {
-        List<Nation> nations = nationService.getNations();
+    public ResponseEntity<List<NationDto>> getNations(
+            @RequestParam(required = false) @Parameter(description = "Relations to embed:"
+                    + " countries", example = "countries") String include) {
+        List<NationDto> nations = expansionService.expandNations(
+                nationService.getNations(), include);
         return nations.isEmpty() ? ResponseEntity.noContent().build() : ResponseEntity.ok(nations);
     }
 
+    @GetMapping("/nations/export")
+    @Operation(summary = "Export nations",
+            description = "Stream all nations as NDJSON or CSV without loading them into memory")
+    @ApiResponses({@ApiResponse(responseCode = "200", description = "Export stream"),
+                   @ApiResponse(responseCode = "400", description = "Unsupported format")
+    })
+    public ResponseEntity<StreamingResponseBody> exportNations(
+            @RequestParam(defaultValue = ExportService.FORMAT_NDJSON) @Parameter(
+                    description = "Output format: ndjson or csv", example = "csv") String format) {
+        ExportService.checkFormat(format);
+        boolean csv = ExportService.FORMAT_CSV.equalsIgnoreCase(format);
+        return ResponseEntity.ok()
+                .contentType(csv ? CSV : NDJSON)
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=nations." + (csv ? "csv" : "ndjson"))
+                .body(out -> exportService.exportNations(format, out));
+    }
+
     @GetMapping("/nations/{nationId}/countries")
     @Operation(summary = "Get countries by nation ID",
             description = "Retrieve a list of countries associated with a specific nation")
     @ApiResponses({@ApiResponse(responseCode = "200",
             description = "List of countries retrieved successfully",
-                    content = @Content(schema = @Schema(implementation = Country.class))),
+                    content = @Content(schema = @Schema(implementation = CountryDto.class))),
                    @ApiResponse(responseCode = "204",
                            description = "No countries found for the nation"),
                    @ApiResponse(responseCode = "404", description = "Nation not found")
     })
-    public ResponseEntity<Set<Country>> getCountriesByNationId(
+    public ResponseEntity<Set<CountryDto>> getCountriesByNationId(
             @PathVariable @Parameter(description = "ID of the nation to retrieve countries for",
-                    example = "1") Long nationId) {
-        Set<Country> countries = nationService.getCountriesByNationId(nationId);
+                    example = "1") Long nationId,
+            @RequestParam(required = false) @Parameter(description = "Relations to embed:"
+                    + " cities, nations", example = "cities") String include) {
+        Set<CountryDto> countries = new LinkedHashSet<>(expansionService.expandCountries(
+                nationService.getCountriesByNationId(nationId), include));
         return countries.isEmpty() ? ResponseEntity.noContent().build() :
                 ResponseEntity.ok(countries);
     }
@@ -87,11 +128,11 @@ public class NationController {
     @Operation(summary = "Add a single nation to a country",
             description = "Add a new nation to a specific country")
     @ApiResponses({@ApiResponse(responseCode = "201", description = "Nation created successfully",
-                    content = @Content(schema = @Schema(implementation = Nation.class))),
+                    content = @Content(schema = @Schema(implementation = NationDto.class))),
                    @ApiResponse(responseCode = "400", description = "Invalid nation data"),
                    @ApiResponse(responseCode = "404", description = "Country not found")
     })
-    public ResponseEntity<Nation> addNewNationByCountryId(
+    public ResponseEntity<NationDto> addNewNationByCountryId(
             @PathVariable @Parameter(description = "ID of the country to add the nation to",
                     example = "1") Long countryId,
             @RequestBody @Parameter(description = "Nation object to add",
@@ -104,11 +145,11 @@ public class NationController {
     @Operation(summary = "Add multiple nations to a country",
             description = "Add a list of new nations to a specific country")
     @ApiResponses({@ApiResponse(responseCode = "201", description = "Nations created successfully",
-                    content = @Content(schema = @Schema(implementation = Nation.class))),
+                    content = @Content(schema = @Schema(implementation = NationDto.class))),
                    @ApiResponse(responseCode = "400", description = "Invalid nations data"),
                    @ApiResponse(responseCode = "404", description = "Country not found")
     })
-    public ResponseEntity<List<Nation>> addNewNationsByCountryId(
+    public ResponseEntity<List<NationDto>> addNewNationsByCountryId(
             @PathVariable @Parameter(description = "ID of the country to add the nations to",
                     example = "1") Long countryId,
             @RequestBody @Parameter(description = "List of nation objects to add",
@@ -120,11 +161,11 @@ public class NationController {
     @PutMapping("/nations/{id}")
     @Operation(summary = "Update a nation", description = "Update details of a nation by its ID")
     @ApiResponses({@ApiResponse(responseCode = "200", description = "Nation updated successfully",
-                    content = @Content(schema = @Schema(implementation = Nation.class))),
+                    content = @Content(schema = @Schema(implementation = NationDto.class))),
                    @ApiResponse(responseCode = "400", description = "Invalid update parameters"),
                    @ApiResponse(responseCode = "404", description = "Nation not found")
     })
-    public ResponseEntity<Nation> updateNation(
+    public ResponseEntity<NationDto> updateNation(
             @PathVariable("id") @Parameter(description = "ID of the nation to update",
                     example = "1") Long nationId,
             @RequestParam(required = false) @Parameter(description = "Name of the nation",
@@ -136,16 +177,41 @@ public class NationController {
         return ResponseEntity.ok(nationService.updateNation(nationId, name, language, religion));
     }
 
+    @PatchMapping("/nations/{id}")
+    @Operation(summary = "Partially update a nation",
+            description = "Update the given fields in one conditional statement if the version"
+                    + " still matches")
+    @ApiResponses({@ApiResponse(responseCode = "200", description = "Nation updated successfully",
+                    content = @Content(schema = @Schema(implementation = NationDto.class))),
+                   @ApiResponse(responseCode = "404", description = "Nation not found"),
+                   @ApiResponse(responseCode = "409",
+                           description = "Stale version or nation name already exists")
+    })
+    public ResponseEntity<NationDto> patchNation(
+            @PathVariable("id") @Parameter(description = "ID of the nation to update",
+                    example = "1") Long nationId,
+            @RequestParam @Parameter(description = "Version the client last read; a newer"
+                    + " stored version fails with 409", example = "0") Long version,
+            @RequestParam(required = false) @Parameter(description = "Name of the nation",
+                    example = "British") String name,
+            @RequestParam(required = false) @Parameter(description = "Language of the nation",
+                    example = "English") String language,
+            @RequestParam(required = false) @Parameter(description = "Religion of the nation",
+                    example = "Christianity") String religion) {
+        return ResponseEntity.ok(nationService.patchNation(nationId, version, name, language,
+                religion));
+    }
+
     @DeleteMapping("/nations/{nationId}")
     @Operation(summary = "Delete a nation", description = "Delete a nation by its ID")
-    @ApiResponses({@ApiResponse(responseCode = "204", description = "Nation deleted successfully"),
+    @ApiResponses({@ApiResponse(responseCode = "200", description = "Nation deleted successfully",
+                    content = @Content(schema = @Schema(implementation = DeleteResultDto.class))),
                    @ApiResponse(responseCode = "404", description = "Nation not found")
     })
-    public ResponseEntity<Void> deleteNation(
+    public ResponseEntity<DeleteResultDto> deleteNation(
             @PathVariable @Parameter(description = "ID of the nation to delete",
                     example = "1") Long nationId) {
-        nationService.deleteNation(nationId);
-        return ResponseEntity.noContent().build();
+        return ResponseEntity.ok(nationService.deleteNation(nationId));
     }
 
     @DeleteMapping("/countries/{countryId}/nations/{nationId}")
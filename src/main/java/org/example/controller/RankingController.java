@@ -0,0 +1,65 @@
+package org.example.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import java.util.List;
+import lombok.AllArgsConstructor;
+import org.example.dto.CityDto;
+import org.example.dto.CountryDto;
+import org.example.service.RankingService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@AllArgsConstructor
+@RequestMapping("/api/rankings")
+@Tag(name = "Rankings", description = "Top-N lists of countries and cities")
+public class RankingController {
+    private final RankingService rankingService;
+
+    @GetMapping("/countries/{countryId}/cities")
+    @Operation(summary = "Get the largest cities of a country",
+            description = "Most populous cities first, kept sorted in memory on writes")
+    @ApiResponses({@ApiResponse(responseCode = "200", description = "Cities retrieved",
+                    content = @Content(schema = @Schema(implementation = CityDto.class))),
+                   @ApiResponse(responseCode = "400", description = "Invalid limit"),
+                   @ApiResponse(responseCode = "404", description = "Country not found"),
+                   @ApiResponse(responseCode = "503", description = "Rankings are being built")
+    })
+    public ResponseEntity<List<CityDto>> getLargestCities(
+            @PathVariable @Parameter(description = "ID of the country",
+                    example = "1") Long countryId,
+            @RequestParam(defaultValue = "10") @Parameter(description = "Number of cities,"
+                    + " at most " + RankingService.MAX_LIMIT) int limit) {
+        return ResponseEntity.ok(rankingService.getLargestCities(countryId, limit));
+    }
+
+    @GetMapping("/countries")
+    @Operation(summary = "Get the top countries",
+            description = "Countries with the highest population, area, GDP or density,"
+                    + " optionally only those with a nation speaking the given language")
+    @ApiResponses({@ApiResponse(responseCode = "200", description = "Countries retrieved",
+                    content = @Content(schema = @Schema(implementation = CountryDto.class))),
+                   @ApiResponse(responseCode = "400", description = "Invalid ordering or limit"),
+                   @ApiResponse(responseCode = "503", description = "Rankings are being built")
+    })
+    public ResponseEntity<List<CountryDto>> getTopCountries(
+            @RequestParam(defaultValue = "population") @Parameter(description = "Ordering:"
+                    + " population, area, gdp or density", example = "gdp") String by,
+            @RequestParam(required = false) @Parameter(description = "Language spoken by a"
+                    + " nation of the country, ignoring case", example = "French")
+            String language,
+            @RequestParam(defaultValue = "10") @Parameter(description = "Number of countries,"
+                    + " at most " + RankingService.MAX_LIMIT) int limit) {
+        return ResponseEntity.ok(rankingService.getTopCountries(by, language, limit));
+    }
+}
@@ -1,10 +1,14 @@
 package org.example.controller;
 
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import java.util.List;
 import lombok.AllArgsConstructor;
 import org.example.dto.CountryDto;
+import org.example.dto.SuggestionDto;
 import org.example.service.CountryService;
+import org.example.service.SuggestionService;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -19,14 +23,29 @@ import org.springframework.web.bind.annotation.RestController;
 public class SearchController {
 
     private final CountryService countryService;
+    private final SuggestionService suggestionService;
 
     @GetMapping("/search")
     public ResponseEntity<List<CountryDto>> searchCountriesByCity(
-            @RequestParam(required = false) String cityName
+            @RequestParam(required = false) String cityName,
+            @RequestParam(defaultValue = "100") int limit
     ) {
-        List<CountryDto> list = countryService.searchCountriesByCityName(cityName);
+        List<CountryDto> list = countryService.searchCountriesByCityName(cityName, limit);
         return list.isEmpty()
                 ? ResponseEntity.status(HttpStatus.NOT_FOUND).body(null)
                 : ResponseEntity.ok(list);
     }
-}
\ No newline at end of file
+
+    @GetMapping("/suggest")
+    @Operation(summary = "Autocomplete names",
+            description = "Countries, cities or nations whose name starts with the query,"
+                    + " most populous first. An empty list is not an error.")
+    public ResponseEntity<List<SuggestionDto>> suggest(
+            @RequestParam(defaultValue = "") String q,
+            @RequestParam(required = false) @Parameter(description = "country, city or nation,"
+                    + " all types when omitted") String type,
+            @RequestParam(defaultValue = "10") int limit
+    ) {
+        return ResponseEntity.ok(suggestionService.suggest(q, type, limit));
+    }
+}
@@ -0,0 +1,17 @@
+package org.example.dto;
+
+import lombok.Data;
+
+/** Maintained totals over all countries and the cities that belong to a country. */
+@Data
+public class AggregateTotalsDto {
+    private long countryCount;
+    private long cityCount;
+    private long nationCount;
+    private double population;
+    private double urbanPopulation;
+    private double areaSquareKm;
+    private double gdp;
+    private Double density;
+    private Double gdpPerCapita;
+}
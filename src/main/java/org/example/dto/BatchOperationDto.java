@@ -0,0 +1,36 @@
+package org.example.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+/**
+ * One entry of a {@code POST /api/batch} request. {@code id} is required for updates and
+ * deletes; {@code countryId} is required when creating a city and optional when creating a
+ * nation (the nation is then linked to the country). Updates follow PATCH semantics:
+ * {@code null} fields keep the stored value, and a {@code version} makes the update
+ * conditional on it.
+ */
+@Data
+public class BatchOperationDto {
+    public enum Action { CREATE, UPDATE, DELETE }
+
+    public enum Entity { COUNTRY, CITY, NATION }
+
+    @Schema(example = "UPDATE")
+    private Action action;
+    @Schema(example = "COUNTRY")
+    private Entity entity;
+    @Schema(example = "1")
+    private Long id;
+    private Long version;
+    private Long countryId;
+
+    @Schema(example = "Belarus")
+    private String name;
+    private String capital;
+    private Double population;
+    private Double areaSquareKm;
+    private Double gdp;
+    private String language;
+    private String religion;
+}
@@ -0,0 +1,25 @@
+package org.example.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+public class BatchReportDto {
+    private boolean atomic;
+    private boolean committed;
+    private int applied;
+    private int failed;
+    private long elapsedMillis;
+    private List<OperationResult> results = new ArrayList<>();
+
+    @Data
+    @AllArgsConstructor
+    public static class OperationResult {
+        private int index;
+        private int status;
+        private Long id;
+        private String message;
+    }
+}
@@ -11,6 +11,7 @@ public class CityDto {
     private String name;
     private Double population;
     private Double areaSquareKm;
+    private Long version;
 
     @JsonIgnoreProperties({"cities", "nations"})
     private CountryDto country;
@@ -22,6 +23,7 @@ public class CityDto {
         dto.setName(city.getName());
         dto.setPopulation(city.getPopulation());
         dto.setAreaSquareKm(city.getAreaSquareKm());
+        dto.setVersion(city.getVersion());
         if (city.getCountry() != null) {
             dto.setCountry(CountryDto.fromEntity(city.getCountry()));
         }
@@ -0,0 +1,13 @@
+package org.example.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.Data;
+
+@Data
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class CityImportDto {
+    private String name;
+    private Double population;
+    private Double areaSquareKm;
+    private Long countryId;
+}
@@ -0,0 +1,21 @@
+package org.example.dto;
+
+import lombok.Data;
+
+/**
+ * Maintained figures of one country: its own population, area and GDP, the number and
+ * total population of its cities, and the derived density and GDP per capita
+ * ({@code null} when the divisor is zero).
+ */
+@Data
+public class CountryAggregateDto {
+    private Long id;
+    private String name;
+    private double population;
+    private double areaSquareKm;
+    private double gdp;
+    private long cityCount;
+    private double urbanPopulation;
+    private Double density;
+    private Double gdpPerCapita;
+}
@@ -14,7 +14,10 @@ public class CountryDto {
     private Double population;
     private Double areaSquareKm;
     private Double gdp;
+    private Long version;
     private Set<Long> cityIds;
+    private Set<CityDto> cities;
+    private Set<NationDto> nations;
 
     @SuppressWarnings("checkstyle:LocalVariableName")
     public static CountryDto fromEntity(Country country) {
@@ -25,6 +28,7 @@ public class CountryDto {
         dto.setPopulation(country.getPopulation());
         dto.setAreaSquareKm(country.getAreaSquareKm());
         dto.setGdp(country.getGdp());
+        dto.setVersion(country.getVersion());
         return dto;
     }
 }
\ No newline at end of file
@@ -0,0 +1,14 @@
+package org.example.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.Data;
+
+@Data
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class CountryImportDto {
+    private String name;
+    private String capital;
+    private Double population;
+    private Double areaSquareKm;
+    private Double gdp;
+}
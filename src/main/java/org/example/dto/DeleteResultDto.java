@@ -0,0 +1,12 @@
+package org.example.dto;
+
+import lombok.Data;
+
+@Data
+public class DeleteResultDto {
+    private Integer deletedCountries;
+    private Integer deletedCities;
+    private Integer detachedCities;
+    private Integer deletedNations;
+    private Integer deletedNationLinks;
+}
@@ -0,0 +1,32 @@
+package org.example.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+public class ImportReportDto {
+    private static final int MAX_REPORTED_ERRORS = 100;
+
+    private long processed;
+    private long imported;
+    private long failed;
+    private long chunks;
+    private long elapsedMillis;
+    private List<RowError> errors = new ArrayList<>();
+
+    public void addError(long line, String message) {
+        failed++;
+        if (errors.size() < MAX_REPORTED_ERRORS) {
+            errors.add(new RowError(line, message));
+        }
+    }
+
+    @Data
+    @AllArgsConstructor
+    public static class RowError {
+        private long line;
+        private String message;
+    }
+}
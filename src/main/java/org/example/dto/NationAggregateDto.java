@@ -0,0 +1,17 @@
+package org.example.dto;
+
+import lombok.Data;
+
+/**
+ * Maintained figures of the countries a nation is linked to: their summed population and
+ * GDP and the resulting GDP per capita ({@code null} when the population is zero).
+ */
+@Data
+public class NationAggregateDto {
+    private Long id;
+    private String name;
+    private long countryCount;
+    private double population;
+    private double gdp;
+    private Double gdpPerCapita;
+}
@@ -0,0 +1,25 @@
+package org.example.dto;
+
+import java.util.Set;
+import lombok.Data;
+import org.example.model.Nation;
+
+@Data
+public class NationDto {
+    private Long id;
+    private String name;
+    private String language;
+    private String religion;
+    private Long version;
+    private Set<CountryDto> countries;
+
+    public static NationDto fromEntity(Nation nation) {
+        NationDto dto = new NationDto();
+        dto.setId(nation.getId());
+        dto.setName(nation.getName());
+        dto.setLanguage(nation.getLanguage());
+        dto.setReligion(nation.getReligion());
+        dto.setVersion(nation.getVersion());
+        return dto;
+    }
+}
@@ -0,0 +1,28 @@
+package org.example.dto;
+
+import lombok.Data;
+import org.example.event.NameChangedEvent.Kind;
+
+/**
+ * One entry of {@code GET /suggest}. {@code countryId} is only set for cities and
+ * {@code population} is {@code null} for nations.
+ */
+@Data
+public class SuggestionDto {
+    private Kind type;
+    private Long id;
+    private String name;
+    private Long countryId;
+    private Double population;
+
+    public static SuggestionDto of(Kind type, Long id, String name, Long countryId,
+                                   Double population) {
+        SuggestionDto dto = new SuggestionDto();
+        dto.setType(type);
+        dto.setId(id);
+        dto.setName(name);
+        dto.setCountryId(countryId);
+        dto.setPopulation(population);
+        return dto;
+    }
+}
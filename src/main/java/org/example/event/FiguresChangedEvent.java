@@ -0,0 +1,31 @@
+package org.example.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import org.example.event.NameChangedEvent.Kind;
+
+/**
+ * Published inside the writing transaction when a country or city is created or its
+ * population, area or GDP may have changed. Values are the stored ones after the write;
+ * {@code null} means the write did not touch the value, so listeners keep what they had.
+ * Deletes are announced by {@link NameChangedEvent} only, and a create publishes its
+ * {@link NameChangedEvent} first.
+ */
+@Data
+@AllArgsConstructor
+public class FiguresChangedEvent {
+    private final Kind kind;
+    private final Long id;
+    private final Double population;
+    private final Double areaSquareKm;
+    private final Double gdp;
+
+    public static FiguresChangedEvent country(Long id, Double population, Double areaSquareKm,
+                                              Double gdp) {
+        return new FiguresChangedEvent(Kind.COUNTRY, id, population, areaSquareKm, gdp);
+    }
+
+    public static FiguresChangedEvent city(Long id, Double population, Double areaSquareKm) {
+        return new FiguresChangedEvent(Kind.CITY, id, population, areaSquareKm, null);
+    }
+}
@@ -0,0 +1,32 @@
+package org.example.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Published inside the writing transaction whenever a country, nation or city gets a new
+ * name, is created or is deleted ({@code name == null}). {@code countryId} is only set for
+ * cities.
+ */
+@Data
+@AllArgsConstructor
+public class NameChangedEvent {
+    public enum Kind { COUNTRY, NATION, CITY }
+
+    private final Kind kind;
+    private final Long id;
+    private final Long countryId;
+    private final String name;
+
+    public static NameChangedEvent country(Long id, String name) {
+        return new NameChangedEvent(Kind.COUNTRY, id, null, name);
+    }
+
+    public static NameChangedEvent nation(Long id, String name) {
+        return new NameChangedEvent(Kind.NATION, id, null, name);
+    }
+
+    public static NameChangedEvent city(Long id, Long countryId, String name) {
+        return new NameChangedEvent(Kind.CITY, id, countryId, name);
+    }
+}
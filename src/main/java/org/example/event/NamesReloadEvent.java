@@ -0,0 +1,25 @@
+package org.example.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import org.example.event.NameChangedEvent.Kind;
+
+/**
+ * Published after bulk statements and imports that change names without going through the
+ * entity paths. For cities {@code countryId} narrows the reload to one country, {@code null}
+ * means all of them.
+ */
+@Data
+@AllArgsConstructor
+public class NamesReloadEvent {
+    private final Kind kind;
+    private final Long countryId;
+
+    public static NamesReloadEvent countries() {
+        return new NamesReloadEvent(Kind.COUNTRY, null);
+    }
+
+    public static NamesReloadEvent cities(Long countryId) {
+        return new NamesReloadEvent(Kind.CITY, countryId);
+    }
+}
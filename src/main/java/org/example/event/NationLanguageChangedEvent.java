@@ -0,0 +1,16 @@
+package org.example.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Published inside the writing transaction when a nation is created with or given a
+ * language. Creates publish their {@link NameChangedEvent} first; deletes are announced by
+ * the {@link NameChangedEvent} only.
+ */
+@Data
+@AllArgsConstructor
+public class NationLanguageChangedEvent {
+    private final Long nationId;
+    private final String language;
+}
@@ -0,0 +1,25 @@
+package org.example.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Published inside the writing transaction when a nation is linked to or unlinked from a
+ * country. Links removed together with their country or nation are covered by the
+ * {@link NameChangedEvent} of the delete.
+ */
+@Data
+@AllArgsConstructor
+public class NationLinkChangedEvent {
+    private final Long countryId;
+    private final Long nationId;
+    private final boolean linked;
+
+    public static NationLinkChangedEvent linked(Long countryId, Long nationId) {
+        return new NationLinkChangedEvent(countryId, nationId, true);
+    }
+
+    public static NationLinkChangedEvent unlinked(Long countryId, Long nationId) {
+        return new NationLinkChangedEvent(countryId, nationId, false);
+    }
+}
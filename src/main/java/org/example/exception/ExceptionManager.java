@@ -1,9 +1,16 @@
 package org.example.exception;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import java.util.Date;
+import org.example.config.RequestDeadline;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.transaction.TransactionTimedOutException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.context.request.WebRequest;
@@ -12,6 +19,12 @@ import org.springframework.web.servlet.resource.NoResourceFoundException;
 @ControllerAdvice
 public class ExceptionManager {
 
+    private final MeterRegistry meterRegistry;
+
+    public ExceptionManager(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
     @ExceptionHandler(HttpMessageNotReadableException.class)
     public ResponseEntity<ErrorMessage> httpMessageNotReadableException(
             final ObjectNotFoundException ex, final WebRequest request) {
@@ -48,6 +61,76 @@ public class ExceptionManager {
         return new ResponseEntity<>(message, HttpStatus.CONFLICT);
     }
 
+    @ExceptionHandler(DataIntegrityViolationException.class)
+    public ResponseEntity<ErrorMessage> dataIntegrityViolationException(
+            final DataIntegrityViolationException ex, final WebRequest request) {
+        ErrorMessage message = new ErrorMessage(
+                HttpStatus.CONFLICT.value(),
+                new Date(),
+                "Object violates a uniqueness or reference constraint",
+                request.getDescription(false));
+
+        return new ResponseEntity<>(message, HttpStatus.CONFLICT);
+    }
+
+    @ExceptionHandler({StaleVersionException.class, OptimisticLockingFailureException.class})
+    public ResponseEntity<ErrorMessage> staleVersionException(
+            final RuntimeException ex, final WebRequest request) {
+        ErrorMessage message = new ErrorMessage(
+                HttpStatus.CONFLICT.value(),
+                new Date(),
+                ex instanceof StaleVersionException ? ex.getMessage()
+                        : "Object was modified by another request",
+                request.getDescription(false));
+
+        return new ResponseEntity<>(message, HttpStatus.CONFLICT);
+    }
+
+    @ExceptionHandler({QueryTimeoutException.class, TransactionTimedOutException.class})
+    public ResponseEntity<ErrorMessage> queryTimeoutException(
+            final RuntimeException ex, final WebRequest request) {
+        RequestDeadline deadline = RequestDeadline.current();
+        meterRegistry.counter("query.timeouts",
+                "budget", deadline == null ? "none" : deadline.getSource(),
+                "phase", ex instanceof TransactionTimedOutException ? "start" : "statement")
+                .increment();
+        ErrorMessage message = new ErrorMessage(
+                HttpStatus.GATEWAY_TIMEOUT.value(),
+                new Date(),
+                "Query cancelled, request time budget exceeded",
+                request.getDescription(false));
+
+        return new ResponseEntity<>(message, HttpStatus.GATEWAY_TIMEOUT);
+    }
+
+    @ExceptionHandler(TooManyRequestsException.class)
+    public ResponseEntity<ErrorMessage> tooManyRequestsException(
+            final TooManyRequestsException ex, final WebRequest request) {
+        ErrorMessage message = new ErrorMessage(
+                HttpStatus.TOO_MANY_REQUESTS.value(),
+                new Date(),
+                ex.getMessage(),
+                request.getDescription(false));
+
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(message);
+    }
+
+    @ExceptionHandler(ServiceUnavailableException.class)
+    public ResponseEntity<ErrorMessage> serviceUnavailableException(
+            final ServiceUnavailableException ex, final WebRequest request) {
+        ErrorMessage message = new ErrorMessage(
+                HttpStatus.SERVICE_UNAVAILABLE.value(),
+                new Date(),
+                ex.getMessage(),
+                request.getDescription(false));
+
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(message);
+    }
+
     @ExceptionHandler(Exception.class)
     public ResponseEntity<ErrorMessage> globalExceptionHandler(
             final Exception ex, final WebRequest request) {
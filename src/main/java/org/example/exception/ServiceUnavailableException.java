@@ -0,0 +1,8 @@
+package org.example.exception;
+
+public class ServiceUnavailableException extends RuntimeException {
+
+    public ServiceUnavailableException(final String mes) {
+        super(mes);
+    }
+}
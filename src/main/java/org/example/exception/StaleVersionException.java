@@ -0,0 +1,8 @@
+package org.example.exception;
+
+public class StaleVersionException extends RuntimeException {
+
+    public StaleVersionException(final String mes) {
+        super(mes);
+    }
+}
@@ -0,0 +1,8 @@
+package org.example.exception;
+
+public class TooManyRequestsException extends RuntimeException {
+
+    public TooManyRequestsException(final String mes) {
+        super(mes);
+    }
+}
@@ -1,5 +1,6 @@
 package org.example.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import io.swagger.v3.oas.annotations.Hidden;
 import io.swagger.v3.oas.annotations.media.Schema;
@@ -11,21 +12,28 @@ import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
 
 @Data
 @Entity
 @Table(name = "city")
 @JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 public class City {
+    /** Length of the {@code city.name} column. */
+    public static final int MAX_NAME_LENGTH = 255;
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "city_seq")
+    @SequenceGenerator(name = "city_seq", sequenceName = "city_seq", allocationSize = 50)
     @Hidden
     private Long id;
 
-    @Column(name = "name")
+    @Column(name = "name", length = MAX_NAME_LENGTH)
     @Schema(example = "Minsk")
     private String name;
 
@@ -37,7 +45,15 @@ public class City {
     @Schema(example = "348.84")
     private Double areaSquareKm;
 
+    @Version
+    @Column(name = "version")
+    @Hidden
+    @JsonIgnore
+    private Long version;
+
     @ManyToOne(fetch = FetchType.LAZY)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
     @JoinColumn(name = "country_id", nullable = true)
     private Country country;
 }
\ No newline at end of file
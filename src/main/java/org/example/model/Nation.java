@@ -10,8 +10,11 @@ import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.ManyToMany;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 import java.util.List;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
 
 @Data
 @Entity
@@ -35,7 +38,15 @@ public class Nation {
     @Schema(example = "Christian")
     private String religion;
 
+    @Version
+    @Column(name = "version")
+    @Hidden
+    @JsonIgnore
+    private Long version;
+
     @ManyToMany(mappedBy = "nations")
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
     @JsonIgnore
     private List<Country> countries;
 }
@@ -0,0 +1,293 @@
+package org.example.repository;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import org.example.dto.BatchOperationDto;
+import org.example.dto.BatchOperationDto.Entity;
+import org.example.dto.CityImportDto;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.SqlParameterValue;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * JDBC batches for {@code POST /api/batch} and the asynchronous city ingestion. Every batch
+ * method takes a run of operations of the same entity and action and returns one update
+ * count per operation, in order. Inserts use ids reserved up front, updates follow the PATCH
+ * statements of {@link VersionedUpdateRepository} with an optional version check, and
+ * deletes detach or remove dependent rows the same way the single-entity delete paths do.
+ * City updates and deletes run one {@code RETURNING} statement per operation instead of a
+ * JDBC batch, because the caller needs each city's country to publish precise events.
+ */
+@Repository
+public class BatchMutationRepository {
+    private static final int BATCH_SIZE = 500;
+
+    private static final String INSERT_COUNTRY = "INSERT INTO country"
+            + " (id, name, capital, population, area, gdp, version)"
+            + " VALUES (?, ?, ?, ?, ?, ?, 0)";
+    private static final String INSERT_CITY = "INSERT INTO city"
+            + " (id, name, population, area, country_id, version) VALUES (?, ?, ?, ?, ?, 0)";
+    private static final String INSERT_CITY_IF_ABSENT = "INSERT INTO city"
+            + " (id, name, population, area, country_id, version)"
+            + " SELECT ?, ?, ?, ?, c.id, 0 FROM country c WHERE c.id = ?"
+            + " ON CONFLICT DO NOTHING";
+    private static final String INSERT_NATION = "INSERT INTO nation"
+            + " (id, name, language, religion, version) VALUES (?, ?, ?, ?, 0)";
+    private static final String INSERT_LINK = "INSERT INTO country_nations"
+            + " (country_id, nation_id) VALUES (?, ?) ON CONFLICT DO NOTHING";
+
+    private static final String UPDATE_COUNTRY = "UPDATE country SET"
+            + " name = COALESCE(?, name), capital = COALESCE(?, capital),"
+            + " population = COALESCE(?, population), area = COALESCE(?, area),"
+            + " gdp = COALESCE(?, gdp), version = version + 1"
+            + " WHERE id = ? AND version = COALESCE(?, version)";
+    private static final String UPDATE_CITY = "UPDATE city SET"
+            + " name = COALESCE(?, name), population = COALESCE(?, population),"
+            + " area = COALESCE(?, area), version = version + 1"
+            + " WHERE id = ? AND version = COALESCE(?, version)";
+    private static final String CITY_COLUMNS = "country_id, name, population, area";
+    private static final String UPDATE_CITY_RETURNING = UPDATE_CITY + " RETURNING "
+            + CITY_COLUMNS;
+    private static final String UPDATE_NATION = "UPDATE nation SET"
+            + " name = COALESCE(?, name), language = COALESCE(?, language),"
+            + " religion = COALESCE(?, religion), version = version + 1"
+            + " WHERE id = ? AND version = COALESCE(?, version)";
+
+    private static final String DETACH_CITIES = "UPDATE city SET country_id = NULL"
+            + " WHERE country_id = ?";
+    private static final String DELETE_COUNTRY_LINKS = "DELETE FROM country_nations"
+            + " WHERE country_id = ?";
+    private static final String DELETE_COUNTRY = "DELETE FROM country WHERE id = ?";
+    private static final String DELETE_CITY = "DELETE FROM city WHERE id = ?";
+    private static final String DELETE_CITY_RETURNING = DELETE_CITY + " RETURNING country_id";
+    private static final String DELETE_NATION_LINKS = "DELETE FROM country_nations"
+            + " WHERE nation_id = ?";
+    private static final String DELETE_NATION = "DELETE FROM nation WHERE id = ?";
+
+    private static final String RESERVE_NATION_IDS = "SELECT nextval(pg_get_serial_sequence("
+            + "'nation', 'id')) FROM generate_series(1, ?)";
+    private static final String RESERVE_EMBEDDED_NATION_IDS = "SELECT nextval('nation_id_seq')"
+            + " FROM generate_series(1, ?)";
+
+    // The embedded H2 store has no RETURNING; it reads the rows from FINAL and OLD TABLE.
+    private static final String EMBEDDED_UPDATE_CITY = "SELECT " + CITY_COLUMNS
+            + " FROM FINAL TABLE (" + UPDATE_CITY + ")";
+    private static final String EMBEDDED_DELETE_CITY = "SELECT country_id"
+            + " FROM OLD TABLE (" + DELETE_CITY + ")";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final DatabaseDialect dialect;
+
+    public BatchMutationRepository(JdbcTemplate jdbcTemplate, DatabaseDialect dialect) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+        this.dialect = dialect;
+    }
+
+    public List<Long> reserveNationIds(int count) {
+        return jdbcTemplate.queryForList(dialect.isPostgres()
+                ? RESERVE_NATION_IDS : RESERVE_EMBEDDED_NATION_IDS, Long.class, count);
+    }
+
+    public int[] insertCountries(List<BatchOperationDto> operations, List<Long> ids) {
+        return batch(INSERT_COUNTRY, operations, (ps, operation, i) -> {
+            ps.setLong(1, ids.get(i));
+            ps.setString(2, operation.getName());
+            ps.setString(3, operation.getCapital());
+            ps.setObject(4, operation.getPopulation(), Types.DOUBLE);
+            ps.setObject(5, operation.getAreaSquareKm(), Types.DOUBLE);
+            ps.setObject(6, operation.getGdp(), Types.DOUBLE);
+        });
+    }
+
+    public int[] insertCities(List<BatchOperationDto> operations, List<Long> ids) {
+        return batch(INSERT_CITY, operations, (ps, operation, i) -> {
+            ps.setLong(1, ids.get(i));
+            ps.setString(2, operation.getName());
+            ps.setObject(3, operation.getPopulation(), Types.DOUBLE);
+            ps.setObject(4, operation.getAreaSquareKm(), Types.DOUBLE);
+            ps.setLong(5, operation.getCountryId());
+        });
+    }
+
+    /**
+     * Inserts cities accepted earlier; rows whose country is gone or whose name is taken by
+     * now are skipped and report a count of {@code 0} instead of failing the batch.
+     */
+    public int[] insertCitiesIfAbsent(List<CityImportDto> cities, List<Long> ids) {
+        return batch(INSERT_CITY_IF_ABSENT, cities, (ps, city, i) -> {
+            ps.setLong(1, ids.get(i));
+            ps.setString(2, city.getName());
+            ps.setObject(3, city.getPopulation(), Types.DOUBLE);
+            ps.setObject(4, city.getAreaSquareKm(), Types.DOUBLE);
+            ps.setLong(5, city.getCountryId());
+        });
+    }
+
+    public int[] insertNations(List<BatchOperationDto> operations, List<Long> ids) {
+        int[] counts = batch(INSERT_NATION, operations, (ps, operation, i) -> {
+            ps.setLong(1, ids.get(i));
+            ps.setString(2, operation.getName());
+            ps.setString(3, operation.getLanguage());
+            ps.setString(4, operation.getReligion());
+        });
+        List<long[]> links = new ArrayList<>();
+        for (int i = 0; i < operations.size(); i++) {
+            if (operations.get(i).getCountryId() != null) {
+                links.add(new long[] {operations.get(i).getCountryId(), ids.get(i)});
+            }
+        }
+        if (!links.isEmpty()) {
+            batch(INSERT_LINK, links, (ps, link, i) -> {
+                ps.setLong(1, link[0]);
+                ps.setLong(2, link[1]);
+            });
+        }
+        return counts;
+    }
+
+    public int[] updateCountries(List<BatchOperationDto> operations) {
+        return batch(UPDATE_COUNTRY, operations, (ps, operation, i) -> {
+            ps.setObject(1, text(operation.getName()), Types.VARCHAR);
+            ps.setObject(2, text(operation.getCapital()), Types.VARCHAR);
+            ps.setObject(3, operation.getPopulation(), Types.DOUBLE);
+            ps.setObject(4, operation.getAreaSquareKm(), Types.DOUBLE);
+            ps.setObject(5, operation.getGdp(), Types.DOUBLE);
+            ps.setLong(6, operation.getId());
+            ps.setObject(7, operation.getVersion(), Types.BIGINT);
+        });
+    }
+
+    /**
+     * Updates cities one by one; each entry is {@code null} when nothing matched, otherwise
+     * the stored {@code [country_id, name, population, area]} after the update.
+     */
+    public List<Object[]> updateCities(List<BatchOperationDto> operations) {
+        String sql = dialect.isPostgres() ? UPDATE_CITY_RETURNING : EMBEDDED_UPDATE_CITY;
+        List<Object[]> rows = new ArrayList<>(operations.size());
+        for (BatchOperationDto operation : operations) {
+            rows.add(jdbcTemplate.query(sql, (rs, rowNum) -> new Object[] {
+                    rs.getObject("country_id", Long.class), rs.getString("name"),
+                    rs.getObject("population", Double.class),
+                    rs.getObject("area", Double.class)},
+                    new SqlParameterValue(Types.VARCHAR, text(operation.getName())),
+                    new SqlParameterValue(Types.DOUBLE, operation.getPopulation()),
+                    new SqlParameterValue(Types.DOUBLE, operation.getAreaSquareKm()),
+                    operation.getId(),
+                    new SqlParameterValue(Types.BIGINT, operation.getVersion()))
+                    .stream().findFirst().orElse(null));
+        }
+        return rows;
+    }
+
+    public int[] updateNations(List<BatchOperationDto> operations) {
+        return batch(UPDATE_NATION, operations, (ps, operation, i) -> {
+            ps.setObject(1, text(operation.getName()), Types.VARCHAR);
+            ps.setObject(2, text(operation.getLanguage()), Types.VARCHAR);
+            ps.setObject(3, text(operation.getReligion()), Types.VARCHAR);
+            ps.setLong(4, operation.getId());
+            ps.setObject(5, operation.getVersion(), Types.BIGINT);
+        });
+    }
+
+    public int[] deleteCountries(List<BatchOperationDto> operations) {
+        batch(DETACH_CITIES, operations, (ps, operation, i) -> ps.setLong(1, operation.getId()));
+        batch(DELETE_COUNTRY_LINKS, operations,
+                (ps, operation, i) -> ps.setLong(1, operation.getId()));
+        return batch(DELETE_COUNTRY, operations,
+                (ps, operation, i) -> ps.setLong(1, operation.getId()));
+    }
+
+    /**
+     * Deletes cities one by one; each entry is {@code null} when the city was missing,
+     * otherwise {@code [country_id]} of the deleted row ({@code [null]} for a detached city).
+     */
+    public List<Object[]> deleteCities(List<BatchOperationDto> operations) {
+        String sql = dialect.isPostgres() ? DELETE_CITY_RETURNING : EMBEDDED_DELETE_CITY;
+        List<Object[]> rows = new ArrayList<>(operations.size());
+        for (BatchOperationDto operation : operations) {
+            rows.add(jdbcTemplate.query(sql, (rs, rowNum) -> new Object[] {
+                    rs.getObject("country_id", Long.class)}, operation.getId())
+                    .stream().findFirst().orElse(null));
+        }
+        return rows;
+    }
+
+    public int[] deleteNations(List<BatchOperationDto> operations) {
+        batch(DELETE_NATION_LINKS, operations,
+                (ps, operation, i) -> ps.setLong(1, operation.getId()));
+        return batch(DELETE_NATION, operations,
+                (ps, operation, i) -> ps.setLong(1, operation.getId()));
+    }
+
+    /** Ids among {@code ids} that still exist, used to tell missing rows from stale versions. */
+    public List<Long> findExistingIds(Entity entity, Collection<Long> ids) {
+        String table = switch (entity) {
+            case COUNTRY -> "country";
+            case CITY -> "city";
+            case NATION -> "nation";
+        };
+        return namedJdbcTemplate.queryForList("SELECT id FROM " + table + " WHERE id IN (:ids)",
+                new MapSqlParameterSource("ids", ids), Long.class);
+    }
+
+    public Savepoint savepoint() {
+        return jdbcTemplate.execute((ConnectionCallback<Savepoint>) connection ->
+                connection.setSavepoint());
+    }
+
+    public void rollbackTo(Savepoint savepoint) {
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            connection.rollback(savepoint);
+            return null;
+        });
+    }
+
+    public void release(Savepoint savepoint) {
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            connection.releaseSavepoint(savepoint);
+            return null;
+        });
+    }
+
+    private <T> int[] batch(String sql, List<T> rows, RowSetter<T> setter) {
+        int[] counts = new int[rows.size()];
+        for (int from = 0; from < rows.size(); from += BATCH_SIZE) {
+            List<T> chunk = rows.subList(from, Math.min(from + BATCH_SIZE, rows.size()));
+            int offset = from;
+            int[] chunkCounts = jdbcTemplate.batchUpdate(sql,
+                    new BatchPreparedStatementSetter() {
+                        @Override
+                        public void setValues(PreparedStatement ps, int i) throws SQLException {
+                            setter.set(ps, chunk.get(i), offset + i);
+                        }
+
+                        @Override
+                        public int getBatchSize() {
+                            return chunk.size();
+                        }
+                    });
+            System.arraycopy(chunkCounts, 0, counts, from, chunkCounts.length);
+        }
+        return counts;
+    }
+
+    private static String text(String value) {
+        return value == null || value.isEmpty() ? null : value;
+    }
+
+    @FunctionalInterface
+    private interface RowSetter<T> {
+        void set(PreparedStatement ps, T row, int index) throws SQLException;
+    }
+}
@@ -1,10 +1,17 @@
 package org.example.repository;
 
+import jakarta.persistence.QueryHint;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 import org.example.model.City;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
@@ -15,4 +22,82 @@ public interface CityRepository extends JpaRepository<City, Long> {
 
     @Query("SELECT c FROM City c LEFT JOIN FETCH c.country WHERE c.id = :id")
     Optional<City> findByIdWithCountry(@Param("id") Long id);
+
+    @Query("SELECT c FROM City c LEFT JOIN FETCH c.country")
+    List<City> findAllWithCountry();
+
+    @Query("SELECT c FROM City c LEFT JOIN FETCH c.country WHERE c.id IN :ids")
+    List<City> findAllByIdWithCountry(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT c FROM City c JOIN FETCH c.country WHERE c.country.id IN :countryIds")
+    List<City> findAllByCountryIdIn(@Param("countryIds") Collection<Long> countryIds);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT c FROM City c LEFT JOIN FETCH c.country")
+    Stream<City> streamAllWithCountry();
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT c.id, c.country.id, c.name FROM City c WHERE c.country IS NOT NULL")
+    Stream<Object[]> streamIdsCountryIdsAndNames();
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT c.id, c.name, c.population, c.country.id FROM City c"
+            + " WHERE c.country IS NOT NULL")
+    Stream<Object[]> streamSuggestionRows();
+
+    @Query("SELECT c.id, c.name, c.population, c.country.id FROM City c"
+            + " WHERE c.country.id = :countryId")
+    List<Object[]> findSuggestionRowsByCountryId(@Param("countryId") Long countryId);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT c.id, c.country.id, c.population FROM City c WHERE c.country IS NOT NULL")
+    Stream<Object[]> streamFigureRows();
+
+    @Query("SELECT c.id, c.population FROM City c WHERE c.country.id = :countryId")
+    List<Object[]> findFigureRowsByCountryId(@Param("countryId") Long countryId);
+
+    @Query("SELECT c.id, c.name, c.population, c.country.id FROM City c"
+            + " WHERE c.country IS NOT NULL AND LOWER(c.name) LIKE :pattern ESCAPE '\\'"
+            + " ORDER BY c.population DESC NULLS LAST, c.name, c.id")
+    List<Object[]> findSuggestionRowsByNameLike(@Param("pattern") String pattern,
+                                                Pageable pageable);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE City c SET c.country = NULL WHERE c.country.id = :countryId")
+    int detachAllFromCountry(@Param("countryId") Long countryId);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM City c WHERE c.country.id = :countryId")
+    int deleteAllByCountryId(@Param("countryId") Long countryId);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM City c WHERE c.country IS NOT NULL")
+    int deleteAllWithCountry();
+
+    @Query("SELECT c.id FROM City c WHERE c.country.id = :countryId")
+    List<Long> findIdsByCountryId(@Param("countryId") Long countryId);
+
+    @Query("SELECT c.id, c.name FROM City c WHERE c.country.id = :countryId")
+    List<Object[]> findIdsAndNamesByCountryId(@Param("countryId") Long countryId);
+
+    @Query("SELECT COUNT(c) > 0 FROM City c WHERE c.country.id = :countryId"
+            + " AND LOWER(c.name) = LOWER(:name)")
+    boolean existsByCountryIdAndName(@Param("countryId") Long countryId,
+                                     @Param("name") String name);
+
+    @Query("SELECT COUNT(c) > 0 FROM City c WHERE c.country.id = :countryId"
+            + " AND LOWER(c.name) = LOWER(:name) AND c.id <> :cityId")
+    boolean existsOtherByCountryIdAndName(@Param("countryId") Long countryId,
+                                          @Param("name") String name,
+                                          @Param("cityId") Long cityId);
+
+    @Query("SELECT LOWER(c.name) FROM City c WHERE c.country.id = :countryId"
+            + " AND LOWER(c.name) IN :names")
+    List<String> findExistingNamesByCountryId(@Param("countryId") Long countryId,
+                                              @Param("names") Collection<String> names);
+
+    @Query("SELECT CONCAT(c.country.id, ':', LOWER(c.name)) FROM City c"
+            + " WHERE c.country.id IN :countryIds AND LOWER(c.name) IN :names")
+    List<String> findExistingNameKeys(@Param("countryIds") Collection<Long> countryIds,
+                                      @Param("names") Collection<String> names);
 }
@@ -0,0 +1,231 @@
+package org.example.repository;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import javax.sql.DataSource;
+import org.example.dto.CityImportDto;
+import org.example.config.RequestDeadline;
+import org.example.dto.CountryImportDto;
+import org.postgresql.PGConnection;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Writes rows with PostgreSQL {@code COPY ... FROM STDIN}. Ids are taken from the same
+ * pooled-lo sequences Hibernate uses, so rows written here never collide with JPA inserts.
+ * On the embedded store, which has no {@code COPY}, the same rows go through one JDBC batch.
+ * These writes run outside a transaction, so instead of the transaction timeout they get the
+ * time left in the request's {@link RequestDeadline} as {@code statement_timeout} (COPY) or
+ * JDBC query timeout (batch); a cancelled write surfaces as {@link QueryTimeoutException}.
+ */
+@Repository
+public class CopyRepository {
+    private static final int ID_BLOCK_SIZE = 50;
+    private static final String QUERY_CANCELED = "57014";
+
+    private static final String COPY_CITIES =
+            "COPY city (id, name, population, area, country_id) FROM STDIN WITH (FORMAT csv)";
+    private static final String COPY_COUNTRIES =
+            "COPY country (id, name, capital, population, area, gdp) FROM STDIN WITH (FORMAT csv)";
+    private static final String INSERT_CITIES =
+            "INSERT INTO city (id, name, population, area, country_id) VALUES (?, ?, ?, ?, ?)";
+    private static final String INSERT_COUNTRIES =
+            "INSERT INTO country (id, name, capital, population, area, gdp)"
+                    + " VALUES (?, ?, ?, ?, ?, ?)";
+
+    private final DataSource dataSource;
+    private final DatabaseDialect dialect;
+
+    public CopyRepository(DataSource dataSource, DatabaseDialect dialect) {
+        this.dataSource = dataSource;
+        this.dialect = dialect;
+    }
+
+    public List<Long> reserveIds(String sequence, int count) {
+        int blocks = (count + ID_BLOCK_SIZE - 1) / ID_BLOCK_SIZE;
+        List<Long> ids = new ArrayList<>(blocks * ID_BLOCK_SIZE);
+        Connection connection = DataSourceUtils.getConnection(dataSource);
+        try (PreparedStatement statement = connection.prepareStatement(
+                "SELECT nextval(?) FROM generate_series(1, ?)")) {
+            statement.setString(1, sequence);
+            statement.setInt(2, blocks);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    long low = resultSet.getLong(1);
+                    for (int i = 0; i < ID_BLOCK_SIZE; i++) {
+                        ids.add(low + i);
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            throw new DataAccessResourceFailureException("Could not reserve ids from "
+                    + sequence, e);
+        } finally {
+            DataSourceUtils.releaseConnection(connection, dataSource);
+        }
+        return ids.subList(0, count);
+    }
+
+    public long copyCities(List<CityImportDto> cities, List<Long> ids) {
+        if (!dialect.isPostgres()) {
+            return insert(INSERT_CITIES, cities.size(), (statement, i) -> {
+                CityImportDto city = cities.get(i);
+                statement.setLong(1, ids.get(i));
+                statement.setString(2, city.getName());
+                statement.setObject(3, city.getPopulation(), Types.DOUBLE);
+                statement.setObject(4, city.getAreaSquareKm(), Types.DOUBLE);
+                statement.setObject(5, city.getCountryId(), Types.BIGINT);
+            });
+        }
+        StringBuilder csv = new StringBuilder(cities.size() * 48);
+        for (int i = 0; i < cities.size(); i++) {
+            CityImportDto city = cities.get(i);
+            csv.append(ids.get(i)).append(',');
+            appendText(csv, city.getName()).append(',');
+            appendValue(csv, city.getPopulation()).append(',');
+            appendValue(csv, city.getAreaSquareKm()).append(',');
+            appendValue(csv, city.getCountryId()).append('\n');
+        }
+        return copy(COPY_CITIES, csv);
+    }
+
+    public long copyCountries(List<CountryImportDto> countries, List<Long> ids) {
+        if (!dialect.isPostgres()) {
+            return insert(INSERT_COUNTRIES, countries.size(), (statement, i) -> {
+                CountryImportDto country = countries.get(i);
+                statement.setLong(1, ids.get(i));
+                statement.setString(2, country.getName());
+                statement.setString(3, country.getCapital());
+                statement.setObject(4, country.getPopulation(), Types.DOUBLE);
+                statement.setObject(5, country.getAreaSquareKm(), Types.DOUBLE);
+                statement.setObject(6, country.getGdp(), Types.DOUBLE);
+            });
+        }
+        StringBuilder csv = new StringBuilder(countries.size() * 64);
+        for (int i = 0; i < countries.size(); i++) {
+            CountryImportDto country = countries.get(i);
+            csv.append(ids.get(i)).append(',');
+            appendText(csv, country.getName()).append(',');
+            appendText(csv, country.getCapital()).append(',');
+            appendValue(csv, country.getPopulation()).append(',');
+            appendValue(csv, country.getAreaSquareKm()).append(',');
+            appendValue(csv, country.getGdp()).append('\n');
+        }
+        return copy(COPY_COUNTRIES, csv);
+    }
+
+    private long copy(String sql, CharSequence csv) {
+        long timeoutMillis = remainingMillis();
+        Connection connection = DataSourceUtils.getConnection(dataSource);
+        try {
+            if (timeoutMillis > 0) {
+                execute(connection, "SET statement_timeout = " + timeoutMillis);
+            }
+            return connection.unwrap(PGConnection.class).getCopyAPI()
+                    .copyIn(sql, new StringReader(csv.toString()));
+        } catch (SQLException e) {
+            throw translate("COPY failed: ", e);
+        } catch (IOException e) {
+            throw new DataAccessResourceFailureException("COPY failed: " + e.getMessage(), e);
+        } finally {
+            if (timeoutMillis > 0) {
+                resetStatementTimeout(connection);
+            }
+            DataSourceUtils.releaseConnection(connection, dataSource);
+        }
+    }
+
+    private long insert(String sql, int rows, RowSetter setter) {
+        long timeoutMillis = remainingMillis();
+        Connection connection = DataSourceUtils.getConnection(dataSource);
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            if (timeoutMillis > 0) {
+                statement.setQueryTimeout((int) Math.max(1, (timeoutMillis + 999) / 1000));
+            }
+            for (int i = 0; i < rows; i++) {
+                setter.set(statement, i);
+                statement.addBatch();
+            }
+            long inserted = 0;
+            for (int count : statement.executeBatch()) {
+                inserted += Math.max(count, 0);
+            }
+            return inserted;
+        } catch (SQLException e) {
+            throw translate("Batch insert failed: ", e);
+        } finally {
+            DataSourceUtils.releaseConnection(connection, dataSource);
+        }
+    }
+
+    /** Time left for the current request, {@code 0} when the thread serves none. */
+    private static long remainingMillis() {
+        RequestDeadline deadline = RequestDeadline.current();
+        if (deadline == null) {
+            return 0;
+        }
+        long remaining = deadline.remainingMillis();
+        if (remaining <= 0) {
+            throw new QueryTimeoutException("Request deadline exceeded before the write"
+                    + " started");
+        }
+        return remaining;
+    }
+
+    private static DataAccessException translate(String message, SQLException e) {
+        return QUERY_CANCELED.equals(e.getSQLState())
+                ? new QueryTimeoutException(message + e.getMessage(), e)
+                : new DataAccessResourceFailureException(message + e.getMessage(), e);
+    }
+
+    private static void execute(Connection connection, String sql) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+
+    // The connection goes back to the pool; a broken one is evicted there, so a failed reset
+    // needs no handling of its own.
+    private static void resetStatementTimeout(Connection connection) {
+        try {
+            execute(connection, "RESET statement_timeout");
+        } catch (SQLException ignored) {
+            // see above
+        }
+    }
+
+    private static StringBuilder appendText(StringBuilder csv, String value) {
+        if (value == null) {
+            return csv;
+        }
+        csv.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                csv.append('"');
+            }
+            csv.append(c);
+        }
+        return csv.append('"');
+    }
+
+    private static StringBuilder appendValue(StringBuilder csv, Object value) {
+        return value == null ? csv : csv.append(value);
+    }
+
+    @FunctionalInterface
+    private interface RowSetter {
+        void set(PreparedStatement statement, int index) throws SQLException;
+    }
+}
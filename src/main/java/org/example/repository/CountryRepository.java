@@ -1,10 +1,17 @@
 package org.example.repository;
 
+import jakarta.persistence.QueryHint;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 import org.example.model.Country;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
@@ -12,9 +19,58 @@ import org.springframework.stereotype.Repository;
 @Repository
 public interface CountryRepository extends JpaRepository<Country, Long> {
 
-    @Query(value = "SELECT * FROM Country WHERE name = ?1", nativeQuery = true)
+    @Query(value = "SELECT * FROM Country WHERE lower(name) = lower(?1)", nativeQuery = true)
     Optional<Country> findCountryByName(String name);
 
+    @Query("SELECT LOWER(c.name) FROM Country c WHERE LOWER(c.name) IN :names")
+    List<String> findExistingNames(@Param("names") Collection<String> names);
+
+    @Query("SELECT c.id, c.name FROM Country c")
+    List<Object[]> findAllIdsAndNames();
+
+    @Query("SELECT c.id, c.name, c.population FROM Country c")
+    List<Object[]> findAllSuggestionRows();
+
+    @Query("SELECT c.id, c.name, c.population FROM Country c"
+            + " WHERE LOWER(c.name) LIKE :pattern ESCAPE '\\'"
+            + " ORDER BY c.population DESC NULLS LAST, c.name, c.id")
+    List<Object[]> findSuggestionRowsByNameLike(@Param("pattern") String pattern,
+                                                Pageable pageable);
+
+    @Query("SELECT c.id FROM Country c")
+    List<Long> findAllIds();
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT c FROM Country c")
+    Stream<Country> streamAll();
+
+    @Query(value = "SELECT nation_id FROM country_nations WHERE country_id = :countryId",
+            nativeQuery = true)
+    List<Long> findNationIdsByCountryId(@Param("countryId") Long countryId);
+
+    @Query("SELECT c.id, c.name, c.population, c.areaSquareKm, c.gdp FROM Country c")
+    List<Object[]> findAllFigureRows();
+
+    @Query(value = "SELECT country_id, nation_id FROM country_nations", nativeQuery = true)
+    List<Object[]> findAllNationLinks();
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "DELETE FROM country_nations WHERE country_id = :countryId",
+            nativeQuery = true)
+    int deleteNationLinksByCountryId(@Param("countryId") Long countryId);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "DELETE FROM country_nations", nativeQuery = true)
+    int deleteAllNationLinks();
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM Country c WHERE c.id = :id")
+    int deleteCountryById(@Param("id") Long id);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM Country c")
+    int deleteAllCountries();
+
     @Query("SELECT DISTINCT c FROM Country c LEFT JOIN FETCH c.cities city"
             + " WHERE :cityId IN (SELECT ct.id "
             + "FROM Country c2 JOIN c2.cities ct WHERE c2 = c)")
@@ -28,16 +84,12 @@ public interface CountryRepository extends JpaRepository<Country, Long> {
     @Query("SELECT DISTINCT c FROM Country c LEFT JOIN FETCH c.cities")
     List<Country> findAllWithCities();
 
-    @Query("SELECT DISTINCT c FROM Country c LEFT JOIN FETCH "
-            + "c.nations LEFT JOIN FETCH c.cities WHERE c.id = :id")
-    Optional<Country> findCountryWithCitiesAndNationsById(@Param("id") Long id);
-
     @Query("SELECT DISTINCT c FROM Country c "
             + "LEFT JOIN FETCH c.nations WHERE c.id = :id")
     Optional<Country> findCountryWithNationsById(@Param("id") Long id);
 
-    @Query("SELECT c FROM Country c LEFT JOIN FETCH c.cities WHERE c.id = :id")
-    Optional<Country> findCountryWithCitiesById(@Param("id") Long id);
+    @Query("SELECT DISTINCT c FROM Country c LEFT JOIN FETCH c.nations WHERE c.id IN :ids")
+    List<Country> findAllWithNationsByIdIn(@Param("ids") Collection<Long> ids);
 
     @Query("SELECT DISTINCT c FROM Country c LEFT JOIN FETCH c.nations n "
             + "WHERE EXISTS (SELECT 1 FROM Nation n2 "
@@ -0,0 +1,38 @@
+package org.example.repository;
+
+import java.sql.DatabaseMetaData;
+import java.util.Locale;
+import javax.sql.DataSource;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.MetaDataAccessException;
+import org.springframework.stereotype.Component;
+
+/**
+ * Tells the JDBC repositories whether they run against PostgreSQL or the embedded H2 store
+ * of the {@code embedded} profile, for the few statements that differ ({@code COPY},
+ * {@code UPDATE ... RETURNING}, identity sequences). Resolved once, on first use.
+ */
+@Component
+public class DatabaseDialect {
+    private final DataSource dataSource;
+    private volatile Boolean postgres;
+
+    public DatabaseDialect(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    public boolean isPostgres() {
+        Boolean resolved = postgres;
+        if (resolved == null) {
+            try {
+                String product = JdbcUtils.extractDatabaseMetaData(dataSource,
+                        DatabaseMetaData::getDatabaseProductName);
+                resolved = product != null && product.toLowerCase(Locale.ROOT).contains("postgres");
+            } catch (MetaDataAccessException e) {
+                resolved = true;
+            }
+            postgres = resolved;
+        }
+        return resolved;
+    }
+}
@@ -0,0 +1,61 @@
+package org.example.repository;
+
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.example.model.Nation;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * JDBC batches for adding many nations to a country at once. Both statements skip rows
+ * that already exist, so concurrent requests adding the same nation do not fail.
+ */
+@Repository
+public class NationBatchRepository {
+
+    private static final String INSERT_NATION = "INSERT INTO nation (name, language, religion)"
+            + " VALUES (?, ?, ?) ON CONFLICT DO NOTHING";
+    private static final String INSERT_LINK = "INSERT INTO country_nations"
+            + " (country_id, nation_id) VALUES (?, ?) ON CONFLICT DO NOTHING";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public NationBatchRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /** Inserts the nations that do not exist yet and returns those it inserted. */
+    public List<Nation> insertMissing(List<Nation> nations) {
+        int[][] counts = jdbcTemplate.batchUpdate(INSERT_NATION, nations, nations.size(),
+                (ps, nation) -> {
+                    ps.setString(1, nation.getName());
+                    ps.setString(2, nation.getLanguage());
+                    ps.setString(3, nation.getReligion());
+                });
+        List<Nation> inserted = new ArrayList<>();
+        int row = 0;
+        for (int[] batch : counts) {
+            for (int count : batch) {
+                if (count > 0 || count == Statement.SUCCESS_NO_INFO) {
+                    inserted.add(nations.get(row));
+                }
+                row++;
+            }
+        }
+        return inserted;
+    }
+
+    public int linkToCountry(Long countryId, List<Long> nationIds) {
+        return sum(jdbcTemplate.batchUpdate(INSERT_LINK, nationIds, nationIds.size(),
+                (ps, nationId) -> {
+                    ps.setLong(1, countryId);
+                    ps.setLong(2, nationId);
+                }));
+    }
+
+    private static int sum(int[][] counts) {
+        return Arrays.stream(counts).flatMapToInt(Arrays::stream).map(c -> Math.max(c, 0)).sum();
+    }
+}
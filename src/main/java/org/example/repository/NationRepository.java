@@ -1,16 +1,45 @@
 package org.example.repository;
 
+import jakarta.persistence.QueryHint;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 import org.example.model.Nation;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 @Repository
 public interface NationRepository extends JpaRepository<Nation, Long> {
 
-    Nation findNationByName(String name);
+    @Query("SELECT n FROM Nation n WHERE LOWER(n.name) = LOWER(:name)")
+    Nation findNationByName(@Param("name") String name);
+
+    @Query("SELECT n FROM Nation n WHERE LOWER(n.name) IN :names")
+    List<Nation> findAllByNameIn(@Param("names") Collection<String> names);
+
+    @Query("SELECT n.id, n.name FROM Nation n")
+    List<Object[]> findAllIdsAndNames();
+
+    @Query("SELECT n.id, n.language FROM Nation n")
+    List<Object[]> findAllIdsAndLanguages();
+
+    @Query("SELECT n.id, n.name FROM Nation n WHERE LOWER(n.name) LIKE :pattern ESCAPE '\\'"
+            + " ORDER BY n.name, n.id")
+    List<Object[]> findSuggestionRowsByNameLike(@Param("pattern") String pattern,
+                                                Pageable pageable);
+
+    @Query(value = "SELECT n.name FROM nation n JOIN country_nations cn ON cn.nation_id = n.id"
+            + " WHERE cn.country_id = :countryId AND lower(n.name) IN :names",
+            nativeQuery = true)
+    List<String> findLinkedNames(@Param("countryId") Long countryId,
+                                 @Param("names") Collection<String> names);
 
     @Query("SELECT n FROM Nation n LEFT JOIN FETCH n.countries c "
             + "LEFT JOIN FETCH c.cities "
@@ -20,4 +49,25 @@ public interface NationRepository extends JpaRepository<Nation, Long> {
     @Query("SELECT n FROM Nation n "
             + "LEFT JOIN FETCH n.countries WHERE n.id = :id")
     Optional<Nation> findByIdWithCountries(@Param("id") Long id);
+
+    @Query("SELECT DISTINCT n FROM Nation n "
+            + "LEFT JOIN FETCH n.countries WHERE n.id IN :ids")
+    List<Nation> findAllWithCountriesByIdIn(@Param("ids") Collection<Long> ids);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT n FROM Nation n")
+    Stream<Nation> streamAll();
+
+    @Query(value = "SELECT country_id FROM country_nations WHERE nation_id = :nationId",
+            nativeQuery = true)
+    List<Long> findCountryIdsByNationId(@Param("nationId") Long nationId);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "DELETE FROM country_nations WHERE nation_id = :nationId",
+            nativeQuery = true)
+    int deleteCountryLinksByNationId(@Param("nationId") Long nationId);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM Nation n WHERE n.id = :id")
+    int deleteNationById(@Param("id") Long id);
 }
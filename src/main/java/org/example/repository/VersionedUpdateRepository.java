@@ -0,0 +1,147 @@
+package org.example.repository;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.Optional;
+import org.example.dto.CityDto;
+import org.example.dto.CountryDto;
+import org.example.dto.NationDto;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.SqlParameterValue;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Partial updates as a single conditional {@code UPDATE ... RETURNING}. A {@code null} (or
+ * empty text) field keeps the stored value, the row is only touched when its version still
+ * matches, and name conflicts surface as
+ * {@link org.springframework.dao.DuplicateKeyException} from the unique constraints. An empty
+ * result means the row is missing or the version is stale.
+ */
+@Repository
+public class VersionedUpdateRepository {
+
+    private static final String SET_COUNTRY = "UPDATE country SET"
+            + " name = COALESCE(?, name), capital = COALESCE(?, capital),"
+            + " population = COALESCE(?, population), area = COALESCE(?, area),"
+            + " gdp = COALESCE(?, gdp), version = version + 1";
+    private static final String UPDATE_COUNTRY = SET_COUNTRY + " WHERE id = ? AND version = ?";
+    private static final String OVERWRITE_COUNTRY = SET_COUNTRY + " WHERE id = ?";
+    private static final String COUNTRY_COLUMNS = "id, name, capital, population, area, gdp,"
+            + " version";
+    private static final String PATCH_COUNTRY = UPDATE_COUNTRY + " RETURNING "
+            + COUNTRY_COLUMNS;
+    private static final String PUT_COUNTRY = OVERWRITE_COUNTRY + " RETURNING "
+            + COUNTRY_COLUMNS;
+
+    private static final String UPDATE_CITY = "UPDATE city SET"
+            + " name = COALESCE(?, name), population = COALESCE(?, population),"
+            + " area = COALESCE(?, area), version = version + 1"
+            + " WHERE id = ? AND version = ?";
+    private static final String CITY_WITH_COUNTRY = "SELECT u.id, u.name, u.population, u.area,"
+            + " u.version, c.id AS country_id,"
+            + " c.name AS country_name, c.capital AS country_capital,"
+            + " c.population AS country_population, c.area AS country_area,"
+            + " c.gdp AS country_gdp, c.version AS country_version";
+    private static final String PATCH_CITY = "WITH updated AS (" + UPDATE_CITY
+            + " RETURNING id, name, population, area, version, country_id) "
+            + CITY_WITH_COUNTRY + " FROM updated u LEFT JOIN country c ON c.id = u.country_id";
+
+    private static final String UPDATE_NATION = "UPDATE nation SET"
+            + " name = COALESCE(?, name), language = COALESCE(?, language),"
+            + " religion = COALESCE(?, religion), version = version + 1"
+            + " WHERE id = ? AND version = ?";
+    private static final String NATION_COLUMNS = "id, name, language, religion, version";
+    private static final String PATCH_NATION = UPDATE_NATION + " RETURNING " + NATION_COLUMNS;
+
+    // The embedded H2 store has no RETURNING; it reads the updated rows from FINAL TABLE.
+    private static final String EMBEDDED_PATCH_COUNTRY = "SELECT " + COUNTRY_COLUMNS
+            + " FROM FINAL TABLE (" + UPDATE_COUNTRY + ")";
+    private static final String EMBEDDED_PUT_COUNTRY = "SELECT " + COUNTRY_COLUMNS
+            + " FROM FINAL TABLE (" + OVERWRITE_COUNTRY + ")";
+    private static final String EMBEDDED_PATCH_CITY = CITY_WITH_COUNTRY
+            + " FROM FINAL TABLE (" + UPDATE_CITY + ") u LEFT JOIN country c"
+            + " ON c.id = u.country_id";
+    private static final String EMBEDDED_PATCH_NATION = "SELECT " + NATION_COLUMNS
+            + " FROM FINAL TABLE (" + UPDATE_NATION + ")";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DatabaseDialect dialect;
+
+    public VersionedUpdateRepository(JdbcTemplate jdbcTemplate, DatabaseDialect dialect) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.dialect = dialect;
+    }
+
+    public Optional<CountryDto> patchCountry(Long id, Long version, String name,
+                                             String capital, Double population,
+                                             Double areaSquareKm, Double gdp) {
+        String sql = dialect.isPostgres() ? PATCH_COUNTRY : EMBEDDED_PATCH_COUNTRY;
+        return jdbcTemplate.query(sql, (rs, rowNum) -> mapCountry(rs, ""),
+                text(name), text(capital), number(population), number(areaSquareKm),
+                number(gdp), id, version).stream().findFirst();
+    }
+
+    /** Same as {@link #patchCountry} for the last-writer-wins PUT: no version check. */
+    public Optional<CountryDto> updateCountry(Long id, String name, String capital,
+                                              Double population, Double areaSquareKm,
+                                              Double gdp) {
+        String sql = dialect.isPostgres() ? PUT_COUNTRY : EMBEDDED_PUT_COUNTRY;
+        return jdbcTemplate.query(sql, (rs, rowNum) -> mapCountry(rs, ""),
+                text(name), text(capital), number(population), number(areaSquareKm),
+                number(gdp), id).stream().findFirst();
+    }
+
+    public Optional<CityDto> patchCity(Long id, Long version, String name, Double population,
+                                       Double areaSquareKm) {
+        String sql = dialect.isPostgres() ? PATCH_CITY : EMBEDDED_PATCH_CITY;
+        return jdbcTemplate.query(sql, (rs, rowNum) -> {
+            CityDto dto = new CityDto();
+            dto.setId(rs.getLong("id"));
+            dto.setName(rs.getString("name"));
+            dto.setPopulation(rs.getObject("population", Double.class));
+            dto.setAreaSquareKm(rs.getObject("area", Double.class));
+            dto.setVersion(rs.getLong("version"));
+            if (rs.getObject("country_id") != null) {
+                dto.setCountry(mapCountry(rs, "country_"));
+            }
+            return dto;
+        }, text(name), number(population), number(areaSquareKm), id, version)
+                .stream().findFirst();
+    }
+
+    public Optional<NationDto> patchNation(Long id, Long version, String name,
+                                           String language, String religion) {
+        String sql = dialect.isPostgres() ? PATCH_NATION : EMBEDDED_PATCH_NATION;
+        return jdbcTemplate.query(sql, (rs, rowNum) -> {
+            NationDto dto = new NationDto();
+            dto.setId(rs.getLong("id"));
+            dto.setName(rs.getString("name"));
+            dto.setLanguage(rs.getString("language"));
+            dto.setReligion(rs.getString("religion"));
+            dto.setVersion(rs.getLong("version"));
+            return dto;
+        }, text(name), text(language), text(religion), id, version).stream().findFirst();
+    }
+
+    private static CountryDto mapCountry(ResultSet rs, String prefix) throws SQLException {
+        CountryDto dto = new CountryDto();
+        dto.setId(rs.getLong(prefix + "id"));
+        dto.setName(rs.getString(prefix + "name"));
+        dto.setCapital(rs.getString(prefix + "capital"));
+        dto.setPopulation(rs.getObject(prefix + "population", Double.class));
+        dto.setAreaSquareKm(rs.getObject(prefix + "area", Double.class));
+        dto.setGdp(rs.getObject(prefix + "gdp", Double.class));
+        dto.setVersion(rs.getLong(prefix + "version"));
+        return dto;
+    }
+
+    private static SqlParameterValue text(String value) {
+        return new SqlParameterValue(Types.VARCHAR,
+                value == null || value.isEmpty() ? null : value);
+    }
+
+    private static SqlParameterValue number(Double value) {
+        return new SqlParameterValue(Types.DOUBLE, value);
+    }
+}
@@ -0,0 +1,55 @@
+package org.example.service;
+
+import java.util.List;
+import lombok.AllArgsConstructor;
+import org.example.cache.AggregateCounters;
+import org.example.dto.AggregateTotalsDto;
+import org.example.dto.CountryAggregateDto;
+import org.example.dto.NationAggregateDto;
+import org.example.exception.ObjectNotFoundException;
+import org.example.exception.ServiceUnavailableException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+/**
+ * Roll-ups for {@code /api/aggregates}, answered from {@link AggregateCounters} only. Until
+ * the counters have been built the reads fail with 503 instead of scanning the tables.
+ */
+@Service
+@AllArgsConstructor
+public class AggregateService {
+    private static final Logger logger = LoggerFactory.getLogger(AggregateService.class);
+
+    private final AggregateCounters aggregateCounters;
+
+    public AggregateTotalsDto getTotals() {
+        return aggregateCounters.totals().orElseThrow(AggregateService::notReady);
+    }
+
+    public List<CountryAggregateDto> getCountryAggregates(List<Long> ids) {
+        return aggregateCounters.countries(ids).orElseThrow(AggregateService::notReady);
+    }
+
+    public CountryAggregateDto getCountryAggregate(Long countryId) {
+        return getCountryAggregates(List.of(countryId)).stream()
+                .findFirst()
+                .orElseThrow(() -> new ObjectNotFoundException("Country not found"));
+    }
+
+    public List<NationAggregateDto> getNationAggregates() {
+        return aggregateCounters.nations().orElseThrow(AggregateService::notReady);
+    }
+
+    public AggregateTotalsDto rebuild() {
+        if (!aggregateCounters.rebuildNow()) {
+            throw new ServiceUnavailableException("Aggregate rebuild failed");
+        }
+        logger.info("🔄 Aggregates rebuilt on request");
+        return getTotals();
+    }
+
+    private static ServiceUnavailableException notReady() {
+        return new ServiceUnavailableException("Aggregates are being built");
+    }
+}
@@ -0,0 +1,397 @@
+package org.example.service;
+
+import java.sql.Savepoint;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import org.example.cache.SearchCache;
+import org.example.dto.BatchOperationDto;
+import org.example.dto.BatchOperationDto.Action;
+import org.example.dto.BatchOperationDto.Entity;
+import org.example.dto.BatchReportDto;
+import org.example.dto.BatchReportDto.OperationResult;
+import org.example.event.FiguresChangedEvent;
+import org.example.event.NameChangedEvent;
+import org.example.event.NamesReloadEvent;
+import org.example.event.NationLanguageChangedEvent;
+import org.example.event.NationLinkChangedEvent;
+import org.example.model.City;
+import org.example.repository.BatchMutationRepository;
+import org.example.repository.CopyRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Applies an ordered list of create/update/delete operations in one transaction. Consecutive
+ * operations on the same entity with the same action form a run that is written as one JDBC
+ * batch under a savepoint; when a run hits a constraint violation it is rolled back to the
+ * savepoint and replayed one operation at a time to find the offending entries. Cache keys
+ * and prefixes touched by the applied operations are collected and removed once after commit.
+ * City updates and deletes read back each city's country, so they publish per-city events and
+ * drop that country's keys instead of forcing a full city name reload.
+ *
+ * <p>In atomic mode the first failing operation rolls the whole batch back; otherwise failed
+ * operations are reported and the rest is committed.
+ */
+@Service
+public class BatchService {
+    private static final Logger logger = LoggerFactory.getLogger(BatchService.class);
+
+    public static final int MAX_OPERATIONS = 1000;
+
+    private static final String COUNTRY_PREFIX = "country_";
+    private static final String ALL_COUNTRIES = "all_countries";
+    private static final String ALL_COUNTRIES_BY_NATION = "allCountries";
+    private static final String COUNTRIES_BY_NATION_PREFIX = "countries_nation_";
+    private static final String ALL_COUNTRIES_BY_NATION_ID = "allCountriesByNationId_";
+    private static final String CITY_PREFIX = "city_";
+    private static final String ALL_CITIES = "allCities";
+    private static final String CITIES_BY_COUNTRY_PREFIX = "cities_country_";
+    private static final String ALL_CITIES_BY_COUNTRY_ID = "allCitiesByCountryId_";
+    private static final String COUNTRY_ID = "countryId_";
+    private static final String ALL_NATIONS = "allNations";
+    private static final String ALL_NATIONS_BY_COUNTRY_ID = "allNationsByCountryId_";
+
+    private final BatchMutationRepository batchRepository;
+    private final CopyRepository copyRepository;
+    private final SearchCache searchCache;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+
+    public BatchService(BatchMutationRepository batchRepository, CopyRepository copyRepository,
+                        SearchCache searchCache, ApplicationEventPublisher eventPublisher,
+                        PlatformTransactionManager transactionManager) {
+        this.batchRepository = batchRepository;
+        this.copyRepository = copyRepository;
+        this.searchCache = searchCache;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    public BatchReportDto execute(List<BatchOperationDto> operations, boolean atomic) {
+        if (operations == null || operations.isEmpty()) {
+            throw new IllegalArgumentException("Batch is empty");
+        }
+        if (operations.size() > MAX_OPERATIONS) {
+            throw new IllegalArgumentException("At most " + MAX_OPERATIONS
+                    + " operations per batch");
+        }
+        long started = System.currentTimeMillis();
+        OperationResult[] results = new OperationResult[operations.size()];
+        boolean invalid = false;
+        for (int i = 0; i < operations.size(); i++) {
+            String error = validate(operations.get(i));
+            if (error != null) {
+                results[i] = new OperationResult(i, HttpStatus.BAD_REQUEST.value(),
+                        operations.get(i) == null ? null : operations.get(i).getId(), error);
+                invalid = true;
+            }
+        }
+
+        Invalidation invalidation = new Invalidation();
+        boolean committed = !(atomic && invalid) && Boolean.TRUE.equals(
+                transactionTemplate.execute(status -> {
+                    for (Run run : runs(operations, results)) {
+                        if (!apply(run, operations, results, invalidation) && atomic) {
+                            status.setRollbackOnly();
+                            return false;
+                        }
+                    }
+                    return true;
+                }));
+        if (committed) {
+            searchCache.removeAll(invalidation.keys, invalidation.prefixes);
+        }
+
+        BatchReportDto report = new BatchReportDto();
+        report.setAtomic(atomic);
+        report.setCommitted(committed);
+        for (int i = 0; i < results.length; i++) {
+            OperationResult result = results[i];
+            if (result == null) {
+                result = new OperationResult(i, HttpStatus.FAILED_DEPENDENCY.value(),
+                        operations.get(i).getId(), "Not applied, batch was rejected");
+            } else if (!committed && result.getStatus() < 300) {
+                result.setStatus(HttpStatus.FAILED_DEPENDENCY.value());
+                result.setMessage("Rolled back, batch was rejected");
+            }
+            if (result.getStatus() < 300) {
+                report.setApplied(report.getApplied() + 1);
+            } else {
+                report.setFailed(report.getFailed() + 1);
+            }
+            report.getResults().add(result);
+        }
+        report.setElapsedMillis(System.currentTimeMillis() - started);
+        logger.info("📦 Batch of {} operations {} in {} ms: {} applied, {} failed ({} cache"
+                        + " keys, {} prefixes invalidated)", operations.size(),
+                committed ? "committed" : "rolled back", report.getElapsedMillis(),
+                report.getApplied(), report.getFailed(), invalidation.keys.size(),
+                invalidation.prefixes.size());
+        return report;
+    }
+
+    private static String validate(BatchOperationDto operation) {
+        if (operation == null || operation.getAction() == null
+                || operation.getEntity() == null) {
+            return "Action and entity are required";
+        }
+        if (operation.getAction() == Action.CREATE) {
+            if (operation.getName() == null || operation.getName().isBlank()) {
+                return "Name is required";
+            }
+            if (operation.getEntity() == Entity.CITY && operation.getCountryId() == null) {
+                return "Country ID is required to create a city";
+            }
+        }
+        if (operation.getEntity() == Entity.CITY && operation.getName() != null
+                && operation.getName().length() > City.MAX_NAME_LENGTH) {
+            return "City name cannot be longer than " + City.MAX_NAME_LENGTH + " characters";
+        }
+        if (operation.getAction() != Action.CREATE && operation.getId() == null) {
+            return "ID is required to " + operation.getAction().name().toLowerCase(Locale.ROOT)
+                    + " a " + operation.getEntity().name().toLowerCase(Locale.ROOT);
+        }
+        return null;
+    }
+
+    private static List<Run> runs(List<BatchOperationDto> operations, OperationResult[] results) {
+        List<Run> runs = new ArrayList<>();
+        Run current = null;
+        for (int i = 0; i < operations.size(); i++) {
+            if (results[i] != null) {
+                continue;
+            }
+            BatchOperationDto operation = operations.get(i);
+            if (current == null || current.action != operation.getAction()
+                    || current.entity != operation.getEntity()) {
+                current = new Run(operation.getAction(), operation.getEntity());
+                runs.add(current);
+            }
+            current.indexes.add(i);
+        }
+        return runs;
+    }
+
+    private boolean apply(Run run, List<BatchOperationDto> operations, OperationResult[] results,
+                          Invalidation invalidation) {
+        List<BatchOperationDto> batch = run.indexes.stream().map(operations::get).toList();
+        List<Long> ids = run.action == Action.CREATE
+                ? reserveIds(run.entity, batch.size())
+                : batch.stream().map(BatchOperationDto::getId).toList();
+
+        int[] counts = new int[batch.size()];
+        Object[][] cities = new Object[batch.size()][];
+        RuntimeException[] errors = new RuntimeException[batch.size()];
+        try {
+            counts = write(run, batch, ids, cities, 0);
+        } catch (DataIntegrityViolationException e) {
+            logger.warn("⚠️ Batch run of {} {} {} failed, replaying one by one: {}",
+                    batch.size(), run.action, run.entity, e.getMostSpecificCause().getMessage());
+            for (int j = 0; j < batch.size(); j++) {
+                try {
+                    counts[j] = write(run, List.of(batch.get(j)), List.of(ids.get(j)), cities,
+                            j)[0];
+                } catch (DataIntegrityViolationException single) {
+                    errors[j] = single;
+                }
+            }
+        }
+
+        Set<Long> existing = new HashSet<>();
+        List<Long> unmatched = new ArrayList<>();
+        for (int j = 0; j < batch.size(); j++) {
+            if (errors[j] == null && counts[j] == 0 && batch.get(j).getVersion() != null) {
+                unmatched.add(ids.get(j));
+            }
+        }
+        if (!unmatched.isEmpty()) {
+            existing.addAll(batchRepository.findExistingIds(run.entity, unmatched));
+        }
+
+        boolean succeeded = true;
+        for (int j = 0; j < batch.size(); j++) {
+            int index = run.indexes.get(j);
+            Long id = ids.get(j);
+            if (errors[j] != null) {
+                results[index] = new OperationResult(index, HttpStatus.CONFLICT.value(), id,
+                        errors[j] instanceof DuplicateKeyException
+                                ? capitalize(run.entity) + " name exists"
+                                : "Violates a uniqueness or reference constraint");
+                succeeded = false;
+            } else if (counts[j] == 0) {
+                results[index] = existing.contains(id)
+                        ? new OperationResult(index, HttpStatus.CONFLICT.value(), id,
+                                "Version " + batch.get(j).getVersion() + " is stale")
+                        : new OperationResult(index, HttpStatus.NOT_FOUND.value(), id,
+                                capitalize(run.entity) + " not found");
+                succeeded = false;
+            } else {
+                results[index] = new OperationResult(index, run.action == Action.CREATE
+                        ? HttpStatus.CREATED.value() : HttpStatus.OK.value(), id, null);
+                applied(run, batch.get(j), id, cities[j], invalidation);
+            }
+        }
+        return succeeded;
+    }
+
+    /**
+     * Writes {@code batch}; city updates and deletes also store the rows they read back into
+     * {@code cities}, starting at {@code from}.
+     */
+    private int[] write(Run run, List<BatchOperationDto> batch, List<Long> ids,
+                        Object[][] cities, int from) {
+        Savepoint savepoint = batchRepository.savepoint();
+        try {
+            int[] counts = switch (run.action) {
+                case CREATE -> switch (run.entity) {
+                    case COUNTRY -> batchRepository.insertCountries(batch, ids);
+                    case CITY -> batchRepository.insertCities(batch, ids);
+                    case NATION -> batchRepository.insertNations(batch, ids);
+                };
+                case UPDATE -> switch (run.entity) {
+                    case COUNTRY -> batchRepository.updateCountries(batch);
+                    case CITY -> counts(batchRepository.updateCities(batch), cities, from);
+                    case NATION -> batchRepository.updateNations(batch);
+                };
+                case DELETE -> switch (run.entity) {
+                    case COUNTRY -> batchRepository.deleteCountries(batch);
+                    case CITY -> counts(batchRepository.deleteCities(batch), cities, from);
+                    case NATION -> batchRepository.deleteNations(batch);
+                };
+            };
+            batchRepository.release(savepoint);
+            return counts;
+        } catch (DataIntegrityViolationException e) {
+            batchRepository.rollbackTo(savepoint);
+            throw e;
+        }
+    }
+
+    private static int[] counts(List<Object[]> rows, Object[][] cities, int from) {
+        int[] counts = new int[rows.size()];
+        for (int i = 0; i < rows.size(); i++) {
+            cities[from + i] = rows.get(i);
+            counts[i] = rows.get(i) == null ? 0 : 1;
+        }
+        return counts;
+    }
+
+    private List<Long> reserveIds(Entity entity, int count) {
+        return switch (entity) {
+            case COUNTRY -> copyRepository.reserveIds("country_seq", count);
+            case CITY -> copyRepository.reserveIds("city_seq", count);
+            case NATION -> batchRepository.reserveNationIds(count);
+        };
+    }
+
+    private void applied(Run run, BatchOperationDto operation, Long id, Object[] city,
+                         Invalidation invalidation) {
+        String name = run.action == Action.DELETE ? null : operation.getName();
+        boolean renamed = run.action == Action.DELETE || (name != null && !name.isEmpty());
+        Long countryId = operation.getCountryId();
+        switch (run.entity) {
+            case COUNTRY -> {
+                if (renamed) {
+                    eventPublisher.publishEvent(NameChangedEvent.country(id, name));
+                }
+                if (run.action == Action.DELETE) {
+                    eventPublisher.publishEvent(NamesReloadEvent.cities(id));
+                } else {
+                    eventPublisher.publishEvent(FiguresChangedEvent.country(id,
+                            operation.getPopulation(), operation.getAreaSquareKm(),
+                            operation.getGdp()));
+                }
+                invalidation.addKeys(COUNTRY_PREFIX + id, ALL_COUNTRIES, ALL_COUNTRIES_BY_NATION,
+                        ALL_CITIES, CITIES_BY_COUNTRY_PREFIX + id, ALL_CITIES_BY_COUNTRY_ID + id,
+                        COUNTRY_ID + id, ALL_NATIONS_BY_COUNTRY_ID + id);
+                invalidation.addPrefixes(COUNTRIES_BY_NATION_PREFIX, ALL_COUNTRIES_BY_NATION_ID,
+                        CITY_PREFIX);
+            }
+            case CITY -> {
+                invalidation.addKeys(CITY_PREFIX + id, ALL_CITIES);
+                if (run.action == Action.CREATE) {
+                    eventPublisher.publishEvent(NameChangedEvent.city(id, countryId, name));
+                    eventPublisher.publishEvent(FiguresChangedEvent.city(id,
+                            operation.getPopulation(), operation.getAreaSquareKm()));
+                } else {
+                    countryId = (Long) city[0];
+                    if (run.action == Action.DELETE) {
+                        eventPublisher.publishEvent(NameChangedEvent.city(id, countryId, null));
+                    } else {
+                        if (renamed) {
+                            eventPublisher.publishEvent(NameChangedEvent.city(id, countryId,
+                                    (String) city[1]));
+                        }
+                        eventPublisher.publishEvent(FiguresChangedEvent.city(id,
+                                (Double) city[2], (Double) city[3]));
+                    }
+                }
+                if (countryId != null) {
+                    invalidation.addKeys(CITIES_BY_COUNTRY_PREFIX + countryId,
+                            ALL_CITIES_BY_COUNTRY_ID + countryId, COUNTRY_ID + countryId,
+                            COUNTRY_PREFIX + countryId);
+                }
+            }
+            case NATION -> {
+                if (renamed) {
+                    eventPublisher.publishEvent(NameChangedEvent.nation(id, name));
+                }
+                String language = operation.getLanguage();
+                if (run.action != Action.DELETE && language != null && !language.isEmpty()) {
+                    eventPublisher.publishEvent(new NationLanguageChangedEvent(id, language));
+                }
+                invalidation.addKeys(ALL_NATIONS, ALL_COUNTRIES_BY_NATION,
+                        ALL_COUNTRIES_BY_NATION_ID + id);
+                if (run.action == Action.CREATE) {
+                    if (countryId != null) {
+                        eventPublisher.publishEvent(NationLinkChangedEvent.linked(countryId, id));
+                        invalidation.addKeys(ALL_NATIONS_BY_COUNTRY_ID + countryId,
+                                COUNTRY_ID + countryId);
+                    }
+                } else {
+                    invalidation.addPrefixes(ALL_NATIONS_BY_COUNTRY_ID, COUNTRY_ID);
+                }
+            }
+        }
+    }
+
+    private static String capitalize(Entity entity) {
+        String name = entity.name().toLowerCase(Locale.ROOT);
+        return Character.toUpperCase(name.charAt(0)) + name.substring(1);
+    }
+
+    private static final class Run {
+        final Action action;
+        final Entity entity;
+        final List<Integer> indexes = new ArrayList<>();
+
+        Run(Action action, Entity entity) {
+            this.action = action;
+            this.entity = entity;
+        }
+    }
+
+    /** Deduplicated cache keys and prefixes to drop once the batch is committed. */
+    private static final class Invalidation {
+        final Set<String> keys = new HashSet<>();
+        final Set<String> prefixes = new HashSet<>();
+
+        void addKeys(String... values) {
+            keys.addAll(List.of(values));
+        }
+
+        void addPrefixes(String... values) {
+            prefixes.addAll(List.of(values));
+        }
+    }
+}
@@ -0,0 +1,405 @@
+package org.example.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.example.cache.NameDictionary;
+import org.example.cache.SearchCache;
+import org.example.dto.CityDto;
+import org.example.dto.CityImportDto;
+import org.example.event.FiguresChangedEvent;
+import org.example.event.NameChangedEvent;
+import org.example.exception.ObjectExistedException;
+import org.example.exception.ObjectNotFoundException;
+import org.example.exception.TooManyRequestsException;
+import org.example.model.City;
+import org.example.repository.BatchMutationRepository;
+import org.example.repository.CityRepository;
+import org.example.repository.CopyRepository;
+import org.example.repository.CountryRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Write-behind ingestion for {@code POST /api/countries/{countryId}/cities?async=true}.
+ * Requests are validated like the synchronous path, get ids from a locally reserved block of
+ * {@code city_seq} and are put on a bounded queue; a full queue is rejected with 429. A single
+ * writer drains the queue every few milliseconds and commits each drained group with one JDBC
+ * batch, then applies the name dictionary updates and cache invalidations for the group.
+ * A group the database rejects for a constraint violation is replayed one city at a time and
+ * the offending cities are dropped. A group whose commit fails for any other reason is kept
+ * and retried with a growing delay, so accepted cities are not lost to a transient database
+ * error; meanwhile new requests fill the queue and are eventually rejected with 429. A name
+ * waiting in the queue is reserved atomically, so two requests for the same city in a
+ * country cannot both be accepted.
+ *
+ * <p>Publishes {@code city.ingest.latency} (enqueue to commit), {@code city.ingest.batch.size},
+ * {@code city.ingest.queue.size} and {@code city.ingest.skipped} (rows dropped at write time
+ * because the country was deleted, the name was taken in the meantime or the database
+ * rejected the row).
+ */
+@Service
+public class CityIngestService {
+    private static final Logger logger = LoggerFactory.getLogger(CityIngestService.class);
+
+    private static final String CITY_SEQUENCE = "city_seq";
+    private static final int ID_BLOCK_SIZE = 50;
+    private static final long MAX_RETRY_DELAY_MILLIS = 1000;
+
+    private static final String ALL_CITIES = "allCities";
+    private static final String COUNTRY_PREFIX = "country_";
+    private static final String CITIES_BY_COUNTRY_PREFIX = "cities_country_";
+    private static final String ALL_CITIES_BY_COUNTRY_ID = "allCitiesByCountryId_";
+    private static final String COUNTRY_ID = "countryId_";
+
+    private final CountryRepository countryRepository;
+    private final CityRepository cityRepository;
+    private final BatchMutationRepository batchRepository;
+    private final CopyRepository copyRepository;
+    private final NameDictionary nameDictionary;
+    private final SearchCache searchCache;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+
+    private final BlockingQueue<PendingCity> queue;
+    private final int maxBatchSize;
+    private final Deque<Long> reservedIds = new ArrayDeque<>();
+    private final Set<String> pendingNames = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService writer;
+
+    // Owned by the writer thread: the group being written and the retry state after a failure
+    private final List<PendingCity> unwritten = new ArrayList<>();
+    private int failedAttempts;
+    private long retryAt;
+
+    private final Timer latency;
+    private final DistributionSummary batchSizes;
+    private final Counter skipped;
+
+    @SuppressWarnings("checkstyle:ParameterNumber")
+    public CityIngestService(CountryRepository countryRepository, CityRepository cityRepository,
+                             BatchMutationRepository batchRepository,
+                             CopyRepository copyRepository, NameDictionary nameDictionary,
+                             SearchCache searchCache, ApplicationEventPublisher eventPublisher,
+                             PlatformTransactionManager transactionManager,
+                             MeterRegistry meterRegistry,
+                             @Value("${app.city-ingest.queue-capacity:10000}") int queueCapacity,
+                             @Value("${app.city-ingest.flush-interval-millis:5}")
+                             long flushIntervalMillis,
+                             @Value("${app.city-ingest.max-batch-size:500}") int maxBatchSize) {
+        this.countryRepository = countryRepository;
+        this.cityRepository = cityRepository;
+        this.batchRepository = batchRepository;
+        this.copyRepository = copyRepository;
+        this.nameDictionary = nameDictionary;
+        this.searchCache = searchCache;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+
+        this.latency = Timer.builder("city.ingest.latency")
+                .description("Time from accepting a city to committing it")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.batchSizes = DistributionSummary.builder("city.ingest.batch.size")
+                .description("Cities committed per group commit")
+                .register(meterRegistry);
+        this.skipped = Counter.builder("city.ingest.skipped")
+                .description("Accepted cities dropped at write time")
+                .register(meterRegistry);
+        Gauge.builder("city.ingest.queue.size", queue, BlockingQueue::size)
+                .description("Accepted cities waiting for the writer")
+                .register(meterRegistry);
+
+        this.writer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "city-ingest-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        writer.scheduleWithFixedDelay(this::flush, flushIntervalMillis, flushIntervalMillis,
+                TimeUnit.MILLISECONDS);
+    }
+
+    public List<CityDto> enqueue(final Long countryId, final List<City> citiesRequest) {
+        if (countryId == null) {
+            throw new IllegalArgumentException("Country ID cannot be null");
+        }
+        if (citiesRequest == null || citiesRequest.isEmpty()) {
+            throw new IllegalArgumentException("Cities request cannot be null");
+        }
+        if (!countryRepository.existsById(countryId)) {
+            throw new ObjectNotFoundException("country, which id "
+                    + countryId + " does not exist, you can't add new city");
+        }
+
+        Set<String> names = new HashSet<>();
+        List<String> possibleDuplicates = new ArrayList<>();
+        for (City city : citiesRequest) {
+            if (city == null) {
+                throw new IllegalArgumentException("City request cannot be null");
+            }
+            if (city.getName() == null || city.getName().isEmpty()) {
+                throw new IllegalArgumentException("City name cannot be null or empty");
+            }
+            if (city.getName().length() > City.MAX_NAME_LENGTH) {
+                throw new IllegalArgumentException("City name cannot be longer than "
+                        + City.MAX_NAME_LENGTH + " characters");
+            }
+            String key = NameDictionary.normalize(city.getName());
+            if (!names.add(key)) {
+                throw new ObjectExistedException("City with name " + city.getName()
+                        + " already exists");
+            }
+            if (nameDictionary.mayContainCity(countryId, key)) {
+                possibleDuplicates.add(key);
+            }
+        }
+        if (!possibleDuplicates.isEmpty()) {
+            List<String> existing = cityRepository.findExistingNamesByCountryId(countryId,
+                    possibleDuplicates);
+            if (!existing.isEmpty()) {
+                throw new ObjectExistedException("City with name " + existing.get(0)
+                        + " already exists");
+            }
+        }
+
+        List<Long> ids = takeIds(citiesRequest.size());
+        List<CityDto> accepted = new ArrayList<>(citiesRequest.size());
+        synchronized (this) {
+            if (queue.remainingCapacity() < citiesRequest.size()) {
+                returnIds(ids);
+                logger.warn("⚠️ City ingest queue is full, rejecting {} cities for country {}",
+                        citiesRequest.size(), countryId);
+                throw new TooManyRequestsException("City ingest queue is full, retry later");
+            }
+            List<String> reserved = new ArrayList<>(citiesRequest.size());
+            for (City city : citiesRequest) {
+                String key = pendingKey(countryId, NameDictionary.normalize(city.getName()));
+                if (!pendingNames.add(key)) {
+                    reserved.forEach(pendingNames::remove);
+                    returnIds(ids);
+                    throw new ObjectExistedException("City with name " + city.getName()
+                            + " already exists");
+                }
+                reserved.add(key);
+            }
+            long enqueuedAt = System.nanoTime();
+            for (int i = 0; i < citiesRequest.size(); i++) {
+                City city = citiesRequest.get(i);
+                CityImportDto row = new CityImportDto();
+                row.setName(city.getName());
+                row.setPopulation(city.getPopulation());
+                row.setAreaSquareKm(city.getAreaSquareKm());
+                row.setCountryId(countryId);
+                PendingCity pending = new PendingCity(ids.get(i), row, enqueuedAt);
+                queue.add(pending);
+
+                CityDto dto = new CityDto();
+                dto.setId(pending.id);
+                dto.setName(row.getName());
+                dto.setPopulation(row.getPopulation());
+                dto.setAreaSquareKm(row.getAreaSquareKm());
+                accepted.add(dto);
+            }
+        }
+        logger.debug("📨 Accepted {} cities for country {}, {} waiting", accepted.size(),
+                countryId, queue.size());
+        return accepted;
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        writer.shutdown();
+        writer.awaitTermination(5, TimeUnit.SECONDS);
+        retryAt = 0;
+        flush();
+        if (!unwritten.isEmpty() || !queue.isEmpty()) {
+            logger.error("🚫 City ingest writer stopped with {} accepted cities unwritten",
+                    unwritten.size() + queue.size());
+            return;
+        }
+        logger.info("🛑 City ingest writer stopped, queue drained");
+    }
+
+    private void flush() {
+        if (!unwritten.isEmpty() && System.nanoTime() < retryAt) {
+            return;
+        }
+        if (unwritten.isEmpty()) {
+            queue.drainTo(unwritten, maxBatchSize);
+        }
+        while (!unwritten.isEmpty()) {
+            List<CityImportDto> rows = unwritten.stream().map(pending -> pending.row).toList();
+            List<Long> ids = unwritten.stream().map(pending -> pending.id).toList();
+            int[] counts;
+            try {
+                counts = transactionTemplate.execute(status ->
+                        batchRepository.insertCitiesIfAbsent(rows, ids));
+            } catch (DataIntegrityViolationException e) {
+                logger.warn("⚠️ Group commit of {} cities rejected, writing them one by one: {}",
+                        unwritten.size(), e.getMostSpecificCause().getMessage());
+                if (!writeOneByOne()) {
+                    return;
+                }
+                queue.drainTo(unwritten, maxBatchSize);
+                continue;
+            } catch (RuntimeException e) {
+                scheduleRetry(e);
+                return;
+            }
+            failedAttempts = 0;
+            List<PendingCity> written = new ArrayList<>(unwritten);
+            unwritten.clear();
+            committed(written, counts);
+            queue.drainTo(unwritten, maxBatchSize);
+        }
+    }
+
+    /**
+     * Replays the unwritten group one city per transaction, so a row the database rejects
+     * is dropped without taking the rest of the group with it. Stops at the first other
+     * failure, keeping the cities not yet written for a retry; returns whether all were
+     * written.
+     */
+    private boolean writeOneByOne() {
+        int[] counts = new int[unwritten.size()];
+        int done = 0;
+        RuntimeException failure = null;
+        while (done < unwritten.size()) {
+            PendingCity pending = unwritten.get(done);
+            try {
+                int[] count = transactionTemplate.execute(status ->
+                        batchRepository.insertCitiesIfAbsent(List.of(pending.row),
+                                List.of(pending.id)));
+                counts[done] = count == null ? 0 : count[0];
+            } catch (DataIntegrityViolationException e) {
+                logger.warn("🚫 City {} (ID: {}) rejected by the database: {}",
+                        pending.row.getName(), pending.id, e.getMostSpecificCause().getMessage());
+            } catch (RuntimeException e) {
+                failure = e;
+                break;
+            }
+            done++;
+        }
+        if (done > 0) {
+            List<PendingCity> written = new ArrayList<>(unwritten.subList(0, done));
+            unwritten.subList(0, done).clear();
+            committed(written, Arrays.copyOf(counts, done));
+        }
+        if (failure != null) {
+            scheduleRetry(failure);
+            return false;
+        }
+        failedAttempts = 0;
+        return true;
+    }
+
+    private void scheduleRetry(RuntimeException e) {
+        failedAttempts++;
+        long delayMillis = Math.min(MAX_RETRY_DELAY_MILLIS, 10L << Math.min(failedAttempts, 7));
+        retryAt = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delayMillis);
+        logger.warn("⚠️ Group commit of {} cities failed (attempt {}), retrying in {} ms",
+                unwritten.size(), failedAttempts, delayMillis, e);
+    }
+
+    private void committed(List<PendingCity> batch, int[] counts) {
+        long committedAt = System.nanoTime();
+        batchSizes.record(batch.size());
+
+        Set<String> keys = new HashSet<>();
+        keys.add(ALL_CITIES);
+        int inserted = 0;
+        for (int i = 0; i < batch.size(); i++) {
+            PendingCity pending = batch.get(i);
+            Long countryId = pending.row.getCountryId();
+            latency.record(committedAt - pending.enqueuedAt, TimeUnit.NANOSECONDS);
+            if (counts == null || counts[i] == 0) {
+                pendingNames.remove(pending.key());
+                skipped.increment();
+                logger.warn("⚠️ Dropped accepted city {} (ID: {}) for country {}",
+                        pending.row.getName(), pending.id, countryId);
+                continue;
+            }
+            inserted++;
+            eventPublisher.publishEvent(NameChangedEvent.city(pending.id, countryId,
+                    pending.row.getName()));
+            eventPublisher.publishEvent(FiguresChangedEvent.city(pending.id,
+                    pending.row.getPopulation(), pending.row.getAreaSquareKm()));
+            // Released only after the name dictionary knows the city
+            pendingNames.remove(pending.key());
+            keys.add(COUNTRY_PREFIX + countryId);
+            keys.add(CITIES_BY_COUNTRY_PREFIX + countryId);
+            keys.add(ALL_CITIES_BY_COUNTRY_ID + countryId);
+            keys.add(COUNTRY_ID + countryId);
+        }
+        searchCache.removeAll(keys, Set.of());
+        logger.debug("💾 Group commit of {} cities ({} inserted)", batch.size(), inserted);
+    }
+
+    /** Ids from the local block; the sequence round trip for a new block runs unlocked. */
+    private List<Long> takeIds(int count) {
+        List<Long> ids = new ArrayList<>(count);
+        synchronized (reservedIds) {
+            while (ids.size() < count && !reservedIds.isEmpty()) {
+                ids.add(reservedIds.removeFirst());
+            }
+        }
+        int missing = count - ids.size();
+        if (missing > 0) {
+            List<Long> block = copyRepository.reserveIds(CITY_SEQUENCE,
+                    Math.max(ID_BLOCK_SIZE, missing));
+            ids.addAll(block.subList(0, missing));
+            returnIds(block.subList(missing, block.size()));
+        }
+        return ids;
+    }
+
+    private void returnIds(List<Long> ids) {
+        synchronized (reservedIds) {
+            reservedIds.addAll(ids);
+        }
+    }
+
+    private static String pendingKey(Long countryId, String normalizedName) {
+        return countryId + ":" + normalizedName;
+    }
+
+    private static final class PendingCity {
+        final long id;
+        final CityImportDto row;
+        final long enqueuedAt;
+
+        PendingCity(long id, CityImportDto row, long enqueuedAt) {
+            this.id = id;
+            this.row = row;
+            this.enqueuedAt = enqueuedAt;
+        }
+
+        String key() {
+            return pendingKey(row.getCountryId(), NameDictionary.normalize(row.getName()));
+        }
+    }
+}
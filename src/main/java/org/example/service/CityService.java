@@ -1,25 +1,38 @@
 package org.example.service;
 
-import jakarta.transaction.Transactional;
+import jakarta.persistence.EntityManager;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
-import java.util.stream.Collectors;
 import lombok.AllArgsConstructor;
+import org.example.cache.BatchLoader;
+import org.example.cache.NameDictionary;
 import org.example.cache.SearchCache;
 import org.example.dto.CityDto;
+import org.example.dto.DeleteResultDto;
+import org.example.event.FiguresChangedEvent;
+import org.example.event.NameChangedEvent;
+import org.example.event.NamesReloadEvent;
 import org.example.exception.ObjectExistedException;
 import org.example.exception.ObjectNotFoundException;
+import org.example.exception.StaleVersionException;
 import org.example.model.City;
 import org.example.model.Country;
 import org.example.repository.CityRepository;
 import org.example.repository.CountryRepository;
+import org.example.repository.VersionedUpdateRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 @Service
 @AllArgsConstructor
@@ -28,6 +41,11 @@ public class CityService {
     private final CityRepository cityRepository;
     private final CountryRepository countryRepository;
     private final SearchCache searchCache;
+    private final EntityManager entityManager;
+    private final VersionedUpdateRepository versionedUpdateRepository;
+    private final NameDictionary nameDictionary;
+    private final ApplicationEventPublisher eventPublisher;
+    private final BatchLoader<Long, Set<CityDto>> citiesByCountryIdLoader;
     private static final Logger logger = LoggerFactory.getLogger(CityService.class);
 
     private static final String CITIES_BY_COUNTRY_PREFIX = "cities_country_";
@@ -37,6 +55,11 @@ public class CityService {
     private static final String ALL_CITIES = "allCities";
     private static final String ALL_COUNTRIES_BY_NATION_ID = "allCountriesByNationId_";
     private static final String COUNTRY_ID = "countryId_";
+    private static final int BATCH_SIZE = 500;
+    private static final int NAME_CHECK_CHUNK = 5000;
+    private static final int MAX_IDS_PER_REQUEST = 500;
+    // SearchCache holds 100 entries; a larger backfill would evict everything else.
+    private static final int BACKFILL_LIMIT = 20;
 
     private void updateCache(final Country country, final String operation) {
         Long countryId = country.getId();
@@ -55,25 +78,22 @@ public class CityService {
         return name.matches("^[a-zA-Z0-9\\s\\-,.]{1,100}$");
     }
 
-    @Transactional
-    public List<City> getCities() {
+    @Transactional(readOnly = true)
+    public List<CityDto> getCities() {
         if (searchCache.containsKey(ALL_CITIES)) {
             Object cachedValue = searchCache.get(ALL_CITIES);
-            List<City> cities = safeCastToListOfCities(cachedValue);
+            List<CityDto> cities = safeCastToListOfCities(cachedValue);
             if (!cities.isEmpty()) {
                 logger.info("Getting cities from cache");
-                return cities.stream()
-                        .filter(c -> c.getCountry() == null || countryRepository.existsById(
-                                c.getCountry().getId())).toList();
+                return cities;
             }
             logger.warn("Invalid or empty cache entry for key: {}", ALL_CITIES);
             searchCache.remove(ALL_CITIES);
         }
 
-        List<City> cities = cityRepository.findAll();
-        cities = cities.stream()
-                .filter(c -> c.getCountry() == null || countryRepository.existsById(
-                        c.getCountry().getId())).toList();
+        List<CityDto> cities = cityRepository.findAllWithCountry().stream()
+                .map(CityDto::fromEntity)
+                .toList();
 
         searchCache.put(ALL_CITIES, cities);
         logger.info("Cities loaded from database and cached");
@@ -81,14 +101,55 @@ public class CityService {
     }
 
     @SuppressWarnings("unchecked")
-    private List<City> safeCastToListOfCities(Object obj) {
-        if (obj instanceof List<?> list && (list.isEmpty() || list.get(0) instanceof City)) {
-            return (List<City>) list;
+    private List<CityDto> safeCastToListOfCities(Object obj) {
+        if (obj instanceof List<?> list && (list.isEmpty() || list.get(0) instanceof CityDto)) {
+            return (List<CityDto>) list;
         }
         return Collections.emptyList();
     }
 
-    @Transactional
+    /**
+     * Resolves cached cities with one cache lookup and loads the rest with a single
+     * {@code IN} query. Results follow the request order; unknown ids are skipped. Loaded
+     * cities are cached only when at most {@value #BACKFILL_LIMIT} were missing, as in
+     * {@link ExpansionService}.
+     */
+    @Transactional(readOnly = true)
+    public List<CityDto> getCitiesByIds(List<Long> cityIds) {
+        List<Long> ids = cityIds.stream().filter(Objects::nonNull).distinct().toList();
+        if (ids.size() > MAX_IDS_PER_REQUEST) {
+            throw new IllegalArgumentException("At most " + MAX_IDS_PER_REQUEST
+                    + " ids can be requested at once");
+        }
+
+        Map<String, Object> cached = searchCache.getAll(
+                ids.stream().map(id -> CITY_PREFIX + id).toList());
+        Map<Long, CityDto> cities = new HashMap<>();
+        List<Long> misses = new ArrayList<>();
+        for (Long id : ids) {
+            if (cached.get(CITY_PREFIX + id) instanceof CityDto city) {
+                cities.put(id, city);
+            } else {
+                misses.add(id);
+            }
+        }
+
+        if (!misses.isEmpty()) {
+            Map<String, CityDto> loaded = new HashMap<>();
+            cityRepository.findAllByIdWithCountry(misses).forEach(city -> {
+                CityDto dto = CityDto.fromEntity(city);
+                cities.put(dto.getId(), dto);
+                loaded.put(CITY_PREFIX + dto.getId(), dto);
+            });
+            if (loaded.size() <= BACKFILL_LIMIT) {
+                searchCache.putAll(loaded);
+            }
+        }
+        logger.info("Multi-get of {} cities: {} from cache, {} from DB", ids.size(),
+                ids.size() - misses.size(), misses.size());
+        return ids.stream().map(cities::get).filter(Objects::nonNull).toList();
+    }
+
     public Set<CityDto> getCitiesByCountryId(Long countryId) {
         if (countryId == null) {
             throw new IllegalArgumentException("Country ID cannot be null");
@@ -116,12 +177,10 @@ public class CityService {
             searchCache.remove(cacheKey);
         }
 
-        if (!countryRepository.existsById(countryId)) {
+        Set<CityDto> result = citiesByCountryIdLoader.load(countryId);
+        if (result == null) {
             return Collections.emptySet();
         }
-        Set<CityDto> result = cityRepository.findByCountryId(countryId).stream()
-                .map(CityDto::fromEntity)
-                .collect(Collectors.toSet());
         searchCache.put(cacheKey, result);
         logger.info("Cities with countryId_{} loaded from database and cached", countryId);
         if (logger.isInfoEnabled()) {
@@ -137,7 +196,7 @@ public class CityService {
     }
 
     @Transactional
-    public City addNewCityByCountryId(final Long countryId, final City cityRequest) {
+    public CityDto addNewCityByCountryId(final Long countryId, final City cityRequest) {
         if (countryId == null) {
             throw new IllegalArgumentException("Country ID cannot be null");
         }
@@ -145,62 +204,122 @@ public class CityService {
             throw new IllegalArgumentException("City request cannot be null");
         }
         Country country = countryRepository
-                .findCountryWithCitiesById(countryId)
+                .findCountryWithNationsById(countryId)
                 .orElseThrow(() -> new ObjectNotFoundException("country, which id "
                         + countryId + " does not exist, you can't add new city"));
 
         if (cityRequest.getName() == null || cityRequest.getName().isEmpty()) {
             throw new IllegalArgumentException("City name cannot be null or empty");
         }
-        if (country.getCities().stream().anyMatch(c -> c.getName().equalsIgnoreCase(
-                cityRequest.getName()))) {
+        if (cityRequest.getName().length() > City.MAX_NAME_LENGTH) {
+            throw new IllegalArgumentException("City name cannot be longer than "
+                    + City.MAX_NAME_LENGTH + " characters");
+        }
+        if (nameDictionary.mayContainCity(countryId, cityRequest.getName())
+                && cityRepository.existsByCountryIdAndName(countryId, cityRequest.getName())) {
             throw new ObjectExistedException("City with name " + cityRequest.getName()
                     + " already exists");
         }
 
         cityRequest.setCountry(country);
         updateCache(country, "ADD");
-        City savedCity = cityRepository.save(cityRequest);
+        City savedCity = saveUnique(cityRequest);
+        eventPublisher.publishEvent(NameChangedEvent.city(savedCity.getId(), countryId,
+                savedCity.getName()));
+        eventPublisher.publishEvent(FiguresChangedEvent.city(savedCity.getId(),
+                savedCity.getPopulation(), savedCity.getAreaSquareKm()));
         logger.info("➕ Added city with ID: {} to country with ID: {}", savedCity.getId(),
                 countryId);
-        return savedCity;
+        return CityDto.fromEntity(savedCity);
     }
 
     @Transactional
-    public List<City> addNewCitiesByCountryId(final Long countryId,
-                                              final List<City> citiesRequest) {
+    public List<CityDto> addNewCitiesByCountryId(final Long countryId,
+                                                 final List<City> citiesRequest) {
         if (countryId == null) {
             throw new IllegalArgumentException("Country ID cannot be null");
         }
         if (citiesRequest == null) {
             throw new IllegalArgumentException("Cities request cannot be null");
         }
-        List<City> addedCities = new ArrayList<>();
-        citiesRequest.forEach(city -> addedCities.add(addNewCityByCountryId(countryId, city)));
+        Country country = countryRepository
+                .findCountryWithNationsById(countryId)
+                .orElseThrow(() -> new ObjectNotFoundException("country, which id "
+                        + countryId + " does not exist, you can't add new city"));
+
+        Set<String> names = new HashSet<>();
+        for (City city : citiesRequest) {
+            if (city == null) {
+                throw new IllegalArgumentException("City request cannot be null");
+            }
+            if (city.getName() == null || city.getName().isEmpty()) {
+                throw new IllegalArgumentException("City name cannot be null or empty");
+            }
+            if (city.getName().length() > City.MAX_NAME_LENGTH) {
+                throw new IllegalArgumentException("City name cannot be longer than "
+                        + City.MAX_NAME_LENGTH + " characters");
+            }
+            String key = NameDictionary.normalize(city.getName());
+            if (!names.add(key)) {
+                throw new ObjectExistedException("City with name " + city.getName()
+                        + " already exists");
+            }
+        }
+
+        List<String> nameList = names.stream()
+                .filter(name -> nameDictionary.mayContainCity(countryId, name))
+                .toList();
+        for (int i = 0; i < nameList.size(); i += NAME_CHECK_CHUNK) {
+            List<String> existing = cityRepository.findExistingNamesByCountryId(countryId,
+                    nameList.subList(i, Math.min(i + NAME_CHECK_CHUNK, nameList.size())));
+            if (!existing.isEmpty()) {
+                throw new ObjectExistedException("City with name " + existing.get(0)
+                        + " already exists");
+            }
+        }
+
+        updateCache(country, "ADD");
+        List<CityDto> addedCities = new ArrayList<>(citiesRequest.size());
+        for (int i = 0; i < citiesRequest.size(); i += BATCH_SIZE) {
+            List<City> chunk = citiesRequest.subList(i,
+                    Math.min(i + BATCH_SIZE, citiesRequest.size()));
+            chunk.forEach(city -> city.setCountry(country));
+            cityRepository.saveAll(chunk).forEach(city -> {
+                addedCities.add(CityDto.fromEntity(city));
+                eventPublisher.publishEvent(NameChangedEvent.city(city.getId(), countryId,
+                        city.getName()));
+                eventPublisher.publishEvent(FiguresChangedEvent.city(city.getId(),
+                        city.getPopulation(), city.getAreaSquareKm()));
+            });
+            entityManager.flush();
+            entityManager.clear();
+        }
+        logger.info("➕ Added {} cities to country with ID: {}", addedCities.size(), countryId);
         return addedCities;
     }
 
     @Transactional
-    public City updateCity(final Long cityId, final String name, final Double population,
-                           final Double areaSquareKm) {
+    public CityDto updateCity(final Long cityId, final String name, final Double population,
+                              final Double areaSquareKm) {
         if (cityId == null) {
             throw new IllegalArgumentException("ID города не может быть null");
         }
         if (name != null && !name.isEmpty() && !isValidName(name)) {
             throw new IllegalArgumentException("Недопустимое название города");
         }
-        City city = cityRepository.findById(cityId)
+        City city = cityRepository.findByIdWithCountry(cityId)
                 .orElseThrow(() -> new ObjectNotFoundException("Город не найден"));
-        Country country = countryRepository.findCountryWithCitiesByCityId(cityId)
+        Country country = Optional.ofNullable(city.getCountry())
                 .orElseThrow(() -> new ObjectNotFoundException("Страна не найдена для города с ID: "
                         + cityId));
         if (name != null && !name.isEmpty() && !name.equalsIgnoreCase(city.getName())) {
-            boolean nameExists = country.getCities().stream()
-                    .anyMatch(c -> c.getName().equalsIgnoreCase(name) && !c.getId().equals(cityId));
-            if (nameExists) {
+            if (nameDictionary.mayContainCity(country.getId(), name)
+                    && cityRepository.existsOtherByCountryIdAndName(country.getId(), name,
+                            cityId)) {
                 throw new ObjectExistedException("Название города уже существует в этой стране");
             }
             city.setName(name);
+            eventPublisher.publishEvent(NameChangedEvent.city(cityId, country.getId(), name));
         }
 
 
@@ -213,29 +332,73 @@ public class CityService {
 
 
         updateCache(country, "UPDATE");
+        searchCache.remove(CITY_PREFIX + cityId);
 
 
-        cityRepository.save(city);
+        City savedCity = saveUnique(city);
+        eventPublisher.publishEvent(FiguresChangedEvent.city(cityId, savedCity.getPopulation(),
+                savedCity.getAreaSquareKm()));
         logger.info("✏️ Обновлён город с ID: {}. Операция: UPDATE", cityId);
+        return CityDto.fromEntity(savedCity);
+    }
+
+    @Transactional
+    public CityDto patchCity(final Long cityId, final Long version, final String name,
+                             final Double population, final Double areaSquareKm) {
+        if (cityId == null || version == null) {
+            throw new IllegalArgumentException("City ID and version cannot be null");
+        }
+        if (name != null && !name.isEmpty() && !isValidName(name)) {
+            throw new IllegalArgumentException("Недопустимое название города");
+        }
+        CityDto city = versionedUpdateRepository.patchCity(cityId, version, name, population,
+                        areaSquareKm)
+                .orElseThrow(() -> {
+                    if (!cityRepository.existsById(cityId)) {
+                        return new ObjectNotFoundException("Город не найден");
+                    }
+                    logger.warn("⚠️ Stale version {} for city ID: {}", version, cityId);
+                    return new StaleVersionException("City " + cityId
+                            + " was modified by another request, version " + version
+                            + " is stale");
+                });
+
+        Long countryId = city.getCountry() != null ? city.getCountry().getId() : null;
+        eventPublisher.publishEvent(NameChangedEvent.city(cityId, countryId, city.getName()));
+        eventPublisher.publishEvent(FiguresChangedEvent.city(cityId, city.getPopulation(),
+                city.getAreaSquareKm()));
+        invalidateCityCaches(cityId, countryId);
+        searchCache.remove(ALL_CITIES_BY_COUNTRY_ID + countryId);
+        logger.info("✏️ Обновлён город с ID: {}. Операция: PATCH, версия {}", cityId,
+                city.getVersion());
         return city;
     }
 
     @Transactional
-    public void deleteCitiesByCountryId(final Long countryId) {
+    public DeleteResultDto deleteCitiesByCountryId(final Long countryId) {
         if (countryId == null) {
             throw new IllegalArgumentException("Country ID cannot be null");
         }
-        Country country = countryRepository.findCountryWithCitiesById(countryId)
+        Country country = countryRepository.findCountryWithNationsById(countryId)
                 .orElseThrow(() -> new ObjectNotFoundException(NOT_FOUND_MESSAGE));
 
-        Set<City> citiesToDelete = new HashSet<>(country.getCities());
-        logger.info("🗑️ Deleting {} cities from country with ID: {}",
-                citiesToDelete.size(), countryId);
-
+        DeleteResultDto result = new DeleteResultDto();
+        result.setDeletedCities(cityRepository.deleteAllByCountryId(countryId));
+        eventPublisher.publishEvent(NamesReloadEvent.cities(countryId));
         updateCache(country, "DELETE");
-        cityRepository.deleteAll(citiesToDelete);
-        country.getCities().clear();
-        countryRepository.save(country);
+        searchCache.removeByPrefix(CITY_PREFIX);
+        logger.info("🗑️ Deleted {} cities from country with ID: {}",
+                result.getDeletedCities(), countryId);
+        return result;
+    }
+
+    private City saveUnique(City city) {
+        try {
+            return cityRepository.saveAndFlush(city);
+        } catch (DataIntegrityViolationException e) {
+            throw new ObjectExistedException("City with name " + city.getName()
+                    + " already exists");
+        }
     }
 
     @Transactional
@@ -249,11 +412,8 @@ public class CityService {
 
         Long countryId = city.getCountry() != null ? city.getCountry().getId() : null;
 
-        if (countryId != null) {
-            city.getCountry().getCities().remove(city);
-        }
-
         cityRepository.delete(city);
+        eventPublisher.publishEvent(NameChangedEvent.city(cityId, countryId, null));
         invalidateCityCaches(cityId, countryId);
 
         logger.info("🗑️ Deleted city with ID: {}", cityId);
@@ -273,22 +433,22 @@ public class CityService {
         if (countryId == null || cityId == null) {
             throw new IllegalArgumentException("Country ID and City ID cannot be null");
         }
-        Country country = countryRepository.findCountryWithCitiesById(countryId)
+        Country country = countryRepository.findCountryWithNationsById(countryId)
                 .orElseThrow(() -> new ObjectNotFoundException(NOT_FOUND_MESSAGE));
 
         City city = cityRepository.findById(cityId)
                 .orElseThrow(() -> new ObjectNotFoundException("City not found"));
 
-        if (!country.getCities().contains(city)) {
+        if (city.getCountry() == null || !countryId.equals(city.getCountry().getId())) {
             throw new ObjectNotFoundException("City does not belong to the specified country");
         }
 
         logger.info("🗑️ Deleting city with ID: {} from country with ID: {}", cityId, countryId);
 
         updateCache(country, "DELETE");
+        searchCache.remove(CITY_PREFIX + cityId);
         cityRepository.deleteById(cityId);
-        country.getCities().remove(city);
-        countryRepository.save(country);
+        eventPublisher.publishEvent(NameChangedEvent.city(cityId, countryId, null));
 
         logger.info("✅ City with ID: {} deleted from country with ID: {}", cityId, countryId);
     }
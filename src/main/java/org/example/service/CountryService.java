@@ -1,25 +1,38 @@
 package org.example.service;
 
-import jakarta.transaction.Transactional;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
 import lombok.AllArgsConstructor;
+import org.example.cache.BatchLoader;
+import org.example.cache.CityNameIndex;
+import org.example.cache.NameDictionary;
 import org.example.cache.SearchCache;
 import org.example.dto.CountryDto;
+import org.example.dto.DeleteResultDto;
+import org.example.event.FiguresChangedEvent;
+import org.example.event.NameChangedEvent;
+import org.example.event.NamesReloadEvent;
 import org.example.exception.ObjectExistedException;
 import org.example.exception.ObjectNotFoundException;
+import org.example.exception.StaleVersionException;
 import org.example.model.City;
 import org.example.model.Country;
 import org.example.repository.CityRepository;
 import org.example.repository.CountryRepository;
-import org.hibernate.Hibernate;
+import org.example.repository.VersionedUpdateRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.BeanUtils;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 
 @Service
@@ -31,26 +44,39 @@ public class CountryService {
 
     private final CountryRepository countryRepository;
     private final SearchCache searchCache;
+    private final VersionedUpdateRepository versionedUpdateRepository;
+    private final NameDictionary nameDictionary;
+    private final ApplicationEventPublisher eventPublisher;
+    private final BatchLoader<Long, CountryDto> countryByIdLoader;
+    private final CityNameIndex cityNameIndex;
 
     private static final String ALL_CITIES = "allCities";
     private static final String ALL_COUNTRIES = "all_countries";
     private static final String COUNTRY_PREFIX = "country_";
     private static final String CITIES_BY_COUNTRY_PREFIX = "cities_country_";
     private static final String COUNTRIES_BY_NATION_PREFIX = "countries_nation_";
+    private static final String ALL_COUNTRIES_BY_NATION_ID = "allCountriesByNationId_";
+    private static final String CITY_PREFIX = "city_";
+    private static final int NAME_CHECK_CHUNK = 5000;
+    private static final int MAX_IDS_PER_REQUEST = 500;
+    // SearchCache holds 100 entries; a larger backfill would evict everything else.
+    private static final int BACKFILL_LIMIT = 20;
+    private static final int MAX_SEARCH_LIMIT = MAX_IDS_PER_REQUEST;
 
 
-    @Transactional
-    public List<Country> getCountries() {
+    @Transactional(readOnly = true)
+    public List<CountryDto> getCountries() {
         logger.debug("Attempting to get all countries");
 
         if (searchCache.containsKey(ALL_COUNTRIES)) {
-            List<Country> cached = (List<Country>) searchCache.get(ALL_COUNTRIES);
+            List<CountryDto> cached = (List<CountryDto>) searchCache.get(ALL_COUNTRIES);
             logger.info("✅ Retrieved {} countries from cache", cached.size());
             return cached;
         }
 
-        List<Country> countries = countryRepository.findAllWithCitiesAndNations();
-        initializeLazyCollections(countries);
+        List<CountryDto> countries = countryRepository.findAll().stream()
+                .map(CountryDto::fromEntity)
+                .toList();
 
         searchCache.put(ALL_COUNTRIES, countries);
         logger.info("🔄 Fetched {} countries from DB and cached", countries.size());
@@ -58,43 +84,89 @@ public class CountryService {
     }
 
 
-    @Transactional
-    public Country getCountryById(Long countryId) {
+    public CountryDto getCountryById(Long countryId) {
         String cacheKey = COUNTRY_PREFIX + countryId;
         logger.debug("Looking for country in cache: {}", cacheKey);
 
         if (searchCache.containsKey(cacheKey)) {
             logger.info("✅ Country found in cache: {}", cacheKey);
-            return (Country) searchCache.get(cacheKey);
+            return (CountryDto) searchCache.get(cacheKey);
         }
 
-        Country country = countryRepository.findCountryWithCitiesAndNationsById(countryId)
-                .orElseThrow(() -> {
-                    logger.error("🚫 Country not found with ID: {}", countryId);
-                    return new ObjectNotFoundException("Country not found");
-                });
+        CountryDto country = countryByIdLoader.load(countryId);
+        if (country == null) {
+            logger.error("🚫 Country not found with ID: {}", countryId);
+            throw new ObjectNotFoundException("Country not found");
+        }
 
-        initializeLazyCollections(country);
         searchCache.put(cacheKey, country);
         logger.info("🔄 Country loaded from DB and cached: {}", cacheKey);
         return country;
     }
 
 
+    /**
+     * Resolves cached countries with one cache lookup and loads the rest with a single
+     * {@code IN} query. Results follow the request order; unknown ids are skipped. Loaded
+     * countries are cached only when at most {@value #BACKFILL_LIMIT} were missing, as in
+     * {@link ExpansionService}.
+     */
+    @Transactional(readOnly = true)
+    public List<CountryDto> getCountriesByIds(List<Long> countryIds) {
+        List<Long> ids = countryIds.stream().filter(Objects::nonNull).distinct().toList();
+        if (ids.size() > MAX_IDS_PER_REQUEST) {
+            throw new IllegalArgumentException("At most " + MAX_IDS_PER_REQUEST
+                    + " ids can be requested at once");
+        }
+
+        Map<String, Object> cached = searchCache.getAll(
+                ids.stream().map(id -> COUNTRY_PREFIX + id).toList());
+        Map<Long, CountryDto> countries = new HashMap<>();
+        List<Long> misses = new ArrayList<>();
+        for (Long id : ids) {
+            if (cached.get(COUNTRY_PREFIX + id) instanceof CountryDto country) {
+                countries.put(id, country);
+            } else {
+                misses.add(id);
+            }
+        }
+
+        if (!misses.isEmpty()) {
+            Map<String, CountryDto> loaded = new HashMap<>();
+            countryRepository.findAllById(misses).forEach(country -> {
+                CountryDto dto = CountryDto.fromEntity(country);
+                countries.put(dto.getId(), dto);
+                loaded.put(COUNTRY_PREFIX + dto.getId(), dto);
+            });
+            if (loaded.size() <= BACKFILL_LIMIT) {
+                searchCache.putAll(loaded);
+            }
+        }
+        logger.info("✅ Multi-get of {} countries: {} from cache, {} from DB", ids.size(),
+                ids.size() - misses.size(), misses.size());
+        return ids.stream().map(countries::get).filter(Objects::nonNull).toList();
+    }
+
+
     @Transactional
-    public Country addNewCountry(Country country) {
+    public CountryDto addNewCountry(Country country) {
         logger.debug("Attempting to add new country: {}", country.getName());
 
-        countryRepository.findCountryByName(country.getName())
-                .ifPresent(c -> {
-                    logger.error("🚫 Country already exists: {}", country.getName());
-                    throw new ObjectExistedException("Country exists");
-                });
+        if (nameDictionary.mayContainCountry(country.getName())
+                && countryRepository.findCountryByName(country.getName()).isPresent()) {
+            logger.error("🚫 Country already exists: {}", country.getName());
+            throw new ObjectExistedException("Country exists");
+        }
 
         country.setNations(new HashSet<>());
         country.setCities(new HashSet<>());
-        Country savedCountry = countryRepository.save(country);
+        CountryDto savedCountry = CountryDto.fromEntity(countryRepository.save(country));
 
+        eventPublisher.publishEvent(
+                NameChangedEvent.country(savedCountry.getId(), savedCountry.getName()));
+        eventPublisher.publishEvent(FiguresChangedEvent.country(savedCountry.getId(),
+                savedCountry.getPopulation(), savedCountry.getAreaSquareKm(),
+                savedCountry.getGdp()));
         searchCache.remove(ALL_COUNTRIES);
         searchCache.put(COUNTRY_PREFIX + savedCountry.getId(), savedCountry);
         logger.info("✨ Created country: {} (ID: {})", savedCountry.getName(), savedCountry.getId());
@@ -103,144 +175,206 @@ public class CountryService {
 
 
     @Transactional
-    public Country updateCountry(Long countryId, String name, String capital,
+    public CountryDto updateCountry(Long countryId, String name, String capital,
                                  Double population, Double areaSquareKm, Double gdp) {
         logger.debug("Updating country ID: {}", countryId);
-        Country country = countryRepository.findCountryWithCitiesAndNationsById(countryId)
-                .orElseThrow(() -> new ObjectNotFoundException("Country not found"));
-        Country originalCountry = new Country();
-        BeanUtils.copyProperties(country, originalCountry);
-        if (name != null && !name.equals(country.getName())) {
-            countryRepository.findCountryByName(name)
-                    .ifPresent(c -> {
-                        logger.error("🚫 Country name conflict: {}", name);
-                        throw new ObjectExistedException("Name exists");
-                    });
-            country.setName(name);
+        if (name != null && !name.isEmpty() && nameDictionary.mayContainCountry(name)
+                && countryRepository.findCountryByName(name)
+                        .filter(c -> !c.getId().equals(countryId)).isPresent()) {
+            logger.error("🚫 Country name conflict: {}", name);
+            throw new ObjectExistedException("Name exists");
         }
-        Optional.ofNullable(capital).ifPresent(country::setCapital);
-        Optional.ofNullable(population).ifPresent(country::setPopulation);
-        Optional.ofNullable(areaSquareKm).ifPresent(country::setAreaSquareKm);
-        Optional.ofNullable(gdp).ifPresent(country::setGdp);
-        Country updatedCountry = countryRepository.save(country);
-        updateCache(originalCountry, updatedCountry);
-        invalidateCitiesCacheForCountry(countryId);
-        logger.info("🔄 Updated country ID: {}", countryId);
-        return updatedCountry;
-    }
+        CountryDto country = versionedUpdateRepository.updateCountry(countryId, name, capital,
+                        population, areaSquareKm, gdp)
+                .orElseThrow(() -> new ObjectNotFoundException("Country not found"));
+        eventPublisher.publishEvent(NameChangedEvent.country(countryId, country.getName()));
+        eventPublisher.publishEvent(FiguresChangedEvent.country(countryId,
+                country.getPopulation(), country.getAreaSquareKm(), country.getGdp()));
 
-    private void invalidateCitiesCacheForCountry(Long countryId) {
-        searchCache.remove(CITIES_BY_COUNTRY_PREFIX + countryId);
-        searchCache.remove(ALL_CITIES);
-        logger.info("Invalidated cities cache for country ID: {}", countryId);
+        invalidateCountryCaches(countryId);
+        searchCache.put(COUNTRY_PREFIX + countryId, country);
+        logger.info("🔄 Updated country ID: {}", countryId);
+        return country;
     }
 
-
     @Transactional
-    public void deleteCountry(Long id) {
-        logger.warn("Attempting to delete country ID: {}", id);
-
-        Country country = countryRepository.findCountryWithCitiesById(id)
-                .orElseThrow(() -> new ObjectNotFoundException("Country not found with ID: " + id));
-
-        for (City city : country.getCities()) {
-            city.setCountry(null);
-            cityRepository.save(city);
-        }
-        country.getCities().clear();
-
-        if (country.getNations() != null) {
-            country.getNations().forEach(nation -> nation.getCountries().remove(country));
-            country.getNations().clear();
-        }
-
-
-        countryRepository.delete(country);
-
-        invalidateDependentCaches(country);
-        searchCache.remove(ALL_CITIES);
-        searchCache.remove("allCitiesByCountryId_" + id);
-        logger.info("🗑️ Deleted country ID: {}", id);
+    public CountryDto patchCountry(Long countryId, Long version, String name, String capital,
+                                   Double population, Double areaSquareKm, Double gdp) {
+        logger.debug("Patching country ID: {} at version {}", countryId, version);
+        CountryDto country = versionedUpdateRepository.patchCountry(countryId, version, name,
+                        capital, population, areaSquareKm, gdp)
+                .orElseThrow(() -> staleOrMissing(countryId, version));
+        eventPublisher.publishEvent(NameChangedEvent.country(countryId, country.getName()));
+        eventPublisher.publishEvent(FiguresChangedEvent.country(countryId,
+                country.getPopulation(), country.getAreaSquareKm(), country.getGdp()));
+
+        invalidateCountryCaches(countryId);
+        logger.info("🔄 Patched country ID: {} to version {}", countryId, country.getVersion());
+        return country;
     }
 
-
-    private void initializeLazyCollections(Country country) {
-        if (country.getCities() != null) {
-            Hibernate.initialize(country.getCities());
-        }
-        if (country.getNations() != null) {
-            Hibernate.initialize(country.getNations());
-            country.getNations().forEach(nation ->
-                    Hibernate.initialize(nation.getCountries())
-            );
+    private RuntimeException staleOrMissing(Long countryId, Long version) {
+        if (!countryRepository.existsById(countryId)) {
+            logger.error("🚫 Country not found with ID: {}", countryId);
+            return new ObjectNotFoundException("Country not found");
         }
+        logger.warn("⚠️ Stale version {} for country ID: {}", version, countryId);
+        return new StaleVersionException("Country " + countryId
+                + " was modified by another request, version " + version + " is stale");
     }
 
-    private void initializeLazyCollections(List<Country> countries) {
-        countries.forEach(this::initializeLazyCollections);
+    /**
+     * Evicts the cached entries that embed the country: itself, its nations' country lists
+     * and its cities, whose DTOs carry the country fields.
+     */
+    private void invalidateCountryCaches(Long countryId) {
+        List<Long> nationIds = countryRepository.findNationIdsByCountryId(countryId);
+        invalidateDependentCaches(countryId, nationIds);
+        nationIds.forEach(nationId -> searchCache.remove(ALL_COUNTRIES_BY_NATION_ID + nationId));
+        invalidateCitiesCache(countryId, cityRepository.findIdsByCountryId(countryId));
     }
 
-    private void updateCache(Country oldCountry, Country newCountry) {
-
-        searchCache.remove(COUNTRY_PREFIX + oldCountry.getId());
-        searchCache.remove(ALL_COUNTRIES);
+    private void invalidateCitiesCache(Long countryId, List<Long> cityIds) {
+        List<String> keys = new ArrayList<>(cityIds.size() + 2);
+        keys.add(CITIES_BY_COUNTRY_PREFIX + countryId);
+        keys.add(ALL_CITIES);
+        cityIds.forEach(cityId -> keys.add(CITY_PREFIX + cityId));
+        searchCache.removeAll(keys, List.of());
+        logger.info("Invalidated cities cache for country ID: {}", countryId);
+    }
 
 
-        newCountry.getNations().forEach(nation ->
-                searchCache.remove(COUNTRIES_BY_NATION_PREFIX + nation.getId())
-        );
+    @Transactional
+    public DeleteResultDto deleteCountry(Long id) {
+        logger.warn("Attempting to delete country ID: {}", id);
 
+        if (!countryRepository.existsById(id)) {
+            throw new ObjectNotFoundException("Country not found with ID: " + id);
+        }
+        List<Long> nationIds = countryRepository.findNationIdsByCountryId(id);
+        List<Long> cityIds = cityRepository.findIdsByCountryId(id);
 
-        searchCache.put(COUNTRY_PREFIX + newCountry.getId(), newCountry);
-        searchCache.remove(CITIES_BY_COUNTRY_PREFIX + newCountry.getId());
+        DeleteResultDto result = new DeleteResultDto();
+        result.setDetachedCities(cityRepository.detachAllFromCountry(id));
+        result.setDeletedNationLinks(countryRepository.deleteNationLinksByCountryId(id));
+        result.setDeletedCountries(countryRepository.deleteCountryById(id));
 
+        invalidateDependentCaches(id, nationIds);
+        eventPublisher.publishEvent(NameChangedEvent.country(id, null));
+        eventPublisher.publishEvent(NamesReloadEvent.cities(id));
+        searchCache.remove("allCitiesByCountryId_" + id);
+        invalidateCitiesCache(id, cityIds);
+        logger.info("🗑️ Deleted country ID: {} ({} cities detached, {} nation links removed)",
+                id, result.getDetachedCities(), result.getDeletedNationLinks());
+        return result;
     }
 
-    private void invalidateDependentCaches(Country country) {
-        searchCache.remove(COUNTRY_PREFIX + country.getId());
+
+    private void invalidateDependentCaches(Long countryId, List<Long> nationIds) {
+        searchCache.remove(COUNTRY_PREFIX + countryId);
         searchCache.remove(ALL_COUNTRIES);
-        searchCache.remove(CITIES_BY_COUNTRY_PREFIX + country.getId());
+        searchCache.remove(CITIES_BY_COUNTRY_PREFIX + countryId);
 
-        country.getNations().forEach(nation ->
-                searchCache.remove(COUNTRIES_BY_NATION_PREFIX + nation.getId())
+        nationIds.forEach(nationId ->
+                searchCache.remove(COUNTRIES_BY_NATION_PREFIX + nationId)
         );
     }
 
     @Transactional
-    public List<Country> addNewCountries(List<Country> countries) {
+    public List<CountryDto> addNewCountries(List<Country> countries) {
         logger.debug("Attempting to add {} countries", countries.size());
 
-        List<Country> savedCountries = new ArrayList<>();
+        Set<String> names = new HashSet<>();
+        List<String> possibleDuplicates = new ArrayList<>();
         for (Country country : countries) {
+            if (country.getName() == null) {
+                continue;
+            }
+            String key = NameDictionary.normalize(country.getName());
+            if (!names.add(key)) {
+                logger.error("🚫 Duplicate country in request: {}", country.getName());
+                throw new ObjectExistedException("Country exists");
+            }
+            if (nameDictionary.mayContainCountry(key)) {
+                possibleDuplicates.add(key);
+            }
+        }
 
-            savedCountries.add(this.addNewCountry(country));
+        List<String> existingNames = new ArrayList<>();
+        for (int i = 0; i < possibleDuplicates.size(); i += NAME_CHECK_CHUNK) {
+            existingNames.addAll(countryRepository.findExistingNames(possibleDuplicates
+                    .subList(i, Math.min(i + NAME_CHECK_CHUNK, possibleDuplicates.size()))));
         }
+        if (!existingNames.isEmpty()) {
+            logger.error("🚫 Countries already exist: {}", existingNames);
+            throw new ObjectExistedException("Country exists");
+        }
+
+        countries.forEach(country -> {
+            country.setNations(new HashSet<>());
+            country.setCities(new HashSet<>());
+        });
+        List<CountryDto> savedCountries = countryRepository.saveAll(countries).stream()
+                .map(CountryDto::fromEntity)
+                .toList();
+        savedCountries.forEach(saved -> {
+            eventPublisher.publishEvent(NameChangedEvent.country(saved.getId(), saved.getName()));
+            eventPublisher.publishEvent(FiguresChangedEvent.country(saved.getId(),
+                    saved.getPopulation(), saved.getAreaSquareKm(), saved.getGdp()));
+        });
 
+        searchCache.remove(ALL_COUNTRIES);
         logger.info("✨ Added {} countries", savedCountries.size());
         return savedCountries;
     }
 
     @Transactional
-    public void deleteCountries() {
+    public DeleteResultDto deleteCountries() {
         logger.warn("Attempting to delete all countries");
 
+        DeleteResultDto result = new DeleteResultDto();
+        result.setDeletedNationLinks(countryRepository.deleteAllNationLinks());
+        result.setDeletedCities(cityRepository.deleteAllWithCountry());
+        result.setDeletedCountries(countryRepository.deleteAllCountries());
 
         searchCache.clear();
+        eventPublisher.publishEvent(NamesReloadEvent.countries());
+        eventPublisher.publishEvent(NamesReloadEvent.cities(null));
         logger.debug("♻️ Cleared all cache entries");
-
-
-        countryRepository.deleteAll();
-        logger.info("🗑️ Deleted all countries");
-
-
-        countryRepository.findAllWithCities().forEach(country ->
-                country.getCities().clear()
-        );
+        logger.info("🗑️ Deleted {} countries, {} cities and {} nation links",
+                result.getDeletedCountries(), result.getDeletedCities(),
+                result.getDeletedNationLinks());
+        return result;
     }
 
-    public List<CountryDto> searchCountriesByCityName(String cityName) {
-        List<Country> countries = countryRepository.findCountriesByCityName(cityName);
-        return convertToCountryDtoList(countries);
+    /**
+     * Countries with a city whose name contains {@code cityName}, ranked exact, prefix, then
+     * infix match. Answered from {@link CityNameIndex}; the {@code LIKE} query is only used
+     * while the index is being built.
+     */
+    @Transactional(readOnly = true)
+    public List<CountryDto> searchCountriesByCityName(String cityName, int limit) {
+        if (limit < 1 || limit > MAX_SEARCH_LIMIT) {
+            throw new IllegalArgumentException("Limit must be between 1 and "
+                    + MAX_SEARCH_LIMIT);
+        }
+        if (cityName == null) {
+            return List.of();
+        }
+        Optional<Map<Long, Set<Long>>> matches = cityNameIndex.findCountries(cityName, limit);
+        if (matches.isEmpty()) {
+            logger.info("City name index not ready, searching {} in the database", cityName);
+            List<Country> countries = countryRepository.findCountriesByCityName(cityName);
+            return convertToCountryDtoList(countries).stream().limit(limit).toList();
+        }
+        return getCountriesByIds(new ArrayList<>(matches.get().keySet())).stream()
+                .map(country -> {
+                    CountryDto dto = new CountryDto();
+                    BeanUtils.copyProperties(country, dto);
+                    dto.setCityIds(matches.get().get(country.getId()));
+                    return dto;
+                })
+                .toList();
     }
 
     private List<CountryDto> convertToCountryDtoList(List<Country> countries) {
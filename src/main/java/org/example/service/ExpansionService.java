@@ -0,0 +1,182 @@
+package org.example.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import org.example.cache.SearchCache;
+import org.example.dto.CityDto;
+import org.example.dto.CountryDto;
+import org.example.dto.NationDto;
+import org.example.model.Country;
+import org.example.model.Nation;
+import org.example.repository.CityRepository;
+import org.example.repository.CountryRepository;
+import org.example.repository.NationRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Expands relationships requested with {@code ?include=}. Each relationship is resolved for
+ * the whole result with one cache lookup for the per-id sets the other services already cache
+ * and one {@code IN} query per {@value #IN_CHUNK} missing ids, never per row. Cached DTOs are
+ * copied before relations are attached, so cache entries stay flat.
+ */
+@Service
+public class ExpansionService {
+    private static final Logger logger = LoggerFactory.getLogger(ExpansionService.class);
+
+    public static final String CITIES = "cities";
+    public static final String NATIONS = "nations";
+    public static final String COUNTRIES = "countries";
+
+    private static final String CITIES_BY_COUNTRY_PREFIX = "cities_country_";
+    private static final String ALL_NATIONS_BY_COUNTRY_ID = "allNationsByCountryId_";
+    private static final String ALL_COUNTRIES_BY_NATION_ID = "allCountriesByNationId_";
+    private static final int IN_CHUNK = 1000;
+    private static final int BACKFILL_LIMIT = 20;
+
+    private final CountryRepository countryRepository;
+    private final CityRepository cityRepository;
+    private final NationRepository nationRepository;
+    private final SearchCache searchCache;
+
+    public ExpansionService(CountryRepository countryRepository, CityRepository cityRepository,
+                            NationRepository nationRepository, SearchCache searchCache) {
+        this.countryRepository = countryRepository;
+        this.cityRepository = cityRepository;
+        this.nationRepository = nationRepository;
+        this.searchCache = searchCache;
+    }
+
+    public static Set<String> parseInclude(String include, Set<String> allowed) {
+        if (include == null || include.isBlank()) {
+            return Set.of();
+        }
+        Set<String> relations = Arrays.stream(include.split(","))
+                .map(String::trim)
+                .filter(relation -> !relation.isEmpty())
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+        for (String relation : relations) {
+            if (!allowed.contains(relation)) {
+                throw new IllegalArgumentException("Unsupported include: " + relation
+                        + ", allowed: " + allowed);
+            }
+        }
+        return relations;
+    }
+
+    @Transactional(readOnly = true)
+    public List<CountryDto> expandCountries(Collection<CountryDto> countries, String include) {
+        Set<String> relations = parseInclude(include, Set.of(CITIES, NATIONS));
+        if (relations.isEmpty()) {
+            return new ArrayList<>(countries);
+        }
+        List<Long> ids = countries.stream().map(CountryDto::getId).distinct().toList();
+        Map<Long, Set<CityDto>> cities = relations.contains(CITIES)
+                ? resolve(ids, CITIES_BY_COUNTRY_PREFIX, chunk ->
+                        cityRepository.findAllByCountryIdIn(chunk).stream()
+                                .collect(Collectors.groupingBy(
+                                        city -> city.getCountry().getId(),
+                                        Collectors.mapping(CityDto::fromEntity,
+                                                Collectors.toSet()))))
+                : Map.of();
+        Map<Long, Set<NationDto>> nations = relations.contains(NATIONS)
+                ? resolve(ids, ALL_NATIONS_BY_COUNTRY_ID, chunk ->
+                        countryRepository.findAllWithNationsByIdIn(chunk).stream()
+                                .collect(Collectors.toMap(Country::getId, country ->
+                                        country.getNations().stream()
+                                                .map(NationDto::fromEntity)
+                                                .collect(Collectors.toSet()))))
+                : Map.of();
+
+        return countries.stream().map(country -> {
+            CountryDto copy = copyOf(country);
+            if (relations.contains(CITIES)) {
+                copy.setCities(cities.getOrDefault(country.getId(), Set.of()));
+            }
+            if (relations.contains(NATIONS)) {
+                copy.setNations(nations.getOrDefault(country.getId(), Set.of()));
+            }
+            return copy;
+        }).toList();
+    }
+
+    @Transactional(readOnly = true)
+    public List<NationDto> expandNations(Collection<NationDto> nations, String include) {
+        Set<String> relations = parseInclude(include, Set.of(COUNTRIES));
+        if (relations.isEmpty()) {
+            return new ArrayList<>(nations);
+        }
+        List<Long> ids = nations.stream().map(NationDto::getId).distinct().toList();
+        Map<Long, Set<CountryDto>> countries = resolve(ids, ALL_COUNTRIES_BY_NATION_ID, chunk ->
+                nationRepository.findAllWithCountriesByIdIn(chunk).stream()
+                        .collect(Collectors.toMap(Nation::getId, nation ->
+                                nation.getCountries().stream()
+                                        .map(CountryDto::fromEntity)
+                                        .collect(Collectors.toSet()))));
+
+        return nations.stream().map(nation -> {
+            NationDto copy = new NationDto();
+            copy.setId(nation.getId());
+            copy.setName(nation.getName());
+            copy.setLanguage(nation.getLanguage());
+            copy.setReligion(nation.getReligion());
+            copy.setVersion(nation.getVersion());
+            copy.setCountries(countries.getOrDefault(nation.getId(), Set.of()));
+            return copy;
+        }).toList();
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> Map<Long, Set<T>> resolve(List<Long> ids, String cachePrefix,
+                                          Function<List<Long>, Map<Long, Set<T>>> loader) {
+        Map<String, Object> cached = searchCache.getAll(
+                ids.stream().map(id -> cachePrefix + id).toList());
+        Map<Long, Set<T>> result = new HashMap<>();
+        List<Long> misses = new ArrayList<>();
+        for (Long id : ids) {
+            if (cached.get(cachePrefix + id) instanceof Set<?> set) {
+                result.put(id, (Set<T>) set);
+            } else {
+                misses.add(id);
+            }
+        }
+
+        Map<String, Set<T>> backfill = new HashMap<>();
+        for (int i = 0; i < misses.size(); i += IN_CHUNK) {
+            loader.apply(misses.subList(i, Math.min(i + IN_CHUNK, misses.size())))
+                    .forEach((id, set) -> {
+                        result.put(id, set);
+                        backfill.put(cachePrefix + id, set);
+                    });
+        }
+        if (!backfill.isEmpty() && backfill.size() <= BACKFILL_LIMIT) {
+            searchCache.putAll(backfill);
+        }
+        logger.debug("Expanded {} for {} ids: {} from cache, {} loaded", cachePrefix,
+                ids.size(), ids.size() - misses.size(), misses.size());
+        return result;
+    }
+
+    private static CountryDto copyOf(CountryDto country) {
+        CountryDto copy = new CountryDto();
+        copy.setId(country.getId());
+        copy.setName(country.getName());
+        copy.setCapital(country.getCapital());
+        copy.setPopulation(country.getPopulation());
+        copy.setAreaSquareKm(country.getAreaSquareKm());
+        copy.setGdp(country.getGdp());
+        copy.setVersion(country.getVersion());
+        copy.setCityIds(country.getCityIds());
+        return copy;
+    }
+}
@@ -0,0 +1,123 @@
+package org.example.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import jakarta.persistence.EntityManager;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import org.example.dto.CityDto;
+import org.example.dto.CountryDto;
+import org.example.dto.NationDto;
+import org.example.model.City;
+import org.example.model.Country;
+import org.example.model.Nation;
+import org.example.repository.CityRepository;
+import org.example.repository.CountryRepository;
+import org.example.repository.NationRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Writes whole tables to an output stream row by row. Rows come from a JDBC cursor
+ * ({@code Stream<T>} with a fetch size) and every entity is detached once it has been
+ * written, so heap use does not grow with the number of exported rows.
+ */
+@Service
+public class ExportService {
+    private static final Logger logger = LoggerFactory.getLogger(ExportService.class);
+
+    public static final String FORMAT_NDJSON = "ndjson";
+    public static final String FORMAT_CSV = "csv";
+
+    private static final CsvSchema CITY_SCHEMA = CsvSchema.builder()
+            .addColumn("id").addColumn("name").addColumn("population")
+            .addColumn("areaSquareKm").addColumn("countryId").build().withHeader();
+    private static final CsvSchema COUNTRY_SCHEMA = CsvSchema.builder()
+            .addColumn("id").addColumn("name").addColumn("capital").addColumn("population")
+            .addColumn("areaSquareKm").addColumn("gdp").build().withHeader();
+    private static final CsvSchema NATION_SCHEMA = CsvSchema.builder()
+            .addColumn("id").addColumn("name").addColumn("language")
+            .addColumn("religion").build().withHeader();
+
+    private final ObjectMapper objectMapper;
+    private final CsvMapper csvMapper = new CsvMapper();
+    private final CityRepository cityRepository;
+    private final CountryRepository countryRepository;
+    private final NationRepository nationRepository;
+    private final EntityManager entityManager;
+
+    public ExportService(ObjectMapper objectMapper, CityRepository cityRepository,
+                         CountryRepository countryRepository, NationRepository nationRepository,
+                         EntityManager entityManager) {
+        this.objectMapper = objectMapper;
+        this.cityRepository = cityRepository;
+        this.countryRepository = countryRepository;
+        this.nationRepository = nationRepository;
+        this.entityManager = entityManager;
+    }
+
+    public static void checkFormat(String format) {
+        if (!FORMAT_NDJSON.equalsIgnoreCase(format) && !FORMAT_CSV.equalsIgnoreCase(format)) {
+            throw new IllegalArgumentException("Unsupported export format: " + format);
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public void exportCities(String format, OutputStream out) throws IOException {
+        try (Stream<City> cities = cityRepository.streamAllWithCountry()) {
+            export(cities, format, out, CITY_SCHEMA, CityDto::fromEntity,
+                    city -> new Object[]{city.getId(), city.getName(), city.getPopulation(),
+                        city.getAreaSquareKm(),
+                        city.getCountry() == null ? null : city.getCountry().getId()});
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public void exportCountries(String format, OutputStream out) throws IOException {
+        try (Stream<Country> countries = countryRepository.streamAll()) {
+            export(countries, format, out, COUNTRY_SCHEMA, CountryDto::fromEntity,
+                    country -> new Object[]{country.getId(), country.getName(),
+                        country.getCapital(), country.getPopulation(),
+                        country.getAreaSquareKm(), country.getGdp()});
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public void exportNations(String format, OutputStream out) throws IOException {
+        try (Stream<Nation> nations = nationRepository.streamAll()) {
+            export(nations, format, out, NATION_SCHEMA, NationDto::fromEntity,
+                    nation -> new Object[]{nation.getId(), nation.getName(),
+                        nation.getLanguage(), nation.getReligion()});
+        }
+    }
+
+    private <T> void export(Stream<T> rows, String format, OutputStream out, CsvSchema schema,
+                            Function<T, Object> toJson, Function<T, Object[]> toCsv)
+            throws IOException {
+        boolean csv = FORMAT_CSV.equalsIgnoreCase(format);
+        long count = 0;
+        try (SequenceWriter writer = csv
+                ? csvMapper.writer(schema)
+                        .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET).writeValues(out)
+                : objectMapper.writer().withRootValueSeparator("\n")
+                        .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET).writeValues(out)) {
+            for (T row : (Iterable<T>) rows::iterator) {
+                writer.write(csv ? toCsv.apply(row) : toJson.apply(row));
+                entityManager.detach(row);
+                count++;
+            }
+        }
+        if (!csv && count > 0) {
+            out.write('\n');
+        }
+        out.flush();
+        logger.info("📤 Exported {} rows as {}", count, csv ? FORMAT_CSV : FORMAT_NDJSON);
+    }
+}
@@ -0,0 +1,407 @@
+package org.example.service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.example.cache.SearchCache;
+import org.example.config.GazetteerProperties;
+import org.example.dto.CityImportDto;
+import org.example.dto.ImportReportDto;
+import org.example.dto.ImportReportDto.RowError;
+import org.example.event.NamesReloadEvent;
+import org.example.repository.CityRepository;
+import org.example.repository.CopyRepository;
+import org.example.repository.CountryRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+
+/**
+ * Offline loader for large tab-separated gazetteer dumps. The file is memory-mapped and cut
+ * into line-aligned chunks that are parsed in parallel; parsed chunks are written in file
+ * order through {@code COPY}, one batch per commit, with countries resolved from an
+ * in-memory name map. After every chunk its end offset goes to a checkpoint file, so a
+ * restarted load continues after the last finished chunk. Rows that are already stored are
+ * skipped the same way {@link ImportService} skips them.
+ */
+@Service
+public class GazetteerLoadService {
+    private static final Logger logger = LoggerFactory.getLogger(GazetteerLoadService.class);
+
+    private static final String CITY_SEQUENCE = "city_seq";
+    private static final long MEGABYTE = 1024L * 1024;
+    private static final int SCAN_BUFFER_SIZE = 8192;
+
+    private final GazetteerProperties properties;
+    private final CountryRepository countryRepository;
+    private final CityRepository cityRepository;
+    private final CopyRepository copyRepository;
+    private final SearchCache searchCache;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public GazetteerLoadService(GazetteerProperties properties,
+                                CountryRepository countryRepository,
+                                CityRepository cityRepository, CopyRepository copyRepository,
+                                SearchCache searchCache,
+                                ApplicationEventPublisher eventPublisher) {
+        this.properties = properties;
+        this.countryRepository = countryRepository;
+        this.cityRepository = cityRepository;
+        this.copyRepository = copyRepository;
+        this.searchCache = searchCache;
+        this.eventPublisher = eventPublisher;
+    }
+
+    public ImportReportDto load(Path file) throws IOException {
+        long started = System.nanoTime();
+        Path checkpointFile = properties.getCheckpoint() == null
+                ? file.resolveSibling(file.getFileName() + ".checkpoint")
+                : Path.of(properties.getCheckpoint());
+        Checkpoint checkpoint = readCheckpoint(checkpointFile);
+        Map<String, Long> countries = countryIdsByName();
+        int threads = Math.max(1, properties.getThreads());
+        ImportReportDto report = new ImportReportDto();
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        ExecutorService parsers = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable,
+                    "gazetteer-parser-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (checkpoint.offset > channel.size()) {
+                throw new IllegalStateException("Checkpoint " + checkpointFile
+                        + " is past the end of " + file + ", remove it to start over");
+            }
+            List<long[]> chunks = split(channel, checkpoint.offset);
+            logger.info("🌍 Loading {} from byte {} (line {}): {} chunks, {} parser threads",
+                    file, checkpoint.offset, checkpoint.line, chunks.size(), threads);
+
+            Deque<Future<ParsedChunk>> parsing = new ArrayDeque<>();
+            int next = 0;
+            long line = checkpoint.line;
+            while (next < chunks.size() || !parsing.isEmpty()) {
+                while (next < chunks.size() && parsing.size() <= threads) {
+                    long[] chunk = chunks.get(next++);
+                    parsing.add(parsers.submit(() ->
+                            parse(channel, chunk[0], chunk[1], countries)));
+                }
+                ParsedChunk parsed = await(parsing.removeFirst());
+                write(parsed, line, report);
+                line += parsed.lines;
+                writeCheckpoint(checkpointFile, new Checkpoint(parsed.end, line));
+                logger.info("📦 Gazetteer progress: {} processed, {} imported, {} failed,"
+                        + " {} rows/s", report.getProcessed(), report.getImported(),
+                        report.getFailed(), rowsPerSecond(report.getImported(), started));
+            }
+        } finally {
+            parsers.shutdownNow();
+        }
+        Files.deleteIfExists(checkpointFile);
+
+        if (report.getImported() > 0) {
+            searchCache.clear();
+            eventPublisher.publishEvent(NamesReloadEvent.cities(null));
+        }
+        report.setElapsedMillis((System.nanoTime() - started) / 1_000_000);
+        logger.info("📥 Gazetteer load of {} finished: {} processed, {} imported, {} failed"
+                + " in {} ms ({} rows/s)", file, report.getProcessed(), report.getImported(),
+                report.getFailed(), report.getElapsedMillis(),
+                rowsPerSecond(report.getImported(), started));
+        return report;
+    }
+
+    private Map<String, Long> countryIdsByName() {
+        Map<String, Long> countries = new HashMap<>();
+        for (Object[] row : countryRepository.findAllIdsAndNames()) {
+            if (row[1] != null) {
+                countries.put(((String) row[1]).toLowerCase(Locale.ROOT), (Long) row[0]);
+            }
+        }
+        for (String code : Locale.getISOCountries()) {
+            String name = new Locale("", code).getDisplayCountry(Locale.ENGLISH);
+            Long id = countries.get(name.toLowerCase(Locale.ROOT));
+            if (id != null) {
+                countries.putIfAbsent(code.toLowerCase(Locale.ROOT), id);
+            }
+        }
+        properties.getCountryAliases().forEach((alias, name) -> {
+            Long id = countries.get(name.toLowerCase(Locale.ROOT));
+            if (id == null) {
+                logger.warn("⚠️ Country alias {} points to unknown country {}", alias, name);
+            } else {
+                countries.put(alias.toLowerCase(Locale.ROOT), id);
+            }
+        });
+        return countries;
+    }
+
+    /** Cuts {@code [from, size)} into chunks that each end right after a line break. */
+    private List<long[]> split(FileChannel channel, long from) throws IOException {
+        long size = channel.size();
+        long chunkBytes = Math.min(Math.max(1, properties.getChunkMegabytes()) * MEGABYTE,
+                Integer.MAX_VALUE);
+        List<long[]> chunks = new ArrayList<>();
+        long start = from;
+        while (start < size) {
+            long end = size - start <= chunkBytes ? size
+                    : nextLineStart(channel, start + chunkBytes, size);
+            chunks.add(new long[] {start, end});
+            start = end;
+        }
+        return chunks;
+    }
+
+    private static long nextLineStart(FileChannel channel, long position, long size)
+            throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(SCAN_BUFFER_SIZE);
+        long offset = position;
+        while (offset < size) {
+            buffer.clear();
+            int read = channel.read(buffer, offset);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                if (buffer.get(i) == '\n') {
+                    return offset + i + 1;
+                }
+            }
+            offset += read;
+        }
+        return size;
+    }
+
+    private ParsedChunk parse(FileChannel channel, long start, long end,
+                              Map<String, Long> countries) throws IOException {
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+        int columns = Math.max(Math.max(properties.getNameColumn(), properties.getCountryColumn()),
+                Math.max(properties.getPopulationColumn(), properties.getAreaColumn())) + 1;
+        int[] fieldStarts = new int[columns];
+        int[] fieldEnds = new int[columns];
+        ParsedChunk chunk = new ParsedChunk(end);
+
+        int limit = buffer.limit();
+        int lineStart = 0;
+        while (lineStart < limit) {
+            int lineEnd = lineStart;
+            while (lineEnd < limit && buffer.get(lineEnd) != '\n') {
+                lineEnd++;
+            }
+            chunk.lines++;
+            int contentEnd = lineEnd > lineStart && buffer.get(lineEnd - 1) == '\r'
+                    ? lineEnd - 1 : lineEnd;
+            if (contentEnd > lineStart && buffer.get(lineStart) != '#') {
+                int fields = 0;
+                int fieldStart = lineStart;
+                for (int i = lineStart; i <= contentEnd && fields < columns; i++) {
+                    if (i == contentEnd || buffer.get(i) == '\t') {
+                        fieldStarts[fields] = fieldStart;
+                        fieldEnds[fields] = i;
+                        fields++;
+                        fieldStart = i + 1;
+                    }
+                }
+                parseLine(buffer, fieldStarts, fieldEnds, fields, countries, chunk);
+            }
+            lineStart = lineEnd + 1;
+        }
+        return chunk;
+    }
+
+    private void parseLine(MappedByteBuffer buffer, int[] starts, int[] ends, int fields,
+                           Map<String, Long> countries, ParsedChunk chunk) {
+        chunk.processed++;
+        String name = field(buffer, starts, ends, fields, properties.getNameColumn());
+        if (name == null) {
+            chunk.errors.add(new RowError(chunk.lines, "City name cannot be null or empty"));
+            return;
+        }
+        String country = field(buffer, starts, ends, fields, properties.getCountryColumn());
+        Long countryId = country == null ? null : countries.get(country.toLowerCase(Locale.ROOT));
+        if (countryId == null) {
+            chunk.errors.add(new RowError(chunk.lines, "Unknown country: " + country));
+            return;
+        }
+        CityImportDto city = new CityImportDto();
+        city.setName(name);
+        city.setCountryId(countryId);
+        try {
+            city.setPopulation(amount(field(buffer, starts, ends, fields,
+                    properties.getPopulationColumn())));
+        } catch (NumberFormatException e) {
+            chunk.errors.add(new RowError(chunk.lines, "Invalid population value"));
+            return;
+        }
+        try {
+            city.setAreaSquareKm(amount(field(buffer, starts, ends, fields,
+                    properties.getAreaColumn())));
+        } catch (NumberFormatException e) {
+            chunk.errors.add(new RowError(chunk.lines, "Invalid area value"));
+            return;
+        }
+        chunk.rows.add(city);
+        chunk.rowLines.add(chunk.lines);
+    }
+
+    private static String field(MappedByteBuffer buffer, int[] starts, int[] ends, int fields,
+                                int column) {
+        if (column < 0 || column >= fields) {
+            return null;
+        }
+        byte[] bytes = new byte[ends[column] - starts[column]];
+        buffer.get(starts[column], bytes);
+        String value = new String(bytes, StandardCharsets.UTF_8).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    private static Double amount(String value) {
+        if (value == null) {
+            return null;
+        }
+        double amount = Double.parseDouble(value);
+        if (amount < 0 || Double.isNaN(amount) || Double.isInfinite(amount)) {
+            throw new NumberFormatException(value);
+        }
+        return amount;
+    }
+
+    private void write(ParsedChunk chunk, long firstLine, ImportReportDto report) {
+        report.setProcessed(report.getProcessed() + chunk.processed);
+        chunk.errors.forEach(error ->
+                report.addError(firstLine + error.getLine(), error.getMessage()));
+
+        int batchSize = Math.max(1, properties.getBatchSize());
+        Set<String> chunkKeys = new HashSet<>();
+        for (int from = 0; from < chunk.rows.size(); from += batchSize) {
+            int to = Math.min(from + batchSize, chunk.rows.size());
+            List<CityImportDto> batch = new ArrayList<>(to - from);
+            List<Long> lines = new ArrayList<>(to - from);
+            for (int i = from; i < to; i++) {
+                CityImportDto city = chunk.rows.get(i);
+                if (chunkKeys.add(key(city))) {
+                    batch.add(city);
+                    lines.add(firstLine + chunk.rowLines.get(i));
+                } else {
+                    report.addError(firstLine + chunk.rowLines.get(i),
+                            "Duplicate row: " + key(city));
+                }
+            }
+            Set<String> existing = findExistingCityKeys(batch);
+            List<CityImportDto> accepted = new ArrayList<>(batch.size());
+            for (int i = 0; i < batch.size(); i++) {
+                if (existing.contains(key(batch.get(i)))) {
+                    report.addError(lines.get(i), "Already exists: " + key(batch.get(i)));
+                } else {
+                    accepted.add(batch.get(i));
+                }
+            }
+            if (!accepted.isEmpty()) {
+                report.setImported(report.getImported() + copyRepository.copyCities(accepted,
+                        copyRepository.reserveIds(CITY_SEQUENCE, accepted.size())));
+            }
+        }
+        report.setChunks(report.getChunks() + 1);
+    }
+
+    private Set<String> findExistingCityKeys(Collection<CityImportDto> cities) {
+        if (cities.isEmpty()) {
+            return Set.of();
+        }
+        Set<Long> countryIds = new HashSet<>();
+        Set<String> names = new HashSet<>();
+        for (CityImportDto city : cities) {
+            countryIds.add(city.getCountryId());
+            names.add(city.getName().toLowerCase(Locale.ROOT));
+        }
+        return new HashSet<>(cityRepository.findExistingNameKeys(countryIds, names));
+    }
+
+    private static String key(CityImportDto city) {
+        return city.getCountryId() + ":" + city.getName().toLowerCase(Locale.ROOT);
+    }
+
+    private static long rowsPerSecond(long rows, long startedNanos) {
+        long elapsed = System.nanoTime() - startedNanos;
+        return elapsed <= 0 ? rows : rows * 1_000_000_000L / elapsed;
+    }
+
+    private static ParsedChunk await(Future<ParsedChunk> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Gazetteer load interrupted", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException io) {
+                throw io;
+            }
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException("Parsing failed", e.getCause());
+        }
+    }
+
+    private static Checkpoint readCheckpoint(Path file) throws IOException {
+        if (!Files.exists(file)) {
+            return new Checkpoint(0, 0);
+        }
+        String[] values = Files.readString(file).trim().split("\\s+");
+        logger.info("⏩ Resuming from checkpoint {}", file);
+        return new Checkpoint(Long.parseLong(values[0]), Long.parseLong(values[1]));
+    }
+
+    private static void writeCheckpoint(Path file, Checkpoint checkpoint) throws IOException {
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        Files.writeString(temporary, checkpoint.offset + " " + checkpoint.line + "\n");
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static final class Checkpoint {
+        final long offset;
+        final long line;
+
+        Checkpoint(long offset, long line) {
+            this.offset = offset;
+            this.line = line;
+        }
+    }
+
+    private static final class ParsedChunk {
+        final long end;
+        final List<CityImportDto> rows = new ArrayList<>();
+        final List<Integer> rowLines = new ArrayList<>();
+        final List<RowError> errors = new ArrayList<>();
+        int lines;
+        int processed;
+
+        ParsedChunk(long end) {
+            this.end = end;
+        }
+    }
+}
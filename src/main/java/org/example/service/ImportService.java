@@ -0,0 +1,262 @@
+package org.example.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.exc.StreamReadException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+import org.example.cache.SearchCache;
+import org.example.dto.CityImportDto;
+import org.example.dto.CountryImportDto;
+import org.example.dto.ImportReportDto;
+import org.example.event.NamesReloadEvent;
+import org.example.model.City;
+import org.example.repository.CityRepository;
+import org.example.repository.CopyRepository;
+import org.example.repository.CountryRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionTimedOutException;
+
+/**
+ * Streams NDJSON or CSV request bodies row by row and writes them in fixed-size chunks
+ * through {@code COPY}, so memory use depends on the chunk size, not on the upload size.
+ * Every chunk is committed on its own; rows that fail validation and chunks the database
+ * rejects are reported and skipped, and the import goes on with the next chunk. Running out
+ * of the request's time budget is not a rejected chunk: it stops the import with a timeout,
+ * and the chunks committed so far stay.
+ */
+@Service
+public class ImportService {
+    private static final Logger logger = LoggerFactory.getLogger(ImportService.class);
+
+    public static final String FORMAT_NDJSON = "ndjson";
+    public static final String FORMAT_CSV = "csv";
+    private static final int CHUNK_SIZE = 5000;
+
+    private final ObjectMapper objectMapper;
+    private final CsvMapper csvMapper = new CsvMapper();
+    private final CopyRepository copyRepository;
+    private final CountryRepository countryRepository;
+    private final CityRepository cityRepository;
+    private final SearchCache searchCache;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public ImportService(ObjectMapper objectMapper, CopyRepository copyRepository,
+                         CountryRepository countryRepository, CityRepository cityRepository,
+                         SearchCache searchCache, ApplicationEventPublisher eventPublisher) {
+        this.objectMapper = objectMapper;
+        this.copyRepository = copyRepository;
+        this.countryRepository = countryRepository;
+        this.cityRepository = cityRepository;
+        this.searchCache = searchCache;
+        this.eventPublisher = eventPublisher;
+    }
+
+    public ImportReportDto importCities(InputStream body, String format) {
+        Set<Long> countryIds = new HashSet<>(countryRepository.findAllIds());
+        ImportReportDto report = new ImportReportDto();
+        try {
+            runImport(report, body, format, CityImportDto.class,
+                    city -> validateCity(city, countryIds),
+                    city -> city.getCountryId() + ":" + city.getName().toLowerCase(Locale.ROOT),
+                    this::findExistingCityKeys,
+                    cities -> copyRepository.copyCities(cities,
+                            copyRepository.reserveIds("city_seq", cities.size())));
+        } finally {
+            if (report.getImported() > 0) {
+                searchCache.clear();
+                eventPublisher.publishEvent(NamesReloadEvent.cities(null));
+            }
+        }
+        return report;
+    }
+
+    public ImportReportDto importCountries(InputStream body, String format) {
+        ImportReportDto report = new ImportReportDto();
+        try {
+            runImport(report, body, format, CountryImportDto.class,
+                    this::validateCountry,
+                    country -> country.getName().toLowerCase(Locale.ROOT),
+                    countries -> new HashSet<>(countryRepository.findExistingNames(
+                            countries.stream()
+                                    .map(country -> country.getName().toLowerCase(Locale.ROOT))
+                                    .toList())),
+                    countries -> copyRepository.copyCountries(countries,
+                            copyRepository.reserveIds("country_seq", countries.size())));
+        } finally {
+            if (report.getImported() > 0) {
+                searchCache.clear();
+                eventPublisher.publishEvent(NamesReloadEvent.countries());
+            }
+        }
+        return report;
+    }
+
+    private <T> void runImport(ImportReportDto report, InputStream body, String format,
+                               Class<T> type, Function<T, String> validator,
+                               Function<T, String> keyFunction,
+                               Function<List<T>, Set<String>> existingKeys,
+                               ToLongFunction<List<T>> writer) {
+        long started = System.currentTimeMillis();
+        List<T> chunk = new ArrayList<>(CHUNK_SIZE);
+        List<Long> chunkLines = new ArrayList<>(CHUNK_SIZE);
+        Set<String> chunkKeys = new HashSet<>();
+
+        try (MappingIterator<T> rows = readerFor(type, format).readValues(body)) {
+            while (rows.hasNextValue()) {
+                long line = rows.getCurrentLocation().getLineNr();
+                report.setProcessed(report.getProcessed() + 1);
+                T row;
+                try {
+                    row = rows.nextValue();
+                } catch (StreamReadException e) {
+                    throw e;
+                } catch (JsonProcessingException e) {
+                    report.addError(line, e.getOriginalMessage());
+                    continue;
+                }
+                String error = validator.apply(row);
+                if (error == null && !chunkKeys.add(keyFunction.apply(row))) {
+                    error = "Duplicate row: " + keyFunction.apply(row);
+                }
+                if (error != null) {
+                    report.addError(line, error);
+                    continue;
+                }
+                chunk.add(row);
+                chunkLines.add(line);
+                if (chunk.size() >= CHUNK_SIZE) {
+                    writeChunk(chunk, chunkLines, keyFunction, existingKeys, writer, report);
+                    chunkKeys.clear();
+                }
+            }
+        } catch (StreamReadException e) {
+            report.addError(e.getLocation() == null ? -1 : e.getLocation().getLineNr(),
+                    "Malformed input, import stopped: " + e.getOriginalMessage());
+        } catch (IOException e) {
+            report.addError(-1, "Could not read request body: " + e.getMessage());
+        }
+        if (!chunk.isEmpty()) {
+            writeChunk(chunk, chunkLines, keyFunction, existingKeys, writer, report);
+        }
+
+        report.setElapsedMillis(System.currentTimeMillis() - started);
+        logger.info("📥 Import of {} finished: {} processed, {} imported, {} failed in {} ms",
+                type.getSimpleName(), report.getProcessed(), report.getImported(),
+                report.getFailed(), report.getElapsedMillis());
+    }
+
+    private <T> void writeChunk(List<T> chunk, List<Long> lines,
+                                Function<T, String> keyFunction,
+                                Function<List<T>, Set<String>> existingKeys,
+                                ToLongFunction<List<T>> writer, ImportReportDto report) {
+        List<T> accepted = new ArrayList<>(chunk.size());
+        List<Long> acceptedLines = new ArrayList<>(chunk.size());
+        try {
+            Set<String> existing = existingKeys.apply(chunk);
+            for (int i = 0; i < chunk.size(); i++) {
+                String key = keyFunction.apply(chunk.get(i));
+                if (existing.contains(key)) {
+                    report.addError(lines.get(i), "Already exists: " + key);
+                } else {
+                    accepted.add(chunk.get(i));
+                    acceptedLines.add(lines.get(i));
+                }
+            }
+            if (!accepted.isEmpty()) {
+                report.setImported(report.getImported() + writer.applyAsLong(accepted));
+            }
+        } catch (QueryTimeoutException | TransactionTimedOutException e) {
+            logger.warn("⏱️ Import stopped after {} imported rows: request time budget exceeded",
+                    report.getImported());
+            throw e;
+        } catch (DataAccessException e) {
+            logger.warn("🚫 Import chunk of {} rows not written: {}", chunk.size(),
+                    e.getMostSpecificCause().getMessage());
+            List<Long> failedLines = accepted.isEmpty() ? lines : acceptedLines;
+            failedLines.forEach(line -> report.addError(line,
+                    "Chunk rejected by the database: " + e.getMostSpecificCause().getMessage()));
+        }
+        report.setChunks(report.getChunks() + 1);
+        chunk.clear();
+        lines.clear();
+        logger.info("📦 Import progress: {} processed, {} imported, {} failed",
+                report.getProcessed(), report.getImported(), report.getFailed());
+    }
+
+    private ObjectReader readerFor(Class<?> type, String format) {
+        if (FORMAT_CSV.equalsIgnoreCase(format)) {
+            return csvMapper.readerFor(type).with(CsvSchema.emptySchema().withHeader());
+        }
+        if (FORMAT_NDJSON.equalsIgnoreCase(format)) {
+            return objectMapper.readerFor(type);
+        }
+        throw new IllegalArgumentException("Unsupported import format: " + format);
+    }
+
+    private Set<String> findExistingCityKeys(Collection<CityImportDto> cities) {
+        Set<Long> countryIds = new HashSet<>();
+        Set<String> names = new HashSet<>();
+        for (CityImportDto city : cities) {
+            countryIds.add(city.getCountryId());
+            names.add(city.getName().toLowerCase(Locale.ROOT));
+        }
+        return new HashSet<>(cityRepository.findExistingNameKeys(countryIds, names));
+    }
+
+    private String validateCity(CityImportDto city, Set<Long> countryIds) {
+        if (city.getName() == null || city.getName().isEmpty()) {
+            return "City name cannot be null or empty";
+        }
+        if (city.getName().length() > City.MAX_NAME_LENGTH) {
+            return "City name cannot be longer than " + City.MAX_NAME_LENGTH + " characters";
+        }
+        if (city.getCountryId() == null || !countryIds.contains(city.getCountryId())) {
+            return "Country with id " + city.getCountryId() + " does not exist";
+        }
+        if (isInvalidAmount(city.getPopulation())) {
+            return "Invalid population value";
+        }
+        if (isInvalidAmount(city.getAreaSquareKm())) {
+            return "Invalid area value";
+        }
+        return null;
+    }
+
+    private String validateCountry(CountryImportDto country) {
+        if (country.getName() == null || country.getName().isEmpty()) {
+            return "Country name cannot be null or empty";
+        }
+        if (isInvalidAmount(country.getPopulation())) {
+            return "Invalid population value";
+        }
+        if (isInvalidAmount(country.getAreaSquareKm())) {
+            return "Invalid area value";
+        }
+        if (isInvalidAmount(country.getGdp())) {
+            return "Invalid GDP value";
+        }
+        return null;
+    }
+
+    private boolean isInvalidAmount(Double value) {
+        return value != null && (value < 0 || value.isNaN() || value.isInfinite());
+    }
+}
@@ -1,25 +1,42 @@
 package org.example.service;
 
-import jakarta.transaction.Transactional;
 import java.util.ArrayList;
-import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 import lombok.AllArgsConstructor;
+import org.example.cache.NameDictionary;
 import org.example.cache.SearchCache;
+import org.example.dto.CountryDto;
+import org.example.dto.DeleteResultDto;
+import org.example.dto.NationDto;
+import org.example.event.NameChangedEvent;
+import org.example.event.NationLanguageChangedEvent;
+import org.example.event.NationLinkChangedEvent;
 import org.example.exception.ObjectExistedException;
 import org.example.exception.ObjectNotFoundException;
+import org.example.exception.StaleVersionException;
 import org.example.model.Country;
 import org.example.model.Nation;
 import org.example.repository.CountryRepository;
+import org.example.repository.NationBatchRepository;
 import org.example.repository.NationRepository;
+import org.example.repository.VersionedUpdateRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 @AllArgsConstructor
 @Service
 public class NationService {
+    private static final Logger logger = LoggerFactory.getLogger(NationService.class);
 
     private final NationRepository nationRepository;
 
@@ -27,6 +44,14 @@ public class NationService {
 
     private final SearchCache cacheService;
 
+    private final VersionedUpdateRepository versionedUpdateRepository;
+
+    private final NationBatchRepository nationBatchRepository;
+
+    private final NameDictionary nameDictionary;
+
+    private final ApplicationEventPublisher eventPublisher;
+
     private static final String ALL_NATIONS_BY_COUNTRY_ID =
             "allNationsByCountryId_";
     private static final String ALL_COUNTRIES_BY_NATION_ID =
@@ -37,17 +62,17 @@ public class NationService {
 
     private void cleanCache(final Long nationId, final Nation nation) {
 
-        List<Country> countries = countryRepository
-                .findCountriesWithNationsByNationByNationId(nationId);
+        List<Long> countryIds = nationRepository
+                .findCountryIdsByNationId(nationId);
 
-        for (Country country : countries) {
+        for (Long countryId : countryIds) {
             if (cacheService.containsKey(
-                    ALL_NATIONS_BY_COUNTRY_ID + country.getId())) {
+                    ALL_NATIONS_BY_COUNTRY_ID + countryId)) {
                 cacheService.remove(
-                        ALL_NATIONS_BY_COUNTRY_ID + country.getId());
+                        ALL_NATIONS_BY_COUNTRY_ID + countryId);
             }
-            if (cacheService.containsKey(COUNTRY_ID + country.getId())) {
-                cacheService.remove(COUNTRY_ID + country.getId());
+            if (cacheService.containsKey(COUNTRY_ID + countryId)) {
+                cacheService.remove(COUNTRY_ID + countryId);
             }
         }
 
@@ -65,9 +90,10 @@ public class NationService {
         }
     }
 
-    public Set<Nation> getNationsByCountryId(final Long countryId) {
+    @Transactional(readOnly = true)
+    public Set<NationDto> getNationsByCountryId(final Long countryId) {
         if (cacheService.containsKey(ALL_NATIONS_BY_COUNTRY_ID + countryId)) {
-            return (Set<Nation>) cacheService
+            return (Set<NationDto>) cacheService
                     .get(ALL_NATIONS_BY_COUNTRY_ID + countryId);
         } else {
             Country country = countryRepository
@@ -76,42 +102,51 @@ public class NationService {
                             "country, which id " + countryId
                                     + " doesn't exist, that's why "
                                     + "you can't view nations from its"));
-            Set<Nation> nations = country.getNations();
+            Set<NationDto> nations = country.getNations().stream()
+                    .map(NationDto::fromEntity)
+                    .collect(Collectors.toSet());
             cacheService.put(ALL_NATIONS_BY_COUNTRY_ID + countryId, nations);
             return nations;
         }
     }
 
-    public List<Nation> getNations() {
+    @Transactional(readOnly = true)
+    public List<NationDto> getNations() {
         if (cacheService.containsKey(ALL_NATIONS)) {
-            return (List<Nation>) cacheService.get(ALL_NATIONS);
+            return (List<NationDto>) cacheService.get(ALL_NATIONS);
         } else {
-            List<Nation> nations = nationRepository.findAll();
+            List<NationDto> nations = nationRepository.findAll().stream()
+                    .map(NationDto::fromEntity)
+                    .toList();
             cacheService.put(ALL_NATIONS, nations);
             return nations;
         }
     }
 
-    public Set<Country> getCountriesByNationId(final Long nationId) {
+    @Transactional(readOnly = true)
+    public Set<CountryDto> getCountriesByNationId(final Long nationId) {
 
         if (cacheService.containsKey(ALL_COUNTRIES_BY_NATION_ID + nationId)) {
-            return (Set<Country>) cacheService
+            return (Set<CountryDto>) cacheService
                     .get(ALL_COUNTRIES_BY_NATION_ID + nationId);
         } else {
             Nation nation = nationRepository
-                    .findByIdWithCountriesWithCities(nationId)
+                    .findByIdWithCountries(nationId)
                     .orElseThrow(() -> new ObjectNotFoundException(
                             "nation, which id " + nationId
                                     + " does not exist, that's why "
                                     + "you can't view countries from its"));
-            Set<Country> countries = new HashSet<>(nation.getCountries());
+            Set<CountryDto> countries = nation.getCountries().stream()
+                    .map(CountryDto::fromEntity)
+                    .collect(Collectors.toSet());
             cacheService.put(ALL_COUNTRIES_BY_NATION_ID + nationId, countries);
             return countries;
         }
     }
 
-    public Nation addNewNationByCountryId(final Long countryId,
-                                          final Nation nationRequest) {
+    @Transactional
+    public NationDto addNewNationByCountryId(final Long countryId,
+                                             final Nation nationRequest) {
 
         Country country = countryRepository
                 .findCountryWithNationsById(countryId)
@@ -120,22 +155,30 @@ public class NationService {
                                 + " doesn't exist, that is why "
                                 + "you can't add nation to its"));
 
-        Nation nation = nationRepository
-                .findNationByName(nationRequest.getName());
+        Long nationId = nameDictionary.findNationId(nationRequest.getName());
+        Nation nation = nationId == null ? null : nationRepository
+                .findById(nationId)
+                .filter(found -> found.getName()
+                        .equalsIgnoreCase(nationRequest.getName()))
+                .orElse(null);
 
         if (country.getNations().stream().noneMatch(
                 nationFunc -> nationFunc.getName()
-                        .equals(nationRequest.getName()))) {
+                        .equalsIgnoreCase(nationRequest.getName()))) {
             if (nation != null) {
                 country.getNations().add(nation);
                 countryRepository.save(country);
             } else {
-                nationRepository.save(nationRequest);
-                country.getNations().add(nationRequest);
+                nation = nationRepository.save(nationRequest);
+                country.getNations().add(nation);
                 countryRepository.save(country);
-                nation = nationRepository
-                        .findNationByName(nationRequest.getName());
+                eventPublisher.publishEvent(NameChangedEvent
+                        .nation(nation.getId(), nation.getName()));
+                eventPublisher.publishEvent(new NationLanguageChangedEvent(
+                        nation.getId(), nation.getLanguage()));
             }
+            eventPublisher.publishEvent(NationLinkChangedEvent
+                    .linked(countryId, nation.getId()));
         } else {
             throw new ObjectExistedException(
                     "nation with name " + nationRequest.getName()
@@ -145,21 +188,89 @@ public class NationService {
 
         cleanCache(nation.getId(), nation);
 
-        return nation;
+        return NationDto.fromEntity(nation);
     }
 
-    public List<Nation> addNewNationsByCountryId(final Long countryId,
-                                          final List<Nation> nationsRequest) {
-        List<Nation> addedNations = new ArrayList<>();
+    @Transactional
+    public List<NationDto> addNewNationsByCountryId(final Long countryId,
+                                                    final List<Nation> nationsRequest) {
+        if (!countryRepository.existsById(countryId)) {
+            throw new ObjectNotFoundException(
+                    "country, which id " + countryId
+                            + " doesn't exist, that is why "
+                            + "you can't add nation to its");
+        }
 
-        nationsRequest.forEach(nation -> addedNations
-                .add(addNewNationByCountryId(countryId, nation)));
+        Set<String> names = new LinkedHashSet<>();
+        for (Nation nation : nationsRequest) {
+            if (nation.getName() == null || nation.getName().isEmpty()) {
+                throw new IllegalArgumentException(
+                        "nation name cannot be null or empty");
+            }
+            if (!names.add(NameDictionary.normalize(nation.getName()))) {
+                throw new ObjectExistedException(
+                        "nation with name " + nation.getName()
+                                + " is repeated in the request");
+            }
+        }
+        if (names.isEmpty()) {
+            return new ArrayList<>();
+        }
 
-        return addedNations;
+        List<String> linkedNames = nationRepository
+                .findLinkedNames(countryId, names);
+        if (!linkedNames.isEmpty()) {
+            throw new ObjectExistedException(
+                    "nation with name " + linkedNames.get(0)
+                            + " already exists in the country with id "
+                            + countryId + ".");
+        }
+
+        Set<String> insertedNames = nationBatchRepository.insertMissing(nationsRequest).stream()
+                .map(nation -> NameDictionary.normalize(nation.getName()))
+                .collect(Collectors.toSet());
+        Map<String, Nation> nationsByName = nationRepository
+                .findAllByNameIn(names).stream()
+                .collect(Collectors.toMap(
+                        nation -> NameDictionary.normalize(nation.getName()),
+                        Function.identity()));
+        for (String name : names) {
+            if (!nationsByName.containsKey(name)) {
+                throw new ObjectNotFoundException(
+                        "nation with name " + name
+                                + " was deleted while it was being added to the country"
+                                + " with id " + countryId + ", please retry");
+            }
+        }
+        List<Long> nationIds = names.stream()
+                .map(name -> nationsByName.get(name).getId())
+                .toList();
+        nationBatchRepository.linkToCountry(countryId, nationIds);
+        insertedNames.forEach(name -> {
+            Nation nation = nationsByName.get(name);
+            eventPublisher.publishEvent(NameChangedEvent.nation(nation.getId(), nation.getName()));
+            eventPublisher.publishEvent(new NationLanguageChangedEvent(nation.getId(),
+                    nation.getLanguage()));
+        });
+        nationIds.forEach(nationId -> eventPublisher.publishEvent(
+                NationLinkChangedEvent.linked(countryId, nationId)));
+
+        cacheService.remove(ALL_NATIONS);
+        cacheService.remove(ALL_NATIONS_BY_COUNTRY_ID + countryId);
+        cacheService.remove(COUNTRY_ID + countryId);
+        cacheService.remove(ALL_COUNTRIES);
+        nationIds.forEach(nationId -> cacheService
+                .remove(ALL_COUNTRIES_BY_NATION_ID + nationId));
+
+        logger.info("➕ Linked {} nations ({} new) to country with ID: {}",
+                nationIds.size(), insertedNames.size(), countryId);
+        return names.stream()
+                .map(name -> NationDto.fromEntity(nationsByName.get(name)))
+                .toList();
     }
 
     @Transactional
-    public Nation updateNation(final Long nationId,
+    public NationDto updateNation(final Long nationId,
                                final String name,
                                final String language,
                                final String religion) {
@@ -173,18 +284,22 @@ public class NationService {
 
         if (name != null && !name.isEmpty()
                 && !Objects.equals(nation.getName(), name)) {
-            Optional<Nation> nationOptional = Optional
-                    .ofNullable(nationRepository.findNationByName(name));
+            Optional<Nation> nationOptional = nameDictionary.findNationId(name) == null
+                    ? Optional.empty()
+                    : Optional.ofNullable(nationRepository.findNationByName(name))
+                            .filter(found -> !found.getId().equals(nationId));
             if (nationOptional.isPresent()) {
                 throw new ObjectExistedException(
                         "nation with this name exists");
             }
             nation.setName(name);
+            eventPublisher.publishEvent(NameChangedEvent.nation(nationId, name));
         }
 
         if (language != null && !language.isEmpty()
                 && !Objects.equals(nation.getLanguage(), language)) {
             nation.setLanguage(language);
+            eventPublisher.publishEvent(new NationLanguageChangedEvent(nationId, language));
         }
 
         if (religion != null && !religion.isEmpty()
@@ -192,13 +307,37 @@ public class NationService {
             nation.setReligion(religion);
         }
 
+        return NationDto.fromEntity(nation);
+    }
+
+    @Transactional
+    public NationDto patchNation(final Long nationId,
+                                 final Long version,
+                                 final String name,
+                                 final String language,
+                                 final String religion) {
+        NationDto nation = versionedUpdateRepository
+                .patchNation(nationId, version, name, language, religion)
+                .orElseThrow(() -> nationRepository.existsById(nationId)
+                        ? new StaleVersionException("nation with id " + nationId
+                                + " was modified by another request, version "
+                                + version + " is stale")
+                        : new ObjectNotFoundException("nation with id " + nationId
+                                + " does not exist, that is why "
+                                + "you can't update this"));
+
+        cacheService.remove(ALL_NATIONS);
+        cacheService.removeByPrefix(ALL_NATIONS_BY_COUNTRY_ID);
+        eventPublisher.publishEvent(NameChangedEvent.nation(nationId, nation.getName()));
+        eventPublisher.publishEvent(new NationLanguageChangedEvent(nationId,
+                nation.getLanguage()));
         return nation;
     }
 
     @Transactional
-    public void deleteNation(final Long nationId) {
+    public DeleteResultDto deleteNation(final Long nationId) {
 
-        Nation nation = nationRepository.findByIdWithCountries(nationId)
+        Nation nation = nationRepository.findById(nationId)
                 .orElseThrow(() -> new ObjectNotFoundException(
                         "nation, which id " + nationId
                                 + " doesn't exist, that is why "
@@ -206,15 +345,12 @@ public class NationService {
 
         cleanCache(nationId, nation);
 
-        List<Country> countries = countryRepository
-                .findCountriesWithNationsByNationByNationId(nationId);
-
-        for (Country country : countries) {
-            country.getNations().remove(nation);
-            countryRepository.save(country);
-        }
-
-        nationRepository.delete(nation);
+        DeleteResultDto result = new DeleteResultDto();
+        result.setDeletedNationLinks(
+                nationRepository.deleteCountryLinksByNationId(nationId));
+        result.setDeletedNations(nationRepository.deleteNationById(nationId));
+        eventPublisher.publishEvent(NameChangedEvent.nation(nationId, null));
+        return result;
     }
 
     @Transactional
@@ -238,6 +374,7 @@ public class NationService {
 
         country.getNations().remove(nation);
         countryRepository.save(country);
+        eventPublisher.publishEvent(NationLinkChangedEvent.unlinked(countryId, nationId));
     }
 
 
@@ -0,0 +1,72 @@
+package org.example.service;
+
+import java.util.List;
+import java.util.Locale;
+import lombok.AllArgsConstructor;
+import org.example.cache.RankingIndex;
+import org.example.cache.RankingIndex.Metric;
+import org.example.dto.CityDto;
+import org.example.dto.CountryDto;
+import org.example.exception.ObjectNotFoundException;
+import org.example.exception.ServiceUnavailableException;
+import org.example.repository.CountryRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+/**
+ * Top-N lists for {@code /api/rankings}. The order comes from {@link RankingIndex}, the
+ * entries are then loaded by id through the cache, so a request reads N rows at most. Until
+ * the index has been built the reads fail with 503 instead of sorting the tables.
+ */
+@Service
+@AllArgsConstructor
+public class RankingService {
+    private static final Logger logger = LoggerFactory.getLogger(RankingService.class);
+
+    public static final int MAX_LIMIT = 100;
+
+    private final RankingIndex rankingIndex;
+    private final CountryRepository countryRepository;
+    private final CountryService countryService;
+    private final CityService cityService;
+
+    public List<CityDto> getLargestCities(Long countryId, int limit) {
+        checkLimit(limit);
+        if (!countryRepository.existsById(countryId)) {
+            throw new ObjectNotFoundException("Country not found");
+        }
+        List<Long> ids = rankingIndex.largestCities(countryId, limit)
+                .orElseThrow(RankingService::notReady);
+        logger.info("🏆 Top {} cities of country with ID: {}", ids.size(), countryId);
+        return cityService.getCitiesByIds(ids);
+    }
+
+    public List<CountryDto> getTopCountries(String by, String language, int limit) {
+        checkLimit(limit);
+        Metric metric = parseMetric(by);
+        String spoken = language == null || language.isBlank() ? null : language.trim();
+        List<Long> ids = rankingIndex.topCountries(metric, spoken, limit)
+                .orElseThrow(RankingService::notReady);
+        logger.info("🏆 Top {} countries by {}", ids.size(), metric);
+        return countryService.getCountriesByIds(ids);
+    }
+
+    private static void checkLimit(int limit) {
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new IllegalArgumentException("Limit must be between 1 and " + MAX_LIMIT);
+        }
+    }
+
+    private static Metric parseMetric(String by) {
+        try {
+            return Metric.valueOf(by.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("By must be population, area, gdp or density");
+        }
+    }
+
+    private static ServiceUnavailableException notReady() {
+        return new ServiceUnavailableException("Rankings are being built");
+    }
+}
@@ -0,0 +1,92 @@
+package org.example.service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import lombok.AllArgsConstructor;
+import org.example.cache.SuggestionIndex;
+import org.example.dto.SuggestionDto;
+import org.example.event.NameChangedEvent.Kind;
+import org.example.repository.CityRepository;
+import org.example.repository.CountryRepository;
+import org.example.repository.NationRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+
+@Service
+@AllArgsConstructor
+public class SuggestionService {
+    private static final Logger logger = LoggerFactory.getLogger(SuggestionService.class);
+
+    private static final Comparator<SuggestionDto> ORDER = Comparator
+            .<SuggestionDto>comparingDouble(suggestion -> -(suggestion.getPopulation() == null
+                    ? 0 : suggestion.getPopulation()))
+            .thenComparing(SuggestionDto::getName, String.CASE_INSENSITIVE_ORDER)
+            .thenComparing(SuggestionDto::getId);
+
+    private final SuggestionIndex suggestionIndex;
+    private final CountryRepository countryRepository;
+    private final CityRepository cityRepository;
+    private final NationRepository nationRepository;
+
+    /**
+     * Names starting with {@code query} for autocomplete, most populous first. Without a
+     * {@code type} the best matches of all types are mixed. Answered from
+     * {@link SuggestionIndex}; the {@code LIKE} queries are only used while it is being built.
+     */
+    public List<SuggestionDto> suggest(String query, String type, int limit) {
+        if (limit < 1 || limit > SuggestionIndex.MAX_SUGGESTIONS) {
+            throw new IllegalArgumentException("Limit must be between 1 and "
+                    + SuggestionIndex.MAX_SUGGESTIONS);
+        }
+        String prefix = query == null ? "" : query.trim();
+        if (type != null && !type.isBlank()) {
+            return suggestOfType(prefix, parseType(type), limit);
+        }
+        List<SuggestionDto> suggestions = new ArrayList<>();
+        for (Kind kind : Kind.values()) {
+            suggestions.addAll(suggestOfType(prefix, kind, limit));
+        }
+        return suggestions.stream().sorted(ORDER).limit(limit).toList();
+    }
+
+    private static Kind parseType(String type) {
+        try {
+            return Kind.valueOf(type.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Type must be country, city or nation");
+        }
+    }
+
+    private List<SuggestionDto> suggestOfType(String prefix, Kind type, int limit) {
+        return suggestionIndex.suggest(type, prefix, limit).orElseGet(() -> {
+            logger.info("Suggestion index for {} not ready, searching {} in the database",
+                    type, prefix);
+            return findInDatabase(prefix, type, limit);
+        });
+    }
+
+    private List<SuggestionDto> findInDatabase(String prefix, Kind type, int limit) {
+        String pattern = prefix.toLowerCase(Locale.ROOT).replace("\\", "\\\\")
+                .replace("%", "\\%").replace("_", "\\_") + "%";
+        Pageable page = PageRequest.of(0, limit);
+        return switch (type) {
+            case COUNTRY -> countryRepository.findSuggestionRowsByNameLike(pattern, page).stream()
+                    .map(row -> SuggestionDto.of(type, (Long) row[0], (String) row[1], null,
+                            (Double) row[2]))
+                    .toList();
+            case CITY -> cityRepository.findSuggestionRowsByNameLike(pattern, page).stream()
+                    .map(row -> SuggestionDto.of(type, (Long) row[0], (String) row[1],
+                            (Long) row[3], (Double) row[2]))
+                    .toList();
+            case NATION -> nationRepository.findSuggestionRowsByNameLike(pattern, page).stream()
+                    .map(row -> SuggestionDto.of(type, (Long) row[0], (String) row[1], null,
+                            null))
+                    .toList();
+        };
+    }
+}
@@ -0,0 +1,48 @@
+-- Embedded (H2) equivalent of db/migration V1-V5 for the "embedded" profile.
+-- H2 has no expression indexes, so the case-insensitive unique names are enforced on a
+-- generated lower-case key column; there is no trigram index, LIKE scans the city table.
+CREATE SEQUENCE country_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE city_seq START WITH 1 INCREMENT BY 50;
+-- Nation ids stay database-generated; BatchMutationRepository reserves them from here.
+CREATE SEQUENCE nation_id_seq START WITH 1;
+
+CREATE TABLE country (
+    id         BIGINT PRIMARY KEY,
+    name       VARCHAR(255),
+    capital    VARCHAR(255),
+    population FLOAT(53),
+    area       FLOAT(53),
+    gdp        FLOAT(53),
+    version    BIGINT DEFAULT 0 NOT NULL,
+    name_key   VARCHAR(255) GENERATED ALWAYS AS (LOWER(name))
+);
+
+CREATE TABLE nation (
+    id       BIGINT DEFAULT NEXT VALUE FOR nation_id_seq PRIMARY KEY,
+    name     VARCHAR(255),
+    language VARCHAR(255),
+    religion VARCHAR(255),
+    version  BIGINT DEFAULT 0 NOT NULL,
+    name_key VARCHAR(255) GENERATED ALWAYS AS (LOWER(name))
+);
+
+CREATE TABLE city (
+    id         BIGINT PRIMARY KEY,
+    name       VARCHAR(255),
+    population FLOAT(53),
+    area       FLOAT(53),
+    country_id BIGINT REFERENCES country (id),
+    version    BIGINT DEFAULT 0 NOT NULL,
+    name_key   VARCHAR(255) GENERATED ALWAYS AS (LOWER(name))
+);
+
+CREATE TABLE country_nations (
+    country_id BIGINT NOT NULL REFERENCES country (id),
+    nation_id  BIGINT NOT NULL REFERENCES nation (id)
+);
+
+CREATE UNIQUE INDEX uk_country_name ON country (name_key);
+CREATE UNIQUE INDEX uk_nation_name ON nation (name_key);
+CREATE UNIQUE INDEX uk_city_country_name ON city (country_id, name_key);
+CREATE UNIQUE INDEX uk_country_nations ON country_nations (country_id, nation_id);
+CREATE INDEX idx_country_nations_nation ON country_nations (nation_id);
@@ -0,0 +1,31 @@
+-- Schema as previously generated by hibernate.ddl-auto=update.
+-- Such databases are baselined at version 0 (spring.flyway.baseline-on-migrate), so this
+-- still runs on them; IF NOT EXISTS keeps their tables and rows as they are.
+CREATE TABLE IF NOT EXISTS country (
+    id         BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    name       VARCHAR(255),
+    capital    VARCHAR(255),
+    population FLOAT(53),
+    area       FLOAT(53),
+    gdp        FLOAT(53)
+);
+
+CREATE TABLE IF NOT EXISTS nation (
+    id       BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    name     VARCHAR(255),
+    language VARCHAR(255),
+    religion VARCHAR(255)
+);
+
+CREATE TABLE IF NOT EXISTS city (
+    id         BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    name       VARCHAR(255),
+    population FLOAT(53),
+    area       FLOAT(53),
+    country_id BIGINT REFERENCES country (id)
+);
+
+CREATE TABLE IF NOT EXISTS country_nations (
+    country_id BIGINT NOT NULL REFERENCES country (id),
+    nation_id  BIGINT NOT NULL REFERENCES nation (id)
+);
@@ -0,0 +1,7 @@
+-- Pooled-lo sequences for Country and City ids (allocationSize = 50).
+-- Start above the existing rows so ids handed out by IDENTITY are never reused.
+CREATE SEQUENCE IF NOT EXISTS country_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS city_seq START WITH 1 INCREMENT BY 50;
+
+SELECT setval('country_seq', (SELECT COALESCE(MAX(id), 0) + 1 FROM country), false);
+SELECT setval('city_seq', (SELECT COALESCE(MAX(id), 0) + 1 FROM city), false);
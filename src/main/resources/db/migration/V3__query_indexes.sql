@@ -0,0 +1,19 @@
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+-- CountryRepository.findCountryByName / findExistingNames
+ALTER TABLE country ADD CONSTRAINT uk_country_name UNIQUE (name);
+
+-- NationRepository.findNationByName
+ALTER TABLE nation ADD CONSTRAINT uk_nation_name UNIQUE (name);
+
+-- CityRepository.findByCountryId and the case-insensitive duplicate check per country;
+-- the leading country_id column also serves plain country_id lookups and deletes.
+CREATE UNIQUE INDEX uk_city_country_name ON city (country_id, lower(name));
+
+-- Both sides of the join table: the unique index covers country_id lookups and is the
+-- conflict target for link inserts, the second index covers nation_id lookups.
+CREATE UNIQUE INDEX IF NOT EXISTS uk_country_nations ON country_nations (country_id, nation_id);
+CREATE INDEX idx_country_nations_nation ON country_nations (nation_id);
+
+-- CountryRepository.findCountriesByCityName: LOWER(city.name) LIKE '%...%'
+CREATE INDEX idx_city_name_trgm ON city USING gin (lower(name) gin_trgm_ops);
@@ -0,0 +1,5 @@
+-- Optimistic locking: @Version fields and the conditional PATCH updates in
+-- VersionedUpdateRepository. Existing and COPY-imported rows start at 0.
+ALTER TABLE country ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE city ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE nation ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
@@ -0,0 +1,8 @@
+-- Country and nation names are unique regardless of case, like city names per country.
+-- NameDictionary normalizes with lower-case keys and relies on these indexes as the
+-- final arbiter; the indexes also serve the LOWER(name) lookups.
+ALTER TABLE country DROP CONSTRAINT IF EXISTS uk_country_name;
+CREATE UNIQUE INDEX uk_country_name ON country (lower(name));
+
+ALTER TABLE nation DROP CONSTRAINT IF EXISTS uk_nation_name;
+CREATE UNIQUE INDEX uk_nation_name ON nation (lower(name));
@@ -0,0 +1,45 @@
+-- Optional, applied only with the "partitioned" profile (application-partitioned.properties).
+-- Rebuilds city as a table hash-partitioned by country_id, so per-country reads
+-- (CityRepository.findByCountryId, the country/city join fetches) and per-country deletes
+-- touch a single partition. Cities detached from a deleted country (country_id IS NULL)
+-- are routed to one partition like any other key.
+--
+-- Accepted risk: nothing enforces city.id uniqueness after this migration. Unique
+-- constraints on a partitioned table must contain the partition key, and a primary key on
+-- (country_id, id) is impossible because country_id is nullable, so the primary key on id
+-- becomes the plain index idx_city_id. Uniqueness rests on every writer drawing ids from
+-- city_seq: the column default, Hibernate's pooled-lo generator and the blocks handed out by
+-- CopyRepository.reserveIds (COPY import, gazetteer loader, write-behind ingest, batch
+-- endpoint). Never insert cities with ids from anywhere else on a partitioned database.
+-- Retried write-behind inserts stay idempotent through uk_city_country_name.
+
+ALTER TABLE city RENAME TO city_unpartitioned;
+
+CREATE TABLE city (
+    id         BIGINT NOT NULL DEFAULT nextval('city_seq'),
+    name       VARCHAR(255),
+    population FLOAT(53),
+    area       FLOAT(53),
+    country_id BIGINT REFERENCES country (id),
+    version    BIGINT NOT NULL DEFAULT 0
+) PARTITION BY HASH (country_id);
+
+DO $$
+BEGIN
+    FOR remainder IN 0..15 LOOP
+        EXECUTE format('CREATE TABLE city_p%s PARTITION OF city'
+                       ' FOR VALUES WITH (MODULUS 16, REMAINDER %s)', remainder, remainder);
+    END LOOP;
+END $$;
+
+INSERT INTO city (id, name, population, area, country_id, version)
+SELECT id, name, population, area, country_id, version FROM city_unpartitioned;
+
+DROP TABLE city_unpartitioned;
+
+-- Same names as V3 so queries and conflict targets keep working; created per partition.
+CREATE UNIQUE INDEX uk_city_country_name ON city (country_id, lower(name));
+CREATE INDEX idx_city_id ON city (id);
+CREATE INDEX idx_city_name_trgm ON city USING gin (lower(name) gin_trgm_ops);
+
+ANALYZE city;
@@ -0,0 +1,65 @@
+package org.example;
+
+import java.util.Optional;
+import java.util.function.Supplier;
+import org.example.model.City;
+import org.example.model.Country;
+import org.example.service.CountryService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+/**
+ * Base of the integration tests: the application on the "embedded" profile, backed by an
+ * in-memory H2 database instead of the data file, so every run starts from the migrations
+ * alone. All subclasses share one context and one database; each test creates its own rows
+ * under names no other test uses. Application logging is reduced to warnings so per-row
+ * log lines do not distort the timed tests.
+ *
+ * <p>Timed tests are tagged {@code benchmark} and run only with {@code -Pbenchmark}; they
+ * report their numbers through {@link #benchmarkLogger} and assert nothing about them.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:countrysearch;MODE=PostgreSQL;"
+                + "DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH;DB_CLOSE_DELAY=-1",
+        "logging.level.org.example=WARN"})
+@ActiveProfiles("embedded")
+@AutoConfigureMockMvc
+public abstract class EmbeddedDatabaseTest {
+    // Outside org.example, so the reduced application log level does not hide the results
+    protected static final Logger benchmarkLogger = LoggerFactory.getLogger("benchmark");
+
+    @Autowired
+    private CountryService countryService;
+
+    /** Saves a country without cities and returns its id. */
+    protected Long createCountry(String name) {
+        Country country = new Country();
+        country.setName(name);
+        return countryService.addNewCountry(country).getId();
+    }
+
+    /** Polls {@code result} until it is present, for indexes built in the background. */
+    protected static <T> T awaitPresent(Supplier<Optional<T>> result)
+            throws InterruptedException {
+        for (int attempt = 0; attempt < 100; attempt++) {
+            Optional<T> value = result.get();
+            if (value.isPresent()) {
+                return value.get();
+            }
+            Thread.sleep(100);
+        }
+        throw new AssertionError("index was not built in time");
+    }
+
+    /** A new, unsaved city with a population of 1000. */
+    protected static City city(String name) {
+        City city = new City();
+        city.setName(name);
+        city.setPopulation(1000.0);
+        return city;
+    }
+}
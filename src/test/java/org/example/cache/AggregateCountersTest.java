@@ -0,0 +1,125 @@
+package org.example.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import org.example.EmbeddedDatabaseTest;
+import org.example.dto.CityDto;
+import org.example.dto.CountryAggregateDto;
+import org.example.dto.NationAggregateDto;
+import org.example.model.Nation;
+import org.example.repository.CityRepository;
+import org.example.repository.CountryRepository;
+import org.example.repository.NationRepository;
+import org.example.service.CityService;
+import org.example.service.CountryService;
+import org.example.service.NationService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.PlatformTransactionManager;
+
+/**
+ * The live {@link AggregateCounters}, moved by the difference of every change, must hold the
+ * figures that counters freshly built from the database hold. Nations are linked, unlinked
+ * and relinked around figure changes, and a country is deleted while still linked, so the
+ * deltas reach the nation roll-ups on every path. Figures are whole numbers so the sums are
+ * exact.
+ */
+class AggregateCountersTest extends EmbeddedDatabaseTest {
+
+    @Autowired
+    private AggregateCounters aggregateCounters;
+
+    @Autowired
+    private CityService cityService;
+
+    @Autowired
+    private CountryService countryService;
+
+    @Autowired
+    private NationService nationService;
+
+    @Autowired
+    private CountryRepository countryRepository;
+
+    @Autowired
+    private CityRepository cityRepository;
+
+    @Autowired
+    private NationRepository nationRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void incrementalChangesMatchAFreshBuild() throws InterruptedException {
+        awaitPresent(aggregateCounters::totals);
+        Long land = createCountry("Tallyland");
+        Long shire = createCountry("Tallyshire");
+        Long mark = createCountry("Tallymark");
+        countryService.updateCountry(land, null, null, 1000.0, 100.0, 5000.0);
+        countryService.updateCountry(shire, null, null, 2000.0, 50.0, 8000.0);
+        countryService.updateCountry(mark, null, null, 300.0, 30.0, 900.0);
+        Long folk = nationService.addNewNationByCountryId(land, nation("Tallyfolk")).getId();
+        nationService.addNewNationByCountryId(shire, nation("Tallyfolk"));
+        Long kin = nationService.addNewNationByCountryId(shire, nation("Tallykin")).getId();
+        nationService.addNewNationByCountryId(mark, nation("Tallykin"));
+        Long clan = nationService.addNewNationByCountryId(mark, nation("Tallyclan")).getId();
+        List<Long> cities = cityService.addNewCitiesByCountryId(land, List.of(
+                city("Tallytown"), city("Tallyburg"), city("Tallyport"))).stream()
+                .map(CityDto::getId).toList();
+        cityService.addNewCitiesByCountryId(shire, List.of(city("Tallyford")));
+        cityService.addNewCityByCountryId(mark, city("Tallyhill"));
+
+        nationService.deleteNationFromCountry(land, folk);
+        countryService.updateCountry(land, null, null, 1200.0, null, 6000.0);
+        nationService.addNewNationByCountryId(land, nation("Tallyfolk"));
+        countryService.updateCountry(shire, null, null, 2500.0, null, null);
+        cityService.updateCity(cities.get(0), null, 400.0, null);
+        cityService.deleteCityById(cities.get(1));
+        cityService.deleteCitiesByCountryId(shire);
+        cityService.addNewCityByCountryId(shire, city("Tallyvale"));
+        countryService.deleteCountry(mark);
+        nationService.deleteNation(clan);
+
+        AggregateCounters fresh = new AggregateCounters(countryRepository, cityRepository,
+                nationRepository, transactionManager);
+        assertTrue(fresh.rebuildNow());
+        List<Long> countries = List.of(land, shire, mark);
+        Set<Long> nations = Set.of(folk, kin, clan);
+        assertEquals(countries(fresh, countries), countries(aggregateCounters, countries));
+        assertEquals(nations(fresh, nations), nations(aggregateCounters, nations));
+
+        List<NationAggregateDto> live = nations(aggregateCounters, nations);
+        assertEquals(List.of(folk, kin), live.stream().map(NationAggregateDto::getId).toList());
+        assertEquals(3700.0, live.get(0).getPopulation());
+        assertEquals(14_000.0, live.get(0).getGdp());
+        assertEquals(1, live.get(1).getCountryCount());
+        assertEquals(2500.0, live.get(1).getPopulation());
+        CountryAggregateDto tallyland = countries(aggregateCounters, countries).get(0);
+        assertEquals(2, tallyland.getCityCount());
+        assertEquals(1400.0, tallyland.getUrbanPopulation());
+    }
+
+    private static List<CountryAggregateDto> countries(AggregateCounters counters,
+                                                       List<Long> ids) {
+        return counters.countries(ids).orElseThrow().stream()
+                .sorted(Comparator.comparing(CountryAggregateDto::getId)).toList();
+    }
+
+    private static List<NationAggregateDto> nations(AggregateCounters counters, Set<Long> ids) {
+        return counters.nations().orElseThrow().stream()
+                .filter(nation -> ids.contains(nation.getId()))
+                .sorted(Comparator.comparing(NationAggregateDto::getId)).toList();
+    }
+
+    private static Nation nation(String name) {
+        Nation nation = new Nation();
+        nation.setName(name);
+        nation.setLanguage("Tallish");
+        return nation;
+    }
+}
@@ -0,0 +1,83 @@
+package org.example.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.example.EmbeddedDatabaseTest;
+import org.example.dto.CityDto;
+import org.example.repository.CityRepository;
+import org.example.service.CityService;
+import org.example.service.CountryService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.PlatformTransactionManager;
+
+/**
+ * The live {@link CityNameIndex}, kept up to date by city creates, renames, deletes and
+ * per-country reloads, must answer like an index freshly built from the database.
+ */
+class CityNameIndexTest extends EmbeddedDatabaseTest {
+    private static final List<String> QUERIES = List.of("trig", "tri", "ville", "gramton",
+            "trigramton", "ra", "stone", "ford", "bay");
+
+    @Autowired
+    private CityNameIndex cityNameIndex;
+
+    @Autowired
+    private CityService cityService;
+
+    @Autowired
+    private CountryService countryService;
+
+    @Autowired
+    private CityRepository cityRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void incrementalChangesMatchAFreshBuild() throws InterruptedException {
+        awaitPresent(() -> cityNameIndex.findCountries("trig", 1));
+        Long first = createCountry("Trigramland");
+        Long second = createCountry("Trigram bay");
+        Long third = createCountry("Trigram ford");
+        List<CityDto> cities = cityService.addNewCitiesByCountryId(first, List.of(
+                city("Trigramton"), city("Trigville"), city("Stoneville"), city("Trigford")));
+        cityService.addNewCitiesByCountryId(second, List.of(city("Trigbay"),
+                city("Bayville")));
+        cityService.addNewCitiesByCountryId(third, List.of(city("Fordtrig")));
+
+        cityService.updateCity(cities.get(1).getId(), "Ravenville", null, null);
+        cityService.deleteCityById(cities.get(3).getId());
+        cityService.deleteCitiesByCountryId(second);
+        cityService.addNewCityByCountryId(second, city("Baytrigram"));
+        countryService.deleteCountry(third);
+
+        CityNameIndex fresh = new CityNameIndex(cityRepository, transactionManager);
+        fresh.build();
+        awaitPresent(() -> fresh.findCountries("trig", 1));
+        Set<Long> countries = Set.of(first, second, third);
+        for (String query : QUERIES) {
+            assertEquals(ours(fresh, query, countries), ours(cityNameIndex, query, countries),
+                    query);
+        }
+        assertEquals(List.of(Map.entry(second,
+                Set.copyOf(cityRepository.findIdsByCountryId(second)))),
+                ours(cityNameIndex, "baytrig", countries));
+    }
+
+    /** Matches among {@code countries}, in ranking order. */
+    private static List<Map.Entry<Long, Set<Long>>> ours(CityNameIndex index, String query,
+                                                         Set<Long> countries) {
+        List<Map.Entry<Long, Set<Long>>> matches = new ArrayList<>();
+        index.findCountries(query, Integer.MAX_VALUE).orElseThrow().forEach((id, cityIds) -> {
+            if (countries.contains(id)) {
+                matches.add(Map.entry(id, cityIds));
+            }
+        });
+        return matches;
+    }
+}
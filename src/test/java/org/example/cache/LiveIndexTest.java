@@ -0,0 +1,113 @@
+package org.example.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Rebuild protocol of {@link LiveIndex} on a list of strings: changes applied during a
+ * rebuild are replayed on the fresh copy, a superseded or failed rebuild leaves the live
+ * copy alone, and a watcher replays what it missed after its own change.
+ */
+class LiveIndexTest {
+
+    @Test
+    void readsAreEmptyUntilTheFirstRebuild() {
+        LiveIndex<List<String>> live = new LiveIndex<>(new ArrayList<>());
+
+        assertEquals(Optional.empty(), live.read(List::size));
+        live.rebuild(live.startBuild(), () -> new ArrayList<>(List.of("a")));
+        assertEquals(Optional.of(1), live.read(List::size));
+    }
+
+    @Test
+    void changesDuringRebuildAreReplayedOnTheFreshCopy() {
+        LiveIndex<List<String>> live = built("a", "b");
+        long generation = live.startBuild();
+        live.change(list -> list.add("c"));
+        live.change(list -> list.remove("a"));
+
+        // The loader read the database before the changes were committed
+        List<String> fresh = live.rebuild(generation, () -> new ArrayList<>(List.of("a", "b")))
+                .orElseThrow();
+
+        assertEquals(List.of("b", "c"), fresh);
+        assertEquals(Optional.of(List.of("b", "c")), live.read(List::copyOf));
+        live.change(list -> list.add("d"));
+        assertEquals(Optional.of(List.of("b", "c", "d")), live.read(List::copyOf));
+    }
+
+    @Test
+    void supersededRebuildIsDropped() {
+        LiveIndex<List<String>> live = built("a");
+        long first = live.startBuild();
+        long second = live.startBuild();
+
+        assertEquals(Optional.empty(), live.rebuild(first, () -> new ArrayList<>(List.of("x"))));
+        assertEquals(Optional.of(List.of("a")), live.read(List::copyOf));
+        assertTrue(live.rebuild(second, () -> new ArrayList<>(List.of("y"))).isPresent());
+        assertEquals(Optional.of(List.of("y")), live.read(List::copyOf));
+    }
+
+    @Test
+    void failedRebuildKeepsTheLiveCopy() {
+        LiveIndex<List<String>> live = built("a");
+        long generation = live.startBuild();
+        live.change(list -> list.add("b"));
+
+        IllegalStateException failure = new IllegalStateException("database down");
+        assertSame(failure, assertThrows(IllegalStateException.class,
+                () -> live.rebuild(generation, () -> {
+                    throw failure;
+                })));
+        assertEquals(Optional.of(List.of("a", "b")), live.read(List::copyOf));
+    }
+
+    @Test
+    void watcherReplaysChangesMissedWhileItsRowsWereRead() {
+        LiveIndex<List<String>> live = built("a1", "a2", "b1");
+        List<Consumer<List<String>>> missed = live.watch();
+        // Rows of "a" read outside the lock, then a3 is added before they are applied
+        List<String> rowsOfA = List.of("a1", "a2");
+        live.change(list -> list.add("a3"));
+
+        live.change(missed, list -> {
+            list.removeIf(name -> name.startsWith("a"));
+            list.addAll(rowsOfA);
+        });
+
+        assertEquals(Optional.of(List.of("b1", "a1", "a2", "a3")), live.read(List::copyOf));
+        live.change(list -> list.add("b2"));
+        assertEquals(1, missed.size(), "the watch ends with the change");
+    }
+
+    @Test
+    void watcherReplayIsRepeatedByARunningRebuild() {
+        LiveIndex<List<String>> live = built("a1", "b1");
+        long generation = live.startBuild();
+        List<Consumer<List<String>>> missed = live.watch();
+        live.change(list -> list.add("a2"));
+        live.change(missed, list -> {
+            list.removeIf(name -> name.startsWith("a"));
+            list.add("a1");
+        });
+
+        List<String> fresh = live.rebuild(generation,
+                () -> new ArrayList<>(List.of("a1", "b1"))).orElseThrow();
+
+        assertEquals(List.of("b1", "a1", "a2"), fresh);
+    }
+
+    private static LiveIndex<List<String>> built(String... names) {
+        LiveIndex<List<String>> live = new LiveIndex<>(new ArrayList<>());
+        live.rebuild(live.startBuild(), () -> new ArrayList<>(List.of(names)));
+        return live;
+    }
+}
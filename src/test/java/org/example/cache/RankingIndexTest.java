@@ -0,0 +1,131 @@
+package org.example.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.List;
+import java.util.Set;
+import org.example.EmbeddedDatabaseTest;
+import org.example.cache.RankingIndex.Metric;
+import org.example.dto.CityDto;
+import org.example.model.Nation;
+import org.example.repository.CityRepository;
+import org.example.repository.CountryRepository;
+import org.example.repository.NationRepository;
+import org.example.service.CityService;
+import org.example.service.CountryService;
+import org.example.service.NationService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.PlatformTransactionManager;
+
+/**
+ * The live {@link RankingIndex}, kept up to date by figure changes, nation links, language
+ * changes and deletes, must rank like an index freshly built from the database. One country
+ * speaks a language through two nations, so dropping one of them must keep it in that
+ * language's orderings until the second one goes as well.
+ */
+class RankingIndexTest extends EmbeddedDatabaseTest {
+    private static final List<String> LANGUAGES = List.of("Rankish", "RANKESE", "Rankic");
+
+    @Autowired
+    private RankingIndex rankingIndex;
+
+    @Autowired
+    private CityService cityService;
+
+    @Autowired
+    private CountryService countryService;
+
+    @Autowired
+    private NationService nationService;
+
+    @Autowired
+    private CountryRepository countryRepository;
+
+    @Autowired
+    private CityRepository cityRepository;
+
+    @Autowired
+    private NationRepository nationRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void incrementalChangesMatchAFreshBuild() throws InterruptedException {
+        awaitPresent(() -> rankingIndex.topCountries(Metric.POPULATION, null, 1));
+        Long land = createCountry("Rankland");
+        Long shire = createCountry("Rankshire");
+        Long mark = createCountry("Rankmark");
+        Long holm = createCountry("Rankholm");
+        countryService.updateCountry(land, null, null, 1000.0, 10.0, 100.0);
+        countryService.updateCountry(shire, null, null, 2000.0, 40.0, 300.0);
+        countryService.updateCountry(mark, null, null, 500.0, null, 200.0);
+        countryService.updateCountry(holm, null, null, 1500.0, 5.0, 50.0);
+        Long folk = nationService.addNewNationByCountryId(land,
+                nation("Rankfolk", "Rankish")).getId();
+        nationService.addNewNationByCountryId(shire, nation("Rankfolk", "Rankish"));
+        nationService.addNewNationByCountryId(holm, nation("Rankfolk", "Rankish"));
+        Long kin = nationService.addNewNationByCountryId(shire,
+                nation("Rankkin", "Rankish")).getId();
+        Long clan = nationService.addNewNationByCountryId(mark,
+                nation("Rankclan", "Rankese")).getId();
+        nationService.addNewNationByCountryId(holm, nation("Rankclan", "Rankese"));
+        List<Long> cities = cityService.addNewCitiesByCountryId(land, List.of(
+                city("Rankton"), city("Rankburg"), city("Rankport"))).stream()
+                .map(CityDto::getId).toList();
+        cityService.addNewCitiesByCountryId(shire, List.of(city("Rankford"),
+                city("Rankvale")));
+        Set<Long> countries = Set.of(land, shire, mark, holm);
+
+        nationService.deleteNationFromCountry(shire, folk);
+        // Still spoken through the second nation
+        assertEquals(List.of(shire, holm, land),
+                ours(rankingIndex, Metric.POPULATION, "rankish", countries));
+        nationService.updateNation(kin, null, "Rankese", null);
+        nationService.addNewNationByCountryId(mark, nation("Rankkin", "Rankese"));
+        countryService.updateCountry(holm, null, null, 3000.0, null, null);
+        nationService.deleteNation(clan);
+        cityService.updateCity(cities.get(2), null, 5000.0, null);
+        cityService.deleteCityById(cities.get(0));
+        cityService.deleteCitiesByCountryId(shire);
+        cityService.addNewCityByCountryId(shire, city("Rankmoor"));
+        countryService.deleteCountry(land);
+
+        RankingIndex fresh = new RankingIndex(countryRepository, cityRepository,
+                nationRepository, transactionManager);
+        fresh.build();
+        awaitPresent(() -> fresh.topCountries(Metric.POPULATION, null, 1));
+        for (Metric metric : Metric.values()) {
+            assertEquals(ours(fresh, metric, null, countries),
+                    ours(rankingIndex, metric, null, countries), metric.name());
+            for (String language : LANGUAGES) {
+                assertEquals(ours(fresh, metric, language, countries),
+                        ours(rankingIndex, metric, language, countries),
+                        metric + " " + language);
+            }
+        }
+        for (Long country : countries) {
+            assertEquals(fresh.largestCities(country, Integer.MAX_VALUE),
+                    rankingIndex.largestCities(country, Integer.MAX_VALUE));
+        }
+        assertEquals(List.of(holm), ours(rankingIndex, Metric.POPULATION, "rankish", countries));
+        assertEquals(List.of(shire, mark),
+                ours(rankingIndex, Metric.POPULATION, "rankese", countries));
+        assertEquals(List.of(shire), ours(rankingIndex, Metric.DENSITY, "rankese", countries));
+    }
+
+    /** Top countries among {@code countries}, in ranking order. */
+    private static List<Long> ours(RankingIndex index, Metric metric, String language,
+                                   Set<Long> countries) {
+        return index.topCountries(metric, language, Integer.MAX_VALUE).orElseThrow().stream()
+                .filter(countries::contains).toList();
+    }
+
+    private static Nation nation(String name, String language) {
+        Nation nation = new Nation();
+        nation.setName(name);
+        nation.setLanguage(language);
+        return nation;
+    }
+}
@@ -0,0 +1,126 @@
+package org.example.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import org.example.EmbeddedDatabaseTest;
+import org.example.dto.SuggestionDto;
+import org.example.event.NameChangedEvent.Kind;
+import org.example.repository.CopyRepository;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Autocomplete benchmark: 1M generated city names with random populations, loaded straight
+ * into the database and indexed by a full {@link SuggestionIndex} build (the other indexes
+ * are not told about them). Measures {@link SuggestionIndex#suggest} latency for prefixes of
+ * one to four characters taken from the names and logs the p50, p99 and the trie's
+ * estimated memory per name; the target is a p99 under one millisecond. The cities are
+ * deleted and the index rebuilt afterwards.
+ */
+@Tag("benchmark")
+class SuggestionIndexBenchmarkTest extends EmbeddedDatabaseTest {
+    private static final int NAMES = 1_000_000;
+    private static final int CHUNK = 10_000;
+    private static final int WARMUP_LOOKUPS = 50_000;
+    private static final int LOOKUPS = 100_000;
+    private static final String[] SYLLABLES = {"ba", "bel", "ca", "cor", "da", "dun", "el",
+        "fa", "gor", "ha", "in", "ka", "kin", "la", "lo", "ma", "mir", "na", "no", "or", "pa",
+        "ra", "ri", "sa", "sol", "ta", "tor", "u", "va", "ven", "za"};
+
+    @Autowired
+    private SuggestionIndex suggestionIndex;
+
+    @Autowired
+    private CopyRepository copyRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void suggestLatencyAtOneMillionNames() throws InterruptedException {
+        Long countryId = createCountry("Suggestland");
+        Random random = new Random(42);
+        List<String> names = new ArrayList<>(NAMES);
+        try {
+            for (int from = 0; from < NAMES; from += CHUNK) {
+                List<Long> ids = copyRepository.reserveIds("city_seq", CHUNK);
+                List<Object[]> rows = new ArrayList<>(CHUNK);
+                for (int i = 0; i < CHUNK; i++) {
+                    String name = word(random) + " " + Integer.toString(from + i, 36);
+                    names.add(name);
+                    rows.add(new Object[] {ids.get(i), name,
+                        Math.floor(Math.pow(10, 2 + 5 * random.nextDouble())), countryId});
+                }
+                jdbcTemplate.batchUpdate("INSERT INTO city (id, name, population, country_id)"
+                        + " VALUES (?, ?, ?, ?)", rows);
+            }
+            long started = System.nanoTime();
+            suggestionIndex.build();
+            awaitNames(NAMES);
+            double buildSeconds = (System.nanoTime() - started) / 1e9;
+
+            List<SuggestionDto> top = suggestionIndex.suggest(Kind.CITY, names.get(0), 10)
+                    .orElseThrow();
+            assertEquals(names.get(0), top.get(0).getName());
+
+            String[] prefixes = new String[WARMUP_LOOKUPS + LOOKUPS];
+            for (int i = 0; i < prefixes.length; i++) {
+                String name = names.get(random.nextInt(NAMES));
+                prefixes[i] = name.substring(0, 1 + random.nextInt(4));
+            }
+            long[] nanos = new long[LOOKUPS];
+            for (int i = 0; i < prefixes.length; i++) {
+                long lookupStarted = System.nanoTime();
+                suggestionIndex.suggest(Kind.CITY, prefixes[i], 10).orElseThrow();
+                if (i >= WARMUP_LOOKUPS) {
+                    nanos[i - WARMUP_LOOKUPS] = System.nanoTime() - lookupStarted;
+                }
+            }
+            Arrays.sort(nanos);
+            double bytesPerName = gauge("suggestion.index.memory")
+                    / gauge("suggestion.index.names");
+            benchmarkLogger.info("Suggest over {} city names: built in {} s, p50 {} us,"
+                    + " p99 {} us, ~{} bytes per name", NAMES, Math.round(buildSeconds),
+                    nanos[LOOKUPS / 2] / 1000.0, nanos[LOOKUPS * 99 / 100] / 1000.0,
+                    Math.round(bytesPerName));
+        } finally {
+            jdbcTemplate.update("DELETE FROM city WHERE country_id = ?", countryId);
+            suggestionIndex.build();
+            awaitNames(0);
+        }
+    }
+
+    private void awaitNames(int atLeast) throws InterruptedException {
+        for (int attempt = 0; attempt < 600; attempt++) {
+            double names = gauge("suggestion.index.names");
+            if (atLeast == 0 ? names < NAMES : names >= atLeast) {
+                return;
+            }
+            Thread.sleep(200);
+        }
+        throw new AssertionError("suggestion index was not rebuilt in time");
+    }
+
+    private double gauge(String name) {
+        return meterRegistry.get(name).tag("type", "city").gauge().value();
+    }
+
+    private static String word(Random random) {
+        StringBuilder word = new StringBuilder();
+        for (int i = 2 + random.nextInt(3); i > 0; i--) {
+            word.append(SYLLABLES[random.nextInt(SYLLABLES.length)]);
+        }
+        word.setCharAt(0, Character.toUpperCase(word.charAt(0)));
+        return word.toString();
+    }
+}
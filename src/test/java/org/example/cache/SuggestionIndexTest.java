@@ -0,0 +1,110 @@
+package org.example.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+import org.example.EmbeddedDatabaseTest;
+import org.example.dto.CityDto;
+import org.example.dto.SuggestionDto;
+import org.example.event.NameChangedEvent.Kind;
+import org.example.model.City;
+import org.example.repository.CityRepository;
+import org.example.repository.CountryRepository;
+import org.example.repository.NationRepository;
+import org.example.service.CityService;
+import org.example.service.CountryService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.PlatformTransactionManager;
+
+/**
+ * The live {@link SuggestionIndex}, kept up to date by creates, renames, population changes,
+ * deletes and per-country reloads, must suggest what a trie freshly built from the database
+ * suggests. The names share prefixes so that the changes split nodes, absorb single
+ * children and refill the top lists of inner nodes from deeper names on removal.
+ */
+class SuggestionIndexTest extends EmbeddedDatabaseTest {
+    private static final int QUARRIES = 15;
+    private static final List<String> PREFIXES = List.of("q", "qu", "qua", "quar", "quarry",
+            "quarry 0", "quarry 1", "quay", "qui", "quie", "quil", "quill", "quilt",
+            "quiltb", "quin", "quint");
+
+    @Autowired
+    private SuggestionIndex suggestionIndex;
+
+    @Autowired
+    private CityService cityService;
+
+    @Autowired
+    private CountryService countryService;
+
+    @Autowired
+    private CountryRepository countryRepository;
+
+    @Autowired
+    private CityRepository cityRepository;
+
+    @Autowired
+    private NationRepository nationRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void incrementalChangesMatchAFreshBuild() throws InterruptedException {
+        awaitPresent(() -> suggestionIndex.suggest(Kind.CITY, "q", 1));
+        Long quarryland = createCountry("Quarryland");
+        Long quayland = createCountry("Quayland");
+        Long quietland = createCountry("Quietland");
+        List<City> cities = new ArrayList<>(IntStream.range(0, QUARRIES)
+                .mapToObj(i -> city(String.format("Quarry %02d", i), 1000.0 * (i + 1)))
+                .toList());
+        cities.addAll(List.of(city("Quill", 500.0), city("Quillon", 700.0),
+                city("Quilt", 600.0), city("Quiet", 800.0)));
+        List<Long> ids = cityService.addNewCitiesByCountryId(quarryland, cities).stream()
+                .map(CityDto::getId).toList();
+        cityService.addNewCitiesByCountryId(quayland, List.of(city("Quay 1", 100.0),
+                city("Quay 2", 200.0)));
+        cityService.addNewCityByCountryId(quietland, city("Quietude", 900.0));
+
+        cityService.updateCity(ids.get(QUARRIES + 1), "Quiltborough", null, null);
+        cityService.deleteCityById(ids.get(QUARRIES));
+        cityService.updateCity(ids.get(2), null, 1_000_000.0, null);
+        IntStream.range(QUARRIES - 3, QUARRIES).forEach(i ->
+                cityService.deleteCityById(ids.get(i)));
+        cityService.updateCity(ids.get(5), "Quintet", 50_000.0, null);
+        cityService.deleteCitiesByCountryId(quayland);
+        cityService.addNewCityByCountryId(quayland, city("Quay 3", 300.0));
+        countryService.updateCountry(quayland, "Quaysland", null, 5000.0, null, null);
+        countryService.deleteCountry(quietland);
+
+        SuggestionIndex fresh = new SuggestionIndex(countryRepository, cityRepository,
+                nationRepository, transactionManager, new SimpleMeterRegistry());
+        fresh.build();
+        awaitPresent(() -> fresh.suggest(Kind.CITY, "q", 1));
+        awaitPresent(() -> fresh.suggest(Kind.COUNTRY, "q", 1));
+        for (String prefix : PREFIXES) {
+            for (Kind kind : List.of(Kind.CITY, Kind.COUNTRY)) {
+                assertEquals(names(fresh, kind, prefix), names(suggestionIndex, kind, prefix),
+                        kind + " " + prefix);
+            }
+        }
+        assertEquals(List.of("Quarry 02", "Quintet", "Quarry 11", "Quarry 10", "Quarry 09",
+                "Quarry 08", "Quarry 07", "Quarry 06", "Quarry 04", "Quarry 03"),
+                names(suggestionIndex, Kind.CITY, "qu"));
+    }
+
+    private static List<String> names(SuggestionIndex index, Kind kind, String prefix) {
+        return index.suggest(kind, prefix, SuggestionIndex.MAX_SUGGESTIONS).orElseThrow()
+                .stream().map(SuggestionDto::getName).toList();
+    }
+
+    private static City city(String name, double population) {
+        City city = city(name);
+        city.setPopulation(population);
+        return city;
+    }
+}
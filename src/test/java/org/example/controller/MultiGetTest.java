@@ -0,0 +1,138 @@
+package org.example.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.example.EmbeddedDatabaseTest;
+import org.example.cache.SearchCache;
+import org.example.dto.CountryDto;
+import org.example.model.Country;
+import org.example.service.CountryService;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+
+/**
+ * Multi-get of a dashboard of 50 countries with one {@code GET /api/country?ids=}: it must
+ * return the same countries as 50 {@code GET /api/country/{id}} requests, in request order,
+ * and cache what it loaded only for small misses. The benchmark times both variants from an
+ * empty cache over several rounds and logs the medians.
+ */
+class MultiGetTest extends EmbeddedDatabaseTest {
+    private static final int COUNTRIES = 50;
+    private static final int SMALL_MISS = 10;
+    private static final int ROUNDS = 5;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private CountryService countryService;
+
+    @Autowired
+    private SearchCache searchCache;
+
+    @Test
+    void multiGetReturnsCountriesInRequestOrder() throws Exception {
+        List<Long> ids = createDashboard("Dashboard country ");
+
+        searchCache.clear();
+        assertEquals(ids, singleGets(ids));
+        searchCache.clear();
+        assertEquals(ids, multiGet(ids));
+    }
+
+    @Test
+    void multiGetBackfillsTheCacheOnlyForSmallMisses() throws Exception {
+        List<Long> ids = createDashboard("Backfill country ");
+
+        searchCache.clear();
+        multiGet(ids);
+        assertTrue(ids.stream().noneMatch(id -> searchCache.containsKey("country_" + id)));
+
+        List<Long> few = ids.subList(0, SMALL_MISS);
+        multiGet(few);
+        assertTrue(few.stream().allMatch(id -> searchCache.containsKey("country_" + id)));
+        assertFalse(searchCache.containsKey("country_" + ids.get(SMALL_MISS)));
+    }
+
+    @Test
+    @Tag("benchmark")
+    void multiGetAgainstSequenceOfSingleGets() throws Exception {
+        List<Long> ids = createDashboard("Benchmark dashboard country ");
+
+        long[] singleNanos = new long[ROUNDS];
+        long[] multiNanos = new long[ROUNDS];
+        for (int round = 0; round < ROUNDS; round++) {
+            searchCache.clear();
+            long started = System.nanoTime();
+            singleGets(ids);
+            singleNanos[round] = System.nanoTime() - started;
+
+            searchCache.clear();
+            started = System.nanoTime();
+            multiGet(ids);
+            multiNanos[round] = System.nanoTime() - started;
+        }
+
+        benchmarkLogger.info("{} countries, cold cache: {} single GETs {} ms, one multi-get"
+                + " {} ms (median of {} rounds)", COUNTRIES, COUNTRIES,
+                median(singleNanos) / 1_000_000, median(multiNanos) / 1_000_000, ROUNDS);
+    }
+
+    /** Saves the dashboard countries and returns their ids in reverse creation order. */
+    private List<Long> createDashboard(String namePrefix) {
+        List<Country> countries = IntStream.range(0, COUNTRIES).mapToObj(i -> {
+            Country country = new Country();
+            country.setName(namePrefix + i);
+            return country;
+        }).toList();
+        List<Long> ids = new ArrayList<>(countryService.addNewCountries(countries).stream()
+                .map(CountryDto::getId).toList());
+        Collections.reverse(ids);
+        return ids;
+    }
+
+    private List<Long> singleGets(List<Long> ids) throws Exception {
+        List<Long> returned = new ArrayList<>();
+        for (Long id : ids) {
+            returned.add(read(get("/api/country/{id}", id)).get("id").asLong());
+        }
+        return returned;
+    }
+
+    private List<Long> multiGet(List<Long> ids) throws Exception {
+        String idList = ids.stream().map(String::valueOf).collect(Collectors.joining(","));
+        List<Long> returned = new ArrayList<>();
+        read(get("/api/country").param("ids", idList))
+                .forEach(country -> returned.add(country.get("id").asLong()));
+        return returned;
+    }
+
+    private JsonNode read(RequestBuilder request) throws Exception {
+        return objectMapper.readTree(mockMvc.perform(request).andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString());
+    }
+
+    private static long median(long[] values) {
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2];
+    }
+}
@@ -0,0 +1,83 @@
+package org.example.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.List;
+import org.example.EmbeddedDatabaseTest;
+import org.example.dto.CountryDto;
+import org.example.model.City;
+import org.example.model.Country;
+import org.example.service.CityService;
+import org.example.service.CountryService;
+import org.hibernate.LazyInitializationException;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.TestInstance.Lifecycle;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+
+/**
+ * With {@code spring.jpa.open-in-view=false} nothing keeps a session open around a request,
+ * so entities leave the repositories detached: touching a lazy association afterwards must
+ * throw instead of quietly running a query, and the services must hand out DTOs that are
+ * complete without a session.
+ */
+@TestInstance(Lifecycle.PER_CLASS)
+class LazyLoadingTest extends EmbeddedDatabaseTest {
+
+    @Autowired
+    private CountryService countryService;
+
+    @Autowired
+    private CityService cityService;
+
+    @Autowired
+    private CountryRepository countryRepository;
+
+    @Autowired
+    private CityRepository cityRepository;
+
+    @Value("${spring.jpa.open-in-view}")
+    private boolean openInView;
+
+    private Long countryId;
+    private Long cityId;
+
+    @BeforeAll
+    void createCountryWithCity() {
+        countryId = createCountry("Lazyland");
+        cityId = cityService.addNewCitiesByCountryId(countryId, List.of(city("Lazytown")))
+                .get(0).getId();
+    }
+
+    @Test
+    void openInViewIsDisabled() {
+        assertFalse(openInView);
+    }
+
+    @Test
+    void lazyCollectionOutsideTransactionFails() {
+        Country country = countryRepository.findById(countryId).orElseThrow();
+
+        assertThrows(LazyInitializationException.class, () -> country.getCities().size());
+    }
+
+    @Test
+    void lazyReferenceOutsideTransactionFails() {
+        City city = cityRepository.findById(cityId).orElseThrow();
+
+        assertThrows(LazyInitializationException.class, () -> city.getCountry().getName());
+    }
+
+    @Test
+    void serviceDtosAreMaterialized() {
+        CountryDto country = countryService.getCountryById(countryId);
+
+        assertEquals("Lazyland", country.getName());
+        assertEquals("Lazyland", cityService.getCitiesByCountryId(countryId).iterator().next()
+                .getCountry().getName());
+    }
+}
@@ -0,0 +1,129 @@
+package org.example.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.MatchResult;
+import java.util.regex.Pattern;
+import org.example.model.Country;
+import org.example.service.CountryService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+/**
+ * Scaled benchmark of the "partitioned" profile against a local PostgreSQL server, which the
+ * embedded H2 tests cannot stand in for. Runs only when {@code PARTITIONED_DATABASE_URL}
+ * points at a scratch database (with {@code PARTITIONED_DATABASE_USERNAME} and
+ * {@code PARTITIONED_DATABASE_PASSWORD}); the migrations partition its city table.
+ *
+ * <p>Loads {@value #COUNTRIES} countries of {@value #CITIES_PER_COUNTRY} cities each,
+ * checks that {@link CityRepository#findByCountryId} still maps the partitioned table and
+ * that a per-country read and a per-country delete each plan against a single partition,
+ * and logs the time of reading every country's cities next to the same reads against an
+ * unpartitioned copy of the table. Its rows and the copy are removed afterwards.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=${PARTITIONED_DATABASE_URL}",
+        "spring.datasource.username=${PARTITIONED_DATABASE_USERNAME:postgres}",
+        "spring.datasource.password=${PARTITIONED_DATABASE_PASSWORD:}",
+        "logging.level.org.example=WARN"})
+@ActiveProfiles("partitioned")
+@EnabledIfEnvironmentVariable(named = "PARTITIONED_DATABASE_URL", matches = ".+")
+class PartitionPruningTest {
+    private static final int COUNTRIES = 64;
+    private static final int CITIES_PER_COUNTRY = 5_000;
+    private static final int CHUNK = 5_000;
+    private static final Pattern PARTITION = Pattern.compile("city_p\\d+");
+    // Outside org.example, so the reduced application log level does not hide the results
+    private static final Logger benchmarkLogger = LoggerFactory.getLogger("benchmark");
+
+    @Autowired
+    private CountryService countryService;
+
+    @Autowired
+    private CityRepository cityRepository;
+
+    @Autowired
+    private CopyRepository copyRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void perCountryReadsAndDeletesPruneToOnePartition() {
+        List<Long> countryIds = new ArrayList<>();
+        try {
+            for (int c = 0; c < COUNTRIES; c++) {
+                Country country = new Country();
+                country.setName("Partition country " + c);
+                Long countryId = countryService.addNewCountry(country).getId();
+                countryIds.add(countryId);
+                insertCities(countryId);
+            }
+            jdbcTemplate.execute("ANALYZE city");
+
+            Long probe = countryIds.get(0);
+            assertEquals(CITIES_PER_COUNTRY, cityRepository.findByCountryId(probe).size());
+            assertEquals(1, partitionsScanned("SELECT id, name FROM city WHERE country_id = "
+                    + probe));
+            assertEquals(1, partitionsScanned("DELETE FROM city WHERE country_id = " + probe));
+
+            double partitioned = millisPerCountry("city", countryIds);
+            jdbcTemplate.execute("CREATE UNLOGGED TABLE city_flat AS SELECT * FROM city");
+            jdbcTemplate.execute("CREATE INDEX ON city_flat (country_id)");
+            jdbcTemplate.execute("ANALYZE city_flat");
+            double flat = millisPerCountry("city_flat", countryIds);
+
+            benchmarkLogger.info("Per-country city read over {} cities: {} ms partitioned,"
+                    + " {} ms unpartitioned copy", COUNTRIES * CITIES_PER_COUNTRY,
+                    String.format(Locale.ROOT, "%.2f", partitioned),
+                    String.format(Locale.ROOT, "%.2f", flat));
+        } finally {
+            jdbcTemplate.execute("DROP TABLE IF EXISTS city_flat");
+            countryIds.forEach(id -> {
+                jdbcTemplate.update("DELETE FROM city WHERE country_id = ?", id);
+                jdbcTemplate.update("DELETE FROM country WHERE id = ?", id);
+            });
+        }
+    }
+
+    private void insertCities(Long countryId) {
+        for (int from = 0; from < CITIES_PER_COUNTRY; from += CHUNK) {
+            List<Long> ids = copyRepository.reserveIds("city_seq", CHUNK);
+            List<Object[]> rows = new ArrayList<>(CHUNK);
+            for (int i = 0; i < CHUNK; i++) {
+                rows.add(new Object[] {ids.get(i), "Partition city " + (from + i), 1000.0,
+                    countryId});
+            }
+            jdbcTemplate.batchUpdate("INSERT INTO city (id, name, population, country_id)"
+                    + " VALUES (?, ?, ?, ?)", rows);
+        }
+    }
+
+    /** Distinct city partitions in the plan of {@code sql}. */
+    private long partitionsScanned(String sql) {
+        return jdbcTemplate.queryForList("EXPLAIN (COSTS OFF) " + sql, String.class).stream()
+                .flatMap(line -> PARTITION.matcher(line).results().map(MatchResult::group))
+                .distinct()
+                .count();
+    }
+
+    /** Average time to read one country's cities from {@code table}, after a warm-up pass. */
+    private double millisPerCountry(String table, List<Long> countryIds) {
+        String sql = "SELECT c.id, c.name, k.name FROM " + table + " c"
+                + " LEFT JOIN country k ON k.id = c.country_id WHERE c.country_id = ?";
+        countryIds.forEach(id -> jdbcTemplate.queryForList(sql, id));
+        long started = System.nanoTime();
+        countryIds.forEach(id -> assertEquals(CITIES_PER_COUNTRY,
+                jdbcTemplate.queryForList(sql, id).size()));
+        return (System.nanoTime() - started) / 1e6 / countryIds.size();
+    }
+}
@@ -0,0 +1,88 @@
+package org.example.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import jakarta.persistence.EntityManagerFactory;
+import java.util.List;
+import java.util.stream.IntStream;
+import org.example.EmbeddedDatabaseTest;
+import org.example.model.City;
+import org.example.repository.CityRepository;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+/**
+ * Bulk insert through {@link CityService#addNewCitiesByCountryId}: one duplicate check per
+ * chunk, pooled ids and JDBC batches. The unit test stores 10k cities and counts the
+ * statements Hibernate prepared; the benchmark compares the bulk rate with the single-city
+ * path, which checks and inserts every city on its own.
+ */
+class CityBulkInsertTest extends EmbeddedDatabaseTest {
+    private static final int BULK_CITIES = 10_000;
+    private static final int SINGLE_CITIES = 200;
+    // Batches of 50 take about 220 statements; unbatched inserts would take one per city
+    private static final int MAX_BULK_STATEMENTS = BULK_CITIES / 10;
+
+    @Autowired
+    private CityService cityService;
+
+    @Autowired
+    private CityRepository cityRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void bulkInsertStoresTenThousandCitiesInBatches() {
+        Long countryId = createCountry("Bulkland");
+        List<City> cities = bulkCities("Bulk city ");
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class)
+                .getStatistics();
+        statistics.clear();
+        statistics.setStatisticsEnabled(true);
+        try {
+            cityService.addNewCitiesByCountryId(countryId, cities);
+        } finally {
+            statistics.setStatisticsEnabled(false);
+        }
+
+        assertEquals(BULK_CITIES, cityRepository.findIdsByCountryId(countryId).size());
+        assertEquals(BULK_CITIES, statistics.getEntityInsertCount());
+        assertTrue(statistics.getPrepareStatementCount() <= MAX_BULK_STATEMENTS,
+                statistics.getPrepareStatementCount() + " statements for " + BULK_CITIES
+                        + " cities");
+    }
+
+    @Test
+    @Tag("benchmark")
+    void bulkInsertRateAgainstSingleInserts() {
+        Long bulkCountryId = createCountry("Bulk benchmark land");
+        List<City> cities = bulkCities("Bulk benchmark city ");
+        long started = System.nanoTime();
+        cityService.addNewCitiesByCountryId(bulkCountryId, cities);
+        double bulkRate = rate(BULK_CITIES, started);
+
+        Long singleCountryId = createCountry("Singleland");
+        started = System.nanoTime();
+        for (int i = 0; i < SINGLE_CITIES; i++) {
+            cityService.addNewCityByCountryId(singleCountryId, city("Single city " + i));
+        }
+        double singleRate = rate(SINGLE_CITIES, started);
+
+        benchmarkLogger.info("Bulk insert: {} cities at {} cities/s, single inserts: {} cities"
+                + " at {} cities/s", BULK_CITIES, Math.round(bulkRate), SINGLE_CITIES,
+                Math.round(singleRate));
+    }
+
+    private static List<City> bulkCities(String namePrefix) {
+        return IntStream.range(0, BULK_CITIES).mapToObj(i -> city(namePrefix + i)).toList();
+    }
+
+    private static double rate(int rows, long startedNanos) {
+        return rows * 1e9 / (System.nanoTime() - startedNanos);
+    }
+}
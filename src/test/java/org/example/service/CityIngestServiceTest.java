@@ -0,0 +1,92 @@
+package org.example.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+import org.example.EmbeddedDatabaseTest;
+import org.example.dto.CityImportDto;
+import org.example.model.City;
+import org.example.repository.BatchMutationRepository;
+import org.example.repository.CityRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.dao.DataIntegrityViolationException;
+
+/**
+ * Write-behind ingestion: names longer than the column are rejected when the request is
+ * accepted, and a row the database rejects at write time is dropped and counted while the
+ * rest of its group is written and the writer keeps draining the queue. The database
+ * rejection is simulated for cities named "Poison ...".
+ */
+class CityIngestServiceTest extends EmbeddedDatabaseTest {
+    @SpyBean
+    private BatchMutationRepository batchRepository;
+
+    @Autowired
+    private CityIngestService cityIngestService;
+
+    @Autowired
+    private CityService cityService;
+
+    @Autowired
+    private CityRepository cityRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void namesLongerThanTheColumnAreRejectedUpFront() {
+        Long countryId = createCountry("Longnameland");
+        City city = city("L".repeat(City.MAX_NAME_LENGTH + 1));
+
+        assertThrows(IllegalArgumentException.class,
+                () -> cityIngestService.enqueue(countryId, List.of(city)));
+        assertThrows(IllegalArgumentException.class,
+                () -> cityService.addNewCityByCountryId(countryId, city));
+        assertThrows(IllegalArgumentException.class,
+                () -> cityService.addNewCitiesByCountryId(countryId, List.of(city)));
+        assertEquals(0, cityRepository.findIdsByCountryId(countryId).size());
+    }
+
+    @Test
+    void rejectedRowIsDroppedAndTheRestOfTheGroupIsWritten() throws InterruptedException {
+        doAnswer(invocation -> {
+            List<CityImportDto> rows = invocation.getArgument(0);
+            if (rows.stream().anyMatch(row -> row.getName().startsWith("Poison"))) {
+                throw new DataIntegrityViolationException("simulated constraint violation");
+            }
+            return invocation.callRealMethod();
+        }).when(batchRepository).insertCitiesIfAbsent(anyList(), anyList());
+        Long countryId = createCountry("Ingestland");
+        double skippedBefore = skipped();
+
+        cityIngestService.enqueue(countryId, List.of(city("Ingest city 1"),
+                city("Poison city"), city("Ingest city 2")));
+        await(() -> skipped() > skippedBefore
+                && cityRepository.findIdsByCountryId(countryId).size() == 2);
+        assertEquals(skippedBefore + 1, skipped());
+
+        cityIngestService.enqueue(countryId, List.of(city("Ingest city 3")));
+        await(() -> cityRepository.findIdsByCountryId(countryId).size() == 3);
+    }
+
+    private double skipped() {
+        return meterRegistry.get("city.ingest.skipped").counter().count();
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        for (int attempt = 0; attempt < 100; attempt++) {
+            if (condition.getAsBoolean()) {
+                return;
+            }
+            Thread.sleep(50);
+        }
+        throw new AssertionError("city ingest writer did not catch up in time");
+    }
+}